@@ -0,0 +1,28 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "coalescencia")
+public class CoalescenciaConfig {
+
+    private long janela = 1000;
+    private long espera = 5000;
+
+    public long getJanela() {
+        return janela;
+    }
+
+    public void setJanela(long janela) {
+        this.janela = janela;
+    }
+
+    public long getEspera() {
+        return espera;
+    }
+
+    public void setEspera(long espera) {
+        this.espera = espera;
+    }
+}
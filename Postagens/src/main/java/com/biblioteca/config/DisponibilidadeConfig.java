@@ -0,0 +1,64 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "disponibilidade")
+public class DisponibilidadeConfig {
+
+    private long heartbeat = 15000;
+    private long timeout = 1800000;
+    private long espera = 30000;
+    private int maxLivros = 50;
+    private int maxAssinantes = 50000;
+    private int threads = 4;
+
+    public long getHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(long heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public long getEspera() {
+        return espera;
+    }
+
+    public void setEspera(long espera) {
+        this.espera = espera;
+    }
+
+    public int getMaxLivros() {
+        return maxLivros;
+    }
+
+    public void setMaxLivros(int maxLivros) {
+        this.maxLivros = maxLivros;
+    }
+
+    public int getMaxAssinantes() {
+        return maxAssinantes;
+    }
+
+    public void setMaxAssinantes(int maxAssinantes) {
+        this.maxAssinantes = maxAssinantes;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+}
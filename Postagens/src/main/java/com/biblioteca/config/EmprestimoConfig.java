@@ -0,0 +1,64 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "emprestimo")
+public class EmprestimoConfig {
+
+    private boolean alocadorEnabled = false;
+    private int alocadorThreads = 4;
+    private int alocadorBatchSize = 50;
+    private long alocadorTimeout = 10000;
+    private boolean atrasosEnabled = true;
+    private long atrasosVarredura = 3600000;
+
+    public boolean isAlocadorEnabled() {
+        return alocadorEnabled;
+    }
+
+    public void setAlocadorEnabled(boolean alocadorEnabled) {
+        this.alocadorEnabled = alocadorEnabled;
+    }
+
+    public int getAlocadorThreads() {
+        return alocadorThreads;
+    }
+
+    public void setAlocadorThreads(int alocadorThreads) {
+        this.alocadorThreads = alocadorThreads;
+    }
+
+    public int getAlocadorBatchSize() {
+        return alocadorBatchSize;
+    }
+
+    public void setAlocadorBatchSize(int alocadorBatchSize) {
+        this.alocadorBatchSize = alocadorBatchSize;
+    }
+
+    public long getAlocadorTimeout() {
+        return alocadorTimeout;
+    }
+
+    public void setAlocadorTimeout(long alocadorTimeout) {
+        this.alocadorTimeout = alocadorTimeout;
+    }
+
+    public boolean isAtrasosEnabled() {
+        return atrasosEnabled;
+    }
+
+    public void setAtrasosEnabled(boolean atrasosEnabled) {
+        this.atrasosEnabled = atrasosEnabled;
+    }
+
+    public long getAtrasosVarredura() {
+        return atrasosVarredura;
+    }
+
+    public void setAtrasosVarredura(long atrasosVarredura) {
+        this.atrasosVarredura = atrasosVarredura;
+    }
+}
@@ -0,0 +1,37 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "idempotencia")
+public class IdempotenciaConfig {
+
+    private long maxSize = 10000;
+    private long ttl = 86400000;
+    private long espera = 10000;
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getEspera() {
+        return espera;
+    }
+
+    public void setEspera(long espera) {
+        this.espera = espera;
+    }
+}
@@ -9,6 +9,10 @@ public class JwtConfig {
 
     private String secret;
     private long expiration;
+    private long cacheMaxSize = 10000;
+    private boolean stateless = true;
+    private long userCacheMaxSize = 1000;
+    private long userCacheTtl = 60000;
 
     public String getSecret() {
         return secret;
@@ -25,4 +29,36 @@ public class JwtConfig {
     public void setExpiration(long expiration) {
         this.expiration = expiration;
     }
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    public void setCacheMaxSize(long cacheMaxSize) {
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    public void setStateless(boolean stateless) {
+        this.stateless = stateless;
+    }
+
+    public long getUserCacheMaxSize() {
+        return userCacheMaxSize;
+    }
+
+    public void setUserCacheMaxSize(long userCacheMaxSize) {
+        this.userCacheMaxSize = userCacheMaxSize;
+    }
+
+    public long getUserCacheTtl() {
+        return userCacheTtl;
+    }
+
+    public void setUserCacheTtl(long userCacheTtl) {
+        this.userCacheTtl = userCacheTtl;
+    }
 }
@@ -3,12 +3,16 @@ package com.biblioteca.controller;
 import com.biblioteca.dto.LoginDTO;
 import com.biblioteca.dto.TokenDTO;
 import com.biblioteca.entity.Usuario;
+import com.biblioteca.exception.ServicoSobrecarregadoException;
 import com.biblioteca.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
@@ -17,24 +21,37 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private RespostasIdempotentes respostasIdempotentes;
+
     @PostMapping("/login")
     public ResponseEntity<TokenDTO> login(@Valid @RequestBody LoginDTO loginDTO) {
         try {
             TokenDTO token = authService.login(loginDTO);
             return ResponseEntity.ok(token);
+        } catch (ServicoSobrecarregadoException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @PostMapping("/registrar")
-    public ResponseEntity<Usuario> registrar(@Valid @RequestBody Usuario usuario) {
-        try {
-            Usuario novoUsuario = authService.registrar(usuario);
-            novoUsuario.setSenha(null); // Não retornar a senha
-            return ResponseEntity.ok(novoUsuario);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<Usuario> registrar(@Valid @RequestBody Usuario usuario,
+                                             @RequestHeader(value = RespostasIdempotentes.CABECALHO, required = false) String chave) {
+        // Só o que o cliente enviou (a entidade já nasce com a data de criação do servidor), menos a senha: o
+        // resumo fica em memória com a resposta e um SHA-256 sem sal de uma senha é fácil de reverter
+        List<String> corpo = Arrays.asList(usuario.getNome(), usuario.getEmail());
+        return respostasIdempotentes.executar("registrar", chave, corpo, () -> {
+            try {
+                Usuario novoUsuario = authService.registrar(usuario);
+                novoUsuario.setSenha(null); // Não retornar a senha
+                return ResponseEntity.ok(novoUsuario);
+            } catch (ServicoSobrecarregadoException e) {
+                throw e;
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
     }
 }
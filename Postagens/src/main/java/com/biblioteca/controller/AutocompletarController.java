@@ -0,0 +1,32 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.dto.SugestaoDTO;
+import com.biblioteca.service.AutocompletarService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/autocompletar")
+@CrossOrigin(origins = "*")
+public class AutocompletarController {
+
+    @Autowired
+    private AutocompletarService autocompletarService;
+
+    @GetMapping
+    public ResponseEntity<List<SugestaoDTO>> completar(@RequestParam String prefixo,
+                                                       @RequestParam(required = false) Integer limite) {
+        List<SugestaoDTO> sugestoes = autocompletarService.completar(prefixo, limite);
+        return ResponseEntity.ok(sugestoes);
+    }
+
+    @GetMapping("/aproximado")
+    public ResponseEntity<List<SugestaoDTO>> buscarAproximado(@RequestParam String q,
+                                                              @RequestParam(required = false) Integer limite) {
+        List<SugestaoDTO> sugestoes = autocompletarService.buscarAproximado(q, limite);
+        return ResponseEntity.ok(sugestoes);
+    }
+}
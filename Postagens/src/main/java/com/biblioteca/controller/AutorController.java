@@ -1,7 +1,10 @@
 package com.biblioteca.controller;
 
+import com.biblioteca.dto.AlteracoesDTO;
 import com.biblioteca.dto.AutorDTO;
+import com.biblioteca.dto.PaginaDTO;
 import com.biblioteca.service.AutorService;
+import com.biblioteca.service.RespostaSerializada;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -18,23 +21,34 @@ public class AutorController {
     @Autowired
     private AutorService autorService;
 
+    // Fora das ConsultasCoalescidas: a página serializada vem do cache, cuja carga é atômica por chave, então
+    // requisições idênticas e simultâneas já esperam uma única consulta
     @GetMapping
-    public ResponseEntity<List<AutorDTO>> listarTodos() {
-        List<AutorDTO> autores = autorService.listarTodos();
-        return ResponseEntity.ok(autores);
+    public ResponseEntity<byte[]> listarTodos(@RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limite) {
+        return RespostaCatalogo.ok(autorService.listarTodosSerializado(cursor, limite));
+    }
+
+    // Feed incremental: só o que mudou depois do cursor "desde", com marcação para removidos
+    @GetMapping("/alteracoes")
+    public ResponseEntity<AlteracoesDTO<AutorDTO>> listarAlteracoes(@RequestParam(required = false) String desde,
+                                                                    @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(autorService.listarAlteracoes(desde, limite));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<AutorDTO> buscarPorId(@PathVariable Long id) {
-        Optional<AutorDTO> autor = autorService.buscarPorId(id);
-        return autor.map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> buscarPorId(@PathVariable Long id) {
+        Optional<RespostaSerializada> autor = autorService.buscarSerializadoPorId(id);
+        return autor.map(RespostaCatalogo::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/buscar")
-    public ResponseEntity<List<AutorDTO>> buscarPorNome(@RequestParam String nome) {
-        List<AutorDTO> autores = autorService.buscarPorNome(nome);
-        return ResponseEntity.ok(autores);
+    public ResponseEntity<List<AutorDTO>> buscarPorNome(@RequestParam String nome,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limite) {
+        PaginaDTO<AutorDTO> autores = autorService.buscarPorNome(nome, cursor, limite);
+        return RespostaPaginada.ok(autores);
     }
 
     @PostMapping
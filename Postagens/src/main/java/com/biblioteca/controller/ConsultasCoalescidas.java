@@ -0,0 +1,114 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.config.CoalescenciaConfig;
+import com.biblioteca.exception.ServicoSobrecarregadoException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Requisições idênticas e simultâneas às listagens mais disputadas dividem uma única consulta: a primeira
+// executa e serializa o JSON uma vez, as demais esperam e recebem os mesmos bytes. A resposta continua
+// servindo por coalescencia.janela depois de pronta; com janela 0 só as requisições em andamento são unidas.
+// Quem espera mais que coalescencia.espera por uma consulta travada desiste dela e consulta por conta própria.
+@Component
+class ConsultasCoalescidas {
+
+    @Autowired
+    private CoalescenciaConfig coalescenciaConfig;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, CompletableFuture<ResponseEntity<byte[]>>> respostas = new ConcurrentHashMap<>();
+    private Counter executadas;
+    private Counter coalescidas;
+    private Counter desistencias;
+
+    @PostConstruct
+    public void init() {
+        executadas = Counter.builder("consultas.coalescencia").tag("resultado", "executada").register(meterRegistry);
+        coalescidas = Counter.builder("consultas.coalescencia").tag("resultado", "coalescida").register(meterRegistry);
+        desistencias = Counter.builder("consultas.coalescencia").tag("resultado", "desistencia").register(meterRegistry);
+    }
+
+    // A chave identifica a consulta: endpoint e todos os parâmetros que mudam o resultado
+    ResponseEntity<byte[]> executar(String chave, Supplier<? extends ResponseEntity<?>> consulta) {
+        CompletableFuture<ResponseEntity<byte[]>> emAndamento = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<byte[]>> existente = respostas.putIfAbsent(chave, emAndamento);
+        if (existente != null) {
+            coalescidas.increment();
+            return aguardar(existente, consulta);
+        }
+
+        executadas.increment();
+        try {
+            ResponseEntity<byte[]> resposta = serializar(consulta.get());
+            emAndamento.complete(resposta);
+            expirar(chave, emAndamento);
+            return resposta;
+        } catch (RuntimeException | Error e) {
+            respostas.remove(chave, emAndamento);
+            emAndamento.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private ResponseEntity<byte[]> serializar(ResponseEntity<?> resposta) {
+        byte[] corpo;
+        try {
+            corpo = objectMapper.writeValueAsBytes(resposta.getBody());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return ResponseEntity.status(resposta.getStatusCode())
+                .headers(resposta.getHeaders())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(corpo);
+    }
+
+    private void expirar(String chave, CompletableFuture<ResponseEntity<byte[]>> resposta) {
+        long janela = coalescenciaConfig.getJanela();
+        if (janela <= 0) {
+            respostas.remove(chave, resposta);
+        } else {
+            CompletableFuture.delayedExecutor(janela, TimeUnit.MILLISECONDS)
+                    .execute(() -> respostas.remove(chave, resposta));
+        }
+    }
+
+    private ResponseEntity<byte[]> aguardar(CompletableFuture<ResponseEntity<byte[]>> resposta,
+                                            Supplier<? extends ResponseEntity<?>> consulta) {
+        try {
+            return resposta.get(coalescenciaConfig.getEspera(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A resposta fica só para esta requisição: a consulta travada continua dona da chave
+            desistencias.increment();
+            return serializar(consulta.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicoSobrecarregadoException("Requisição interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package com.biblioteca.controller;
 
+import com.biblioteca.dto.AlteracoesDTO;
 import com.biblioteca.dto.EmprestimoDTO;
+import com.biblioteca.dto.ItemLoteDTO;
+import com.biblioteca.dto.PaginaDTO;
 import com.biblioteca.entity.StatusEmprestimo;
+import com.biblioteca.exception.ServicoSobrecarregadoException;
 import com.biblioteca.service.EmprestimoService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,10 +27,31 @@ public class EmprestimoController {
     @Autowired
     private EmprestimoService emprestimoService;
 
+    @Autowired
+    private RespostasIdempotentes respostasIdempotentes;
+
+    @Autowired
+    private ConsultasCoalescidas consultasCoalescidas;
+
     @GetMapping
-    public ResponseEntity<List<EmprestimoDTO>> listarTodos() {
-        List<EmprestimoDTO> emprestimos = emprestimoService.listarTodos();
-        return ResponseEntity.ok(emprestimos);
+    public ResponseEntity<List<EmprestimoDTO>> listarTodos(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer limite) {
+        PaginaDTO<EmprestimoDTO> emprestimos = emprestimoService.listarTodos(cursor, limite);
+        return RespostaPaginada.ok(emprestimos);
+    }
+
+    @GetMapping(value = "/exportar", produces = RespostaNdjson.MEDIA_TYPE)
+    public void exportar(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (OutputStream saida = RespostaNdjson.abrir(request, response)) {
+            emprestimoService.exportar(saida);
+        }
+    }
+
+    // Feed incremental: só o que mudou depois do cursor "desde", com marcação para removidos
+    @GetMapping("/alteracoes")
+    public ResponseEntity<AlteracoesDTO<EmprestimoDTO>> listarAlteracoes(@RequestParam(required = false) String desde,
+                                                                         @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(emprestimoService.listarAlteracoes(desde, limite));
     }
 
     @GetMapping("/{id}")
@@ -33,53 +62,82 @@ public class EmprestimoController {
     }
 
     @GetMapping("/usuario/{usuarioId}")
-    public ResponseEntity<List<EmprestimoDTO>> buscarPorUsuario(@PathVariable Long usuarioId) {
-        List<EmprestimoDTO> emprestimos = emprestimoService.buscarPorUsuario(usuarioId);
-        return ResponseEntity.ok(emprestimos);
+    public ResponseEntity<List<EmprestimoDTO>> buscarPorUsuario(@PathVariable Long usuarioId,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limite) {
+        PaginaDTO<EmprestimoDTO> emprestimos = emprestimoService.buscarPorUsuario(usuarioId, cursor, limite);
+        return RespostaPaginada.ok(emprestimos);
     }
 
     @GetMapping("/livro/{livroId}")
-    public ResponseEntity<List<EmprestimoDTO>> buscarPorLivro(@PathVariable Long livroId) {
-        List<EmprestimoDTO> emprestimos = emprestimoService.buscarPorLivro(livroId);
-        return ResponseEntity.ok(emprestimos);
+    public ResponseEntity<List<EmprestimoDTO>> buscarPorLivro(@PathVariable Long livroId,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limite) {
+        PaginaDTO<EmprestimoDTO> emprestimos = emprestimoService.buscarPorLivro(livroId, cursor, limite);
+        return RespostaPaginada.ok(emprestimos);
     }
 
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<EmprestimoDTO>> buscarPorStatus(@PathVariable StatusEmprestimo status) {
-        List<EmprestimoDTO> emprestimos = emprestimoService.buscarPorStatus(status);
-        return ResponseEntity.ok(emprestimos);
+    public ResponseEntity<List<EmprestimoDTO>> buscarPorStatus(@PathVariable StatusEmprestimo status,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer limite) {
+        PaginaDTO<EmprestimoDTO> emprestimos = emprestimoService.buscarPorStatus(status, cursor, limite);
+        return RespostaPaginada.ok(emprestimos);
     }
 
     @GetMapping("/usuario/{usuarioId}/ativos")
-    public ResponseEntity<List<EmprestimoDTO>> buscarAtivosPorUsuario(@PathVariable Long usuarioId) {
-        List<EmprestimoDTO> emprestimos = emprestimoService.buscarAtivosPorUsuario(usuarioId);
-        return ResponseEntity.ok(emprestimos);
+    public ResponseEntity<List<EmprestimoDTO>> buscarAtivosPorUsuario(@PathVariable Long usuarioId,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(required = false) Integer limite) {
+        PaginaDTO<EmprestimoDTO> emprestimos = emprestimoService.buscarAtivosPorUsuario(usuarioId, cursor, limite);
+        return RespostaPaginada.ok(emprestimos);
     }
 
     @GetMapping("/atrasados")
-    public ResponseEntity<List<EmprestimoDTO>> buscarAtrasados() {
-        List<EmprestimoDTO> emprestimos = emprestimoService.buscarAtrasados();
-        return ResponseEntity.ok(emprestimos);
+    public ResponseEntity<byte[]> buscarAtrasados(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limite) {
+        return consultasCoalescidas.executar("emprestimos/atrasados " + cursor + " " + limite,
+                () -> RespostaPaginada.ok(emprestimoService.buscarAtrasados(cursor, limite)));
     }
 
     @PostMapping("/emprestar")
-    public ResponseEntity<EmprestimoDTO> emprestar(@Valid @RequestBody EmprestimoDTO emprestimoDTO) {
-        try {
-            EmprestimoDTO novoEmprestimo = emprestimoService.emprestar(emprestimoDTO);
-            return ResponseEntity.ok(novoEmprestimo);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<EmprestimoDTO> emprestar(@Valid @RequestBody EmprestimoDTO emprestimoDTO,
+                                                   @RequestHeader(value = RespostasIdempotentes.CABECALHO, required = false) String chave) {
+        return respostasIdempotentes.executar("emprestar", chave, emprestimoDTO, () -> {
+            try {
+                EmprestimoDTO novoEmprestimo = emprestimoService.emprestar(emprestimoDTO);
+                return ResponseEntity.ok(novoEmprestimo);
+            } catch (ServicoSobrecarregadoException e) {
+                throw e;
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
     }
 
     @PostMapping("/{id}/devolver")
-    public ResponseEntity<EmprestimoDTO> devolver(@PathVariable Long id) {
-        try {
-            EmprestimoDTO emprestimoDevolvido = emprestimoService.devolver(id);
-            return ResponseEntity.ok(emprestimoDevolvido);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().build();
-        }
+    public ResponseEntity<EmprestimoDTO> devolver(@PathVariable Long id,
+                                                  @RequestHeader(value = RespostasIdempotentes.CABECALHO, required = false) String chave) {
+        return respostasIdempotentes.executar("devolver/" + id, chave, null, () -> {
+            try {
+                EmprestimoDTO emprestimoDevolvido = emprestimoService.devolver(id);
+                return ResponseEntity.ok(emprestimoDevolvido);
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().build();
+            }
+        });
+    }
+
+    @PostMapping("/lote")
+    public ResponseEntity<List<ItemLoteDTO>> emprestarLote(@RequestBody List<EmprestimoDTO> itens) {
+        List<ItemLoteDTO> resultados = emprestimoService.emprestarLote(itens);
+        return ResponseEntity.ok(resultados);
+    }
+
+    @PostMapping("/devolucoes/lote")
+    public ResponseEntity<List<ItemLoteDTO>> devolverLote(@RequestBody List<Long> emprestimoIds) {
+        List<ItemLoteDTO> resultados = emprestimoService.devolverLote(emprestimoIds);
+        return ResponseEntity.ok(resultados);
     }
 
     @DeleteMapping("/{id}")
@@ -99,4 +157,10 @@ public class EmprestimoController {
         Long quantidade = emprestimoService.contarEmprestimosAtivosPorLivro(livroId);
         return ResponseEntity.ok(quantidade);
     }
+
+    @GetMapping("/atrasados/contar")
+    public ResponseEntity<Long> contarEmprestimosAtrasados() {
+        Long quantidade = emprestimoService.contarEmprestimosAtrasados();
+        return ResponseEntity.ok(quantidade);
+    }
 }
@@ -1,12 +1,23 @@
 package com.biblioteca.controller;
 
+import com.biblioteca.dto.AlteracoesDTO;
+import com.biblioteca.dto.FiltroLivrosDTO;
 import com.biblioteca.dto.LivroDTO;
+import com.biblioteca.dto.PaginaDTO;
 import com.biblioteca.service.LivroService;
+import com.biblioteca.service.NotificadorDisponibilidade;
+import com.biblioteca.service.RespostaSerializada;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,16 +29,43 @@ public class LivroController {
     @Autowired
     private LivroService livroService;
 
+    @Autowired
+    private ConsultasCoalescidas consultasCoalescidas;
+
+    @Autowired
+    private NotificadorDisponibilidade notificadorDisponibilidade;
+
     @GetMapping
-    public ResponseEntity<List<LivroDTO>> listarTodos() {
-        List<LivroDTO> livros = livroService.listarTodos();
-        return ResponseEntity.ok(livros);
+    public ResponseEntity<List<LivroDTO>> listarTodos(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(required = false) Integer limite) {
+        PaginaDTO<LivroDTO> livros = livroService.listarTodos(cursor, limite);
+        return RespostaPaginada.ok(livros);
+    }
+
+    @GetMapping(value = "/exportar", produces = RespostaNdjson.MEDIA_TYPE)
+    public void exportar(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (OutputStream saida = RespostaNdjson.abrir(request, response)) {
+            livroService.exportar(saida);
+        }
+    }
+
+    // Feed incremental: só o que mudou depois do cursor "desde", com marcação para removidos
+    @GetMapping("/alteracoes")
+    public ResponseEntity<AlteracoesDTO<LivroDTO>> listarAlteracoes(@RequestParam(required = false) String desde,
+                                                                    @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(livroService.listarAlteracoes(desde, limite));
+    }
+
+    // Server-Sent Events com a quantidade disponível dos livros informados: o estado atual e cada mudança
+    @GetMapping(value = "/disponibilidade/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter assinarDisponibilidade(@RequestParam List<Long> livroIds) {
+        return notificadorDisponibilidade.assinar(livroIds);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<LivroDTO> buscarPorId(@PathVariable Long id) {
-        Optional<LivroDTO> livro = livroService.buscarPorId(id);
-        return livro.map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> buscarPorId(@PathVariable Long id) {
+        Optional<RespostaSerializada> livro = livroService.buscarSerializadoPorId(id);
+        return livro.map(RespostaCatalogo::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -38,28 +76,69 @@ public class LivroController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    @GetMapping("/buscar")
-    public ResponseEntity<List<LivroDTO>> buscarPorTitulo(@RequestParam String titulo) {
-        List<LivroDTO> livros = livroService.buscarPorTitulo(titulo);
+    @GetMapping("/pesquisa")
+    public ResponseEntity<List<LivroDTO>> pesquisar(@RequestParam String q,
+                                                    @RequestParam(required = false) Boolean disponivel,
+                                                    @RequestParam(required = false) Integer limite) {
+        List<LivroDTO> livros = livroService.pesquisar(q, disponivel, limite);
         return ResponseEntity.ok(livros);
     }
 
+    @GetMapping("/filtro")
+    public ResponseEntity<FiltroLivrosDTO> filtrar(@RequestParam(required = false) Long autorId,
+                                                   @RequestParam(required = false) Integer anoDe,
+                                                   @RequestParam(required = false) Integer anoAte,
+                                                   @RequestParam(required = false) Boolean disponivel,
+                                                   @RequestParam(required = false) String q,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limite) {
+        FiltroLivrosDTO filtro = livroService.filtrar(autorId, anoDe, anoAte, disponivel, q, cursor, limite);
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+        if (filtro.getProximoCursor() != null) {
+            resposta.header(RespostaPaginada.CABECALHO_PROXIMO_CURSOR, filtro.getProximoCursor());
+        }
+        return resposta.body(filtro);
+    }
+
+    @GetMapping("/buscar")
+    public ResponseEntity<List<LivroDTO>> buscarPorTitulo(@RequestParam String titulo,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limite) {
+        PaginaDTO<LivroDTO> livros = livroService.buscarPorTitulo(titulo, cursor, limite);
+        return RespostaPaginada.ok(livros);
+    }
+
     @GetMapping("/autor/{autorId}")
-    public ResponseEntity<List<LivroDTO>> buscarPorAutor(@PathVariable Long autorId) {
-        List<LivroDTO> livros = livroService.buscarPorAutor(autorId);
-        return ResponseEntity.ok(livros);
+    public ResponseEntity<List<LivroDTO>> buscarPorAutor(@PathVariable Long autorId,
+                                                         @RequestParam(required = false) Boolean disponivel,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limite) {
+        PaginaDTO<LivroDTO> livros = livroService.buscarPorAutor(autorId, disponivel, cursor, limite);
+        return RespostaPaginada.ok(livros);
     }
 
     @GetMapping("/disponiveis")
-    public ResponseEntity<List<LivroDTO>> buscarDisponiveis() {
-        List<LivroDTO> livros = livroService.buscarDisponiveis();
-        return ResponseEntity.ok(livros);
+    public ResponseEntity<byte[]> buscarDisponiveis(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer limite) {
+        return consultasCoalescidas.executar("livros/disponiveis " + cursor + " " + limite,
+                () -> RespostaPaginada.ok(livroService.buscarDisponiveis(cursor, limite)));
+    }
+
+    @GetMapping("/disponiveis/total")
+    public ResponseEntity<Long> contarDisponiveis(@RequestParam(required = false) Long autorId) {
+        return ResponseEntity.ok(livroService.contarPorDisponibilidade(true, autorId));
+    }
+
+    @GetMapping("/indisponiveis/total")
+    public ResponseEntity<Long> contarIndisponiveis(@RequestParam(required = false) Long autorId) {
+        return ResponseEntity.ok(livroService.contarPorDisponibilidade(false, autorId));
     }
 
     @GetMapping("/indisponiveis")
-    public ResponseEntity<List<LivroDTO>> buscarIndisponiveis() {
-        List<LivroDTO> livros = livroService.buscarIndisponiveis();
-        return ResponseEntity.ok(livros);
+    public ResponseEntity<List<LivroDTO>> buscarIndisponiveis(@RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limite) {
+        PaginaDTO<LivroDTO> livros = livroService.buscarIndisponiveis(cursor, limite);
+        return RespostaPaginada.ok(livros);
     }
 
     @PostMapping
@@ -0,0 +1,21 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.service.RespostaSerializada;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+final class RespostaCatalogo {
+
+    private RespostaCatalogo() {}
+
+    // Com o ETag na resposta, o Spring compara o If-None-Match e devolve 304 sem corpo quando coincide
+    static ResponseEntity<byte[]> ok(RespostaSerializada resposta) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(resposta.etag())
+                .contentType(MediaType.APPLICATION_JSON);
+        if (resposta.proximoCursor() != null) {
+            builder.header(RespostaPaginada.CABECALHO_PROXIMO_CURSOR, resposta.proximoCursor());
+        }
+        return builder.body(resposta.corpo());
+    }
+}
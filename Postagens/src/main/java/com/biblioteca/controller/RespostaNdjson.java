@@ -0,0 +1,30 @@
+package com.biblioteca.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+final class RespostaNdjson {
+
+    static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private RespostaNdjson() {}
+
+    // Prepara a resposta para NDJSON, comprimindo com gzip quando o cliente aceita
+    static OutputStream abrir(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        String aceita = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (aceita != null && aceita.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new GZIPOutputStream(response.getOutputStream(), 8192);
+        }
+        return response.getOutputStream();
+    }
+}
@@ -0,0 +1,22 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.dto.PaginaDTO;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+final class RespostaPaginada {
+
+    static final String CABECALHO_PROXIMO_CURSOR = "X-Next-Cursor";
+
+    private RespostaPaginada() {}
+
+    // O corpo continua sendo a lista; o cursor da próxima página vai no cabeçalho
+    static <T> ResponseEntity<List<T>> ok(PaginaDTO<T> pagina) {
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+        if (pagina.temProximaPagina()) {
+            resposta.header(CABECALHO_PROXIMO_CURSOR, pagina.getProximoCursor());
+        }
+        return resposta.body(pagina.getItens());
+    }
+}
@@ -0,0 +1,143 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.config.IdempotenciaConfig;
+import com.biblioteca.exception.ChaveIdempotenciaReutilizadaException;
+import com.biblioteca.exception.ServicoSobrecarregadoException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Primeira resposta de cada Idempotency-Key, repetida para as novas tentativas do cliente. A entrada é
+// registrada antes da execução: uma duplicata concorrente espera o resultado em andamento em vez de executar
+// a transação de novo. Respostas de erro (400) também são repetidas; só uma exceção, como o 503 de
+// sobrecarga, libera a chave para uma nova tentativa. A chave vale só para quem a enviou (o usuário
+// autenticado ou, nos endpoints anônimos, o IP do cliente), e a mesma chave com outro corpo é recusada com 422.
+@Component
+class RespostasIdempotentes {
+
+    static final String CABECALHO = "Idempotency-Key";
+    static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    @Autowired
+    private IdempotenciaConfig idempotenciaConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Cache<String, Registro> respostas;
+
+    private record Registro(String resumoCorpo, CompletableFuture<ResponseEntity<?>> resposta) {}
+
+    @PostConstruct
+    public void init() {
+        respostas = Caffeine.newBuilder()
+                .maximumSize(idempotenciaConfig.getMaxSize())
+                .expireAfterWrite(Duration.ofMillis(idempotenciaConfig.getTtl()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, respostas, "idempotencia.respostas");
+    }
+
+    // A operação entra na chave para que a mesma Idempotency-Key em outro endpoint ou recurso não colida
+    <T> ResponseEntity<T> executar(String operacao, String chave, Object corpo, Supplier<ResponseEntity<T>> acao) {
+        if (chave == null || chave.isBlank()) {
+            return acao.get();
+        }
+        if (chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new RuntimeException(CABECALHO + " deve ter no máximo " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+
+        String id = escopo() + ' ' + operacao + ' ' + chave;
+        Registro emAndamento = new Registro(resumir(corpo), new CompletableFuture<>());
+        Registro registrado = respostas.asMap().putIfAbsent(id, emAndamento);
+        if (registrado != null) {
+            if (!registrado.resumoCorpo().equals(emAndamento.resumoCorpo())) {
+                throw new ChaveIdempotenciaReutilizadaException(
+                        CABECALHO + " já usada em uma requisição com outro corpo");
+            }
+            return repetir(registrado.resposta());
+        }
+
+        try {
+            ResponseEntity<T> resposta = acao.get();
+            emAndamento.resposta().complete(resposta);
+            return resposta;
+        } catch (RuntimeException | Error e) {
+            respostas.asMap().remove(id, emAndamento);
+            emAndamento.resposta().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Atrás de um proxy, o IP real só chega aqui com server.forward-headers-strategy configurado
+    private static String escopo() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacao != null && autenticacao.isAuthenticated() && !(autenticacao instanceof AnonymousAuthenticationToken)) {
+            return "usuario:" + autenticacao.getName();
+        }
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos) {
+            return "ip:" + atributos.getRequest().getRemoteAddr();
+        }
+        return "anonimo";
+    }
+
+    private String resumir(Object corpo) {
+        try {
+            byte[] resumo = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(corpo));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(resumo);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> repetir(CompletableFuture<ResponseEntity<?>> registrada) {
+        ResponseEntity<?> resposta;
+        try {
+            resposta = registrada.get(idempotenciaConfig.getEspera(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServicoSobrecarregadoException("Requisição com a mesma " + CABECALHO + " ainda em andamento", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicoSobrecarregadoException("Requisição interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return (ResponseEntity<T>) ResponseEntity.status(resposta.getStatusCode())
+                .headers(cabecalhos -> {
+                    cabecalhos.addAll(resposta.getHeaders());
+                    cabecalhos.set(CABECALHO_REPETIDA, "true");
+                })
+                .body(resposta.getBody());
+    }
+}
@@ -0,0 +1,42 @@
+package com.biblioteca.dto;
+
+public class AlteracaoDTO<T> {
+
+    private Long id;
+    private boolean removido;
+    private T dados;
+
+    // Construtores
+    public AlteracaoDTO() {}
+
+    public AlteracaoDTO(Long id, boolean removido, T dados) {
+        this.id = id;
+        this.removido = removido;
+        this.dados = dados;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public boolean isRemovido() {
+        return removido;
+    }
+
+    public void setRemovido(boolean removido) {
+        this.removido = removido;
+    }
+
+    public T getDados() {
+        return dados;
+    }
+
+    public void setDados(T dados) {
+        this.dados = dados;
+    }
+}
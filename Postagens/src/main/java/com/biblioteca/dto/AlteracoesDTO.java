@@ -0,0 +1,44 @@
+package com.biblioteca.dto;
+
+import java.util.List;
+
+public class AlteracoesDTO<T> {
+
+    private List<AlteracaoDTO<T>> alteracoes;
+    private String cursor;
+    private boolean maisAlteracoes;
+
+    // Construtores
+    public AlteracoesDTO() {}
+
+    public AlteracoesDTO(List<AlteracaoDTO<T>> alteracoes, String cursor, boolean maisAlteracoes) {
+        this.alteracoes = alteracoes;
+        this.cursor = cursor;
+        this.maisAlteracoes = maisAlteracoes;
+    }
+
+    // Getters e Setters
+    public List<AlteracaoDTO<T>> getAlteracoes() {
+        return alteracoes;
+    }
+
+    public void setAlteracoes(List<AlteracaoDTO<T>> alteracoes) {
+        this.alteracoes = alteracoes;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isMaisAlteracoes() {
+        return maisAlteracoes;
+    }
+
+    public void setMaisAlteracoes(boolean maisAlteracoes) {
+        this.maisAlteracoes = maisAlteracoes;
+    }
+}
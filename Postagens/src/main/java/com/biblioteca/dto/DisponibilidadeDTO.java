@@ -0,0 +1,32 @@
+package com.biblioteca.dto;
+
+public class DisponibilidadeDTO {
+
+    private Long livroId;
+    private Integer quantidadeDisponivel;
+
+    // Construtores
+    public DisponibilidadeDTO() {}
+
+    public DisponibilidadeDTO(Long livroId, Integer quantidadeDisponivel) {
+        this.livroId = livroId;
+        this.quantidadeDisponivel = quantidadeDisponivel;
+    }
+
+    // Getters e Setters
+    public Long getLivroId() {
+        return livroId;
+    }
+
+    public void setLivroId(Long livroId) {
+        this.livroId = livroId;
+    }
+
+    public Integer getQuantidadeDisponivel() {
+        return quantidadeDisponivel;
+    }
+
+    public void setQuantidadeDisponivel(Integer quantidadeDisponivel) {
+        this.quantidadeDisponivel = quantidadeDisponivel;
+    }
+}
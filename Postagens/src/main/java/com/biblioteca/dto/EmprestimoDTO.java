@@ -32,6 +32,23 @@ public class EmprestimoDTO {
         this.usuarioId = usuarioId;
     }
 
+    public EmprestimoDTO(Long id, Long livroId, Long usuarioId, String livroTitulo, String usuarioNome,
+                         LocalDateTime dataEmprestimo, LocalDateTime dataDevolucaoPrevista,
+                         LocalDateTime dataDevolucaoEfetiva, StatusEmprestimo status,
+                         LocalDateTime dataCriacao, LocalDateTime dataAtualizacao) {
+        this.id = id;
+        this.livroId = livroId;
+        this.usuarioId = usuarioId;
+        this.livroTitulo = livroTitulo;
+        this.usuarioNome = usuarioNome;
+        this.dataEmprestimo = dataEmprestimo;
+        this.dataDevolucaoPrevista = dataDevolucaoPrevista;
+        this.dataDevolucaoEfetiva = dataDevolucaoEfetiva;
+        this.status = status;
+        this.dataCriacao = dataCriacao;
+        this.dataAtualizacao = dataAtualizacao;
+    }
+
     // Getters e Setters
     public Long getId() {
         return id;
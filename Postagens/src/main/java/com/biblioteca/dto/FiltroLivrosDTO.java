@@ -0,0 +1,86 @@
+package com.biblioteca.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class FiltroLivrosDTO {
+
+    private long total;
+    private List<LivroDTO> livros;
+    private String proximoCursor;
+    private Map<Long, Long> porAutor;
+    private Map<Integer, Long> porDecada;
+    private long disponiveis;
+    private long indisponiveis;
+
+    // Construtores
+    public FiltroLivrosDTO() {}
+
+    public FiltroLivrosDTO(long total, List<LivroDTO> livros, String proximoCursor, Map<Long, Long> porAutor,
+                           Map<Integer, Long> porDecada, long disponiveis, long indisponiveis) {
+        this.total = total;
+        this.livros = livros;
+        this.proximoCursor = proximoCursor;
+        this.porAutor = porAutor;
+        this.porDecada = porDecada;
+        this.disponiveis = disponiveis;
+        this.indisponiveis = indisponiveis;
+    }
+
+    // Getters e Setters
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public List<LivroDTO> getLivros() {
+        return livros;
+    }
+
+    public void setLivros(List<LivroDTO> livros) {
+        this.livros = livros;
+    }
+
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+
+    public void setProximoCursor(String proximoCursor) {
+        this.proximoCursor = proximoCursor;
+    }
+
+    public Map<Long, Long> getPorAutor() {
+        return porAutor;
+    }
+
+    public void setPorAutor(Map<Long, Long> porAutor) {
+        this.porAutor = porAutor;
+    }
+
+    public Map<Integer, Long> getPorDecada() {
+        return porDecada;
+    }
+
+    public void setPorDecada(Map<Integer, Long> porDecada) {
+        this.porDecada = porDecada;
+    }
+
+    public long getDisponiveis() {
+        return disponiveis;
+    }
+
+    public void setDisponiveis(long disponiveis) {
+        this.disponiveis = disponiveis;
+    }
+
+    public long getIndisponiveis() {
+        return indisponiveis;
+    }
+
+    public void setIndisponiveis(long indisponiveis) {
+        this.indisponiveis = indisponiveis;
+    }
+}
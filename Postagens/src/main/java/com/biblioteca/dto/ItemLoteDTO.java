@@ -0,0 +1,61 @@
+package com.biblioteca.dto;
+
+public class ItemLoteDTO {
+
+    private int indice;
+    private boolean sucesso;
+    private EmprestimoDTO emprestimo;
+    private String erro;
+
+    // Construtores
+    public ItemLoteDTO() {}
+
+    public static ItemLoteDTO sucesso(int indice, EmprestimoDTO emprestimo) {
+        ItemLoteDTO item = new ItemLoteDTO();
+        item.indice = indice;
+        item.sucesso = true;
+        item.emprestimo = emprestimo;
+        return item;
+    }
+
+    public static ItemLoteDTO falha(int indice, String erro) {
+        ItemLoteDTO item = new ItemLoteDTO();
+        item.indice = indice;
+        item.sucesso = false;
+        item.erro = erro;
+        return item;
+    }
+
+    // Getters e Setters
+    public int getIndice() {
+        return indice;
+    }
+
+    public void setIndice(int indice) {
+        this.indice = indice;
+    }
+
+    public boolean isSucesso() {
+        return sucesso;
+    }
+
+    public void setSucesso(boolean sucesso) {
+        this.sucesso = sucesso;
+    }
+
+    public EmprestimoDTO getEmprestimo() {
+        return emprestimo;
+    }
+
+    public void setEmprestimo(EmprestimoDTO emprestimo) {
+        this.emprestimo = emprestimo;
+    }
+
+    public String getErro() {
+        return erro;
+    }
+
+    public void setErro(String erro) {
+        this.erro = erro;
+    }
+}
@@ -0,0 +1,38 @@
+package com.biblioteca.dto;
+
+import java.util.List;
+
+public class PaginaDTO<T> {
+
+    private List<T> itens;
+    private String proximoCursor;
+
+    // Construtores
+    public PaginaDTO() {}
+
+    public PaginaDTO(List<T> itens, String proximoCursor) {
+        this.itens = itens;
+        this.proximoCursor = proximoCursor;
+    }
+
+    // Getters e Setters
+    public List<T> getItens() {
+        return itens;
+    }
+
+    public void setItens(List<T> itens) {
+        this.itens = itens;
+    }
+
+    public String getProximoCursor() {
+        return proximoCursor;
+    }
+
+    public void setProximoCursor(String proximoCursor) {
+        this.proximoCursor = proximoCursor;
+    }
+
+    public boolean temProximaPagina() {
+        return proximoCursor != null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.biblioteca.dto;
+
+public class SugestaoDTO {
+
+    private String tipo;
+    private Long id;
+    private String texto;
+    private long popularidade;
+
+    // Construtores
+    public SugestaoDTO() {}
+
+    public SugestaoDTO(String tipo, Long id, String texto, long popularidade) {
+        this.tipo = tipo;
+        this.id = id;
+        this.texto = texto;
+        this.popularidade = popularidade;
+    }
+
+    // Getters e Setters
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public void setTexto(String texto) {
+        this.texto = texto;
+    }
+
+    public long getPopularidade() {
+        return popularidade;
+    }
+
+    public void setPopularidade(long popularidade) {
+        this.popularidade = popularidade;
+    }
+}
@@ -1,5 +1,6 @@
 package com.biblioteca.entity;
 
+import com.biblioteca.service.OuvinteAlteracoes;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -9,11 +10,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(OuvinteAlteracoes.class)
 @Table(name = "autores")
 public class Autor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "autores_seq")
+    @SequenceGenerator(name = "autores_seq", sequenceName = "autores_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Nome é obrigatório")
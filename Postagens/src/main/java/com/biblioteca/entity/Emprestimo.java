@@ -1,16 +1,19 @@
 package com.biblioteca.entity;
 
+import com.biblioteca.service.OuvinteAlteracoes;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(OuvinteAlteracoes.class)
 @Table(name = "emprestimos")
 public class Emprestimo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "emprestimos_seq")
+    @SequenceGenerator(name = "emprestimos_seq", sequenceName = "emprestimos_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -129,9 +132,9 @@ public class Emprestimo {
     }
 
     // Métodos de negócio
+    // O status é mantido pelo MotorAtrasos no vencimento da devolução prevista
     public boolean isAtrasado() {
-        return status == StatusEmprestimo.ATIVO && 
-               LocalDateTime.now().isAfter(dataDevolucaoPrevista);
+        return status == StatusEmprestimo.ATRASADO;
     }
 
     public void devolver() {
@@ -140,8 +143,9 @@ public class Emprestimo {
         this.dataAtualizacao = LocalDateTime.now();
     }
 
+    // Atrasado continua em aberto até a devolução
     public boolean isAtivo() {
-        return status == StatusEmprestimo.ATIVO;
+        return status == StatusEmprestimo.ATIVO || status == StatusEmprestimo.ATRASADO;
     }
 
     // Métodos de callback JPA
@@ -1,5 +1,6 @@
 package com.biblioteca.entity;
 
+import com.biblioteca.service.OuvinteAlteracoes;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -11,11 +12,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(OuvinteAlteracoes.class)
 @Table(name = "livros")
 public class Livro {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "livros_seq")
+    @SequenceGenerator(name = "livros_seq", sequenceName = "livros_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Título é obrigatório")
@@ -0,0 +1,8 @@
+package com.biblioteca.exception;
+
+public class ChaveIdempotenciaReutilizadaException extends RuntimeException {
+
+    public ChaveIdempotenciaReutilizadaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.biblioteca.exception;
+
+public class ServicoSobrecarregadoException extends RuntimeException {
+
+    public ServicoSobrecarregadoException(String message) {
+        super(message);
+    }
+
+    public ServicoSobrecarregadoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,6 +1,7 @@
 package com.biblioteca.repository;
 
 import com.biblioteca.entity.Autor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -19,6 +20,13 @@ public interface AutorRepository extends JpaRepository<Autor, Long> {
     @Query("SELECT a FROM Autor a WHERE a.nome LIKE %:nome% OR a.biografia LIKE %:biografia%")
     List<Autor> findByNomeOrBiografiaContaining(@Param("nome") String nome, @Param("biografia") String biografia);
 
+    // Consultas paginadas por keyset (id > cursor), sempre ordenadas por id
+    @Query("SELECT a FROM Autor a WHERE a.id > :aposId ORDER BY a.id")
+    List<Autor> findPagina(@Param("aposId") Long aposId, Pageable pageable);
+
+    @Query("SELECT a FROM Autor a WHERE LOWER(a.nome) LIKE LOWER(CONCAT('%', :nome, '%')) AND a.id > :aposId ORDER BY a.id")
+    List<Autor> findPaginaByNome(@Param("nome") String nome, @Param("aposId") Long aposId, Pageable pageable);
+
     boolean existsByNome(String nome);
 
     @Query("SELECT COUNT(l) FROM Autor a JOIN a.livros l WHERE a.id = :autorId")
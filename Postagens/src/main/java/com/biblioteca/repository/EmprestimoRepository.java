@@ -1,14 +1,27 @@
 package com.biblioteca.repository;
 
+import com.biblioteca.dto.EmprestimoDTO;
 import com.biblioteca.entity.Emprestimo;
 import com.biblioteca.entity.StatusEmprestimo;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface EmprestimoRepository extends JpaRepository<Emprestimo, Long> {
@@ -23,18 +36,96 @@ public interface EmprestimoRepository extends JpaRepository<Emprestimo, Long> {
 
     List<Emprestimo> findByLivroIdAndStatus(Long livroId, StatusEmprestimo status);
 
-    @Query("SELECT e FROM Emprestimo e WHERE e.status = 'ATIVO' AND e.dataDevolucaoPrevista < :dataAtual")
-    List<Emprestimo> findEmprestimosAtrasados(@Param("dataAtual") LocalDateTime dataAtual);
+    // O status ATRASADO é mantido pelo MotorAtrasos; ativos são os ainda não devolvidos, atrasados ou não
+    String EM_ABERTO = "e.status IN ('ATIVO', 'ATRASADO')";
+
+    @Query("SELECT e FROM Emprestimo e WHERE e.status = 'ATRASADO'")
+    List<Emprestimo> findEmprestimosAtrasados();
 
-    @Query("SELECT e FROM Emprestimo e WHERE e.usuario.id = :usuarioId AND e.status = 'ATIVO'")
+    @Query("SELECT e FROM Emprestimo e WHERE e.usuario.id = :usuarioId AND " + EM_ABERTO)
     List<Emprestimo> findEmprestimosAtivosByUsuario(@Param("usuarioId") Long usuarioId);
 
-    @Query("SELECT e FROM Emprestimo e WHERE e.livro.id = :livroId AND e.status = 'ATIVO'")
+    @Query("SELECT e FROM Emprestimo e WHERE e.livro.id = :livroId AND " + EM_ABERTO)
     List<Emprestimo> findEmprestimosAtivosByLivro(@Param("livroId") Long livroId);
 
-    @Query("SELECT COUNT(e) FROM Emprestimo e WHERE e.usuario.id = :usuarioId AND e.status = 'ATIVO'")
+    // Projeção direta no DTO: título e nome vêm no mesmo SELECT, sem carregar Livro e Usuario um a um
+    String PROJECAO_DTO = "SELECT new com.biblioteca.dto.EmprestimoDTO(e.id, l.id, u.id, l.titulo, u.nome, " +
+            "e.dataEmprestimo, e.dataDevolucaoPrevista, e.dataDevolucaoEfetiva, e.status, e.dataCriacao, e.dataAtualizacao) " +
+            "FROM Emprestimo e JOIN e.livro l JOIN e.usuario u ";
+
+    @Query(PROJECAO_DTO + "WHERE e.id = :id")
+    Optional<EmprestimoDTO> findDTOById(@Param("id") Long id);
+
+    @Query(PROJECAO_DTO + "WHERE e.id IN :ids")
+    List<EmprestimoDTO> findDTOByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Consultas paginadas por keyset (id > cursor), sempre ordenadas por id
+    @Query(PROJECAO_DTO + "WHERE e.id > :aposId ORDER BY e.id")
+    List<EmprestimoDTO> findPagina(@Param("aposId") Long aposId, Pageable pageable);
+
+    @Query(PROJECAO_DTO + "WHERE u.id = :usuarioId AND e.id > :aposId ORDER BY e.id")
+    List<EmprestimoDTO> findPaginaByUsuarioId(@Param("usuarioId") Long usuarioId, @Param("aposId") Long aposId, Pageable pageable);
+
+    @Query(PROJECAO_DTO + "WHERE l.id = :livroId AND e.id > :aposId ORDER BY e.id")
+    List<EmprestimoDTO> findPaginaByLivroId(@Param("livroId") Long livroId, @Param("aposId") Long aposId, Pageable pageable);
+
+    @Query(PROJECAO_DTO + "WHERE e.status = :status AND e.id > :aposId ORDER BY e.id")
+    List<EmprestimoDTO> findPaginaByStatus(@Param("status") StatusEmprestimo status, @Param("aposId") Long aposId, Pageable pageable);
+
+    @Query(PROJECAO_DTO + "WHERE u.id = :usuarioId AND " + EM_ABERTO + " AND e.id > :aposId ORDER BY e.id")
+    List<EmprestimoDTO> findPaginaAtivosByUsuario(@Param("usuarioId") Long usuarioId, @Param("aposId") Long aposId, Pageable pageable);
+
+    @Query(PROJECAO_DTO + "WHERE e.status = 'ATRASADO' AND e.id > :aposId ORDER BY e.id")
+    List<EmprestimoDTO> findPaginaAtrasados(@Param("aposId") Long aposId, Pageable pageable);
+
+    @Query("SELECT COUNT(e) FROM Emprestimo e WHERE e.status = 'ATRASADO'")
+    Long countEmprestimosAtrasados();
+
+    @Query("SELECT COUNT(e) FROM Emprestimo e WHERE e.usuario.id = :usuarioId AND " + EM_ABERTO)
     Long countEmprestimosAtivosByUsuario(@Param("usuarioId") Long usuarioId);
 
-    @Query("SELECT COUNT(e) FROM Emprestimo e WHERE e.livro.id = :livroId AND e.status = 'ATIVO'")
+    @Query("SELECT COUNT(e) FROM Emprestimo e WHERE e.livro.id = :livroId AND " + EM_ABERTO)
     Long countEmprestimosAtivosByLivro(@Param("livroId") Long livroId);
+
+    // Leitura em streaming para exportação: cursor do JDBC com fetch size, sem materializar a tabela
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM Emprestimo e JOIN FETCH e.livro JOIN FETCH e.usuario ORDER BY e.id")
+    Stream<Emprestimo> streamTodos();
+
+    @Query("SELECT e.livro.id, COUNT(e) FROM Emprestimo e GROUP BY e.livro.id")
+    List<Object[]> countEmprestimosPorLivro();
+
+    // Vencimentos dos empréstimos ainda em dia, para a fila do MotorAtrasos
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e.id, e.dataDevolucaoPrevista FROM Emprestimo e WHERE e.status = 'ATIVO'")
+    Stream<Object[]> streamVencimentosAtivos();
+
+    @Query("SELECT e.usuario.id, COUNT(e) FROM Emprestimo e WHERE e.usuario.id IN :usuarioIds AND " + EM_ABERTO + " GROUP BY e.usuario.id")
+    List<Object[]> countEmprestimosAtivosByUsuarios(@Param("usuarioIds") Collection<Long> usuarioIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM Emprestimo e JOIN FETCH e.usuario WHERE e.id IN :ids ORDER BY e.id")
+    List<Emprestimo> findAllByIdParaAtualizacao(@Param("ids") Collection<Long> ids);
+
+    // Encerra o empréstimo apenas se ainda estiver em aberto; retorna 0 quando já foi devolvido.
+    // O contexto é limpo para que a releitura do empréstimo traga o status gravado
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Emprestimo e SET e.status = 'DEVOLVIDO', e.dataDevolucaoEfetiva = :agora, e.dataAtualizacao = :agora " +
+           "WHERE e.id = :emprestimoId AND " + EM_ABERTO)
+    int marcarComoDevolvido(@Param("emprestimoId") Long emprestimoId, @Param("agora") LocalDateTime agora);
+
+    // A data é conferida de novo: a fila do motor pode trazer um vencimento que já não vale
+    @Modifying
+    @Query("UPDATE Emprestimo e SET e.status = 'ATRASADO', e.dataAtualizacao = :agora " +
+           "WHERE e.id IN :ids AND e.status = 'ATIVO' AND e.dataDevolucaoPrevista <= :agora")
+    int marcarAtrasados(@Param("ids") Collection<Long> ids, @Param("agora") LocalDateTime agora);
+
+    @Query("SELECT e.id FROM Emprestimo e WHERE e.status = 'ATIVO' AND e.dataDevolucaoPrevista <= :agora")
+    List<Long> findIdsVencidos(@Param("agora") LocalDateTime agora);
 }
@@ -1,19 +1,47 @@
 package com.biblioteca.repository;
 
+import com.biblioteca.entity.Autor;
 import com.biblioteca.entity.Livro;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface LivroRepository extends JpaRepository<Livro, Long> {
 
+    // O DTO sempre exibe o nome do autor, então as leituras que viram DTO trazem o autor no mesmo SELECT
+    @EntityGraph(attributePaths = "autor")
+    Optional<Livro> findComAutorById(Long id);
+
+    @EntityGraph(attributePaths = "autor")
+    List<Livro> findComAutorByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "autor")
+    List<Livro> findComAutorByAutorId(Long autorId);
+
+    @EntityGraph(attributePaths = "autor")
     Optional<Livro> findByIsbn(String isbn);
 
+    @EntityGraph(attributePaths = "autor")
+    List<Livro> findByIsbnIn(Collection<String> isbns);
+
     List<Livro> findByTituloContainingIgnoreCase(String titulo);
 
     List<Livro> findByAutorId(Long autorId);
@@ -29,8 +57,87 @@ public interface LivroRepository extends JpaRepository<Livro, Long> {
     @Query("SELECT l FROM Livro l WHERE l.titulo LIKE %:titulo% OR l.sinopse LIKE %:sinopse%")
     List<Livro> findByTituloOrSinopseContaining(@Param("titulo") String titulo, @Param("sinopse") String sinopse);
 
+    // Consultas paginadas por keyset (id > cursor), sempre ordenadas por id
+    @EntityGraph(attributePaths = "autor")
+    @Query("SELECT l FROM Livro l WHERE l.id > :aposId ORDER BY l.id")
+    List<Livro> findPagina(@Param("aposId") Long aposId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "autor")
+    @Query("SELECT l FROM Livro l WHERE LOWER(l.titulo) LIKE LOWER(CONCAT('%', :titulo, '%')) AND l.id > :aposId ORDER BY l.id")
+    List<Livro> findPaginaByTitulo(@Param("titulo") String titulo, @Param("aposId") Long aposId, Pageable pageable);
+
+    @EntityGraph(attributePaths = "autor")
+    @Query("SELECT l FROM Livro l WHERE l.autor.id = :autorId AND l.id > :aposId ORDER BY l.id")
+    List<Livro> findPaginaByAutorId(@Param("autorId") Long autorId, @Param("aposId") Long aposId, Pageable pageable);
+
     boolean existsByIsbn(String isbn);
 
-    @Query("SELECT COUNT(e) FROM Livro l JOIN l.emprestimos e WHERE l.id = :livroId AND e.status = 'ATIVO'")
+    boolean existsByIsbnIn(Collection<String> isbns);
+
+    // Leitura em streaming para exportação: cursor do JDBC com fetch size, sem materializar a tabela
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT l FROM Livro l JOIN FETCH l.autor ORDER BY l.id")
+    Stream<Livro> streamTodos();
+
+    // Pares (id, isbn) para montar o índice de ISBNs sem carregar entidades
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT l.id, l.isbn FROM Livro l")
+    Stream<Object[]> streamIdsEIsbns();
+
+    // (id, autor, cópias disponíveis, ano) para montar os bitmaps do catálogo
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT l.id, l.autor.id, l.quantidadeDisponivel, l.anoPublicacao FROM Livro l")
+    Stream<Object[]> streamFacetas();
+
+    @Query("SELECT l.id, l.isbn FROM Livro l WHERE l.autor.id = :autorId")
+    List<Object[]> findIdsEIsbnsByAutorId(@Param("autorId") Long autorId);
+
+    // Reserva cópias de forma atômica; retorna 0 quando não há cópias suficientes
+    @Modifying
+    @Query("UPDATE Livro l SET l.quantidadeDisponivel = l.quantidadeDisponivel - :quantidade, l.dataAtualizacao = :agora " +
+           "WHERE l.id = :livroId AND l.quantidadeDisponivel >= :quantidade")
+    int decrementarDisponivel(@Param("livroId") Long livroId,
+                              @Param("quantidade") int quantidade,
+                              @Param("agora") LocalDateTime agora);
+
+    // Libera cópias de forma atômica; retorna 0 quando excederia o total de cópias do livro
+    @Modifying
+    @Query("UPDATE Livro l SET l.quantidadeDisponivel = l.quantidadeDisponivel + :quantidade, l.dataAtualizacao = :agora " +
+           "WHERE l.id = :livroId AND l.quantidadeDisponivel + :quantidade <= l.quantidade")
+    int incrementarDisponivel(@Param("livroId") Long livroId,
+                              @Param("quantidade") int quantidade,
+                              @Param("agora") LocalDateTime agora);
+
+    // Edição do cadastro: a quantidade disponível nunca é regravada com o valor lido antes, só deslocada pela
+    // mudança no total de cópias. Retorna 0 quando o novo total ficaria abaixo das cópias emprestadas
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Livro l SET l.titulo = :titulo, l.sinopse = :sinopse, l.isbn = :isbn, l.anoPublicacao = :anoPublicacao, " +
+           "l.autor = :autor, l.quantidadeDisponivel = l.quantidadeDisponivel + :quantidade - l.quantidade, " +
+           "l.quantidade = :quantidade, l.dataAtualizacao = :agora " +
+           "WHERE l.id = :livroId AND l.quantidadeDisponivel + :quantidade - l.quantidade >= 0")
+    int atualizarCadastro(@Param("livroId") Long livroId,
+                          @Param("titulo") String titulo,
+                          @Param("sinopse") String sinopse,
+                          @Param("isbn") String isbn,
+                          @Param("anoPublicacao") Integer anoPublicacao,
+                          @Param("autor") Autor autor,
+                          @Param("quantidade") int quantidade,
+                          @Param("agora") LocalDateTime agora);
+
+    // Bloqueia os livros em ordem de id para que lotes concorrentes não entrem em deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Livro l WHERE l.id IN :ids ORDER BY l.id")
+    List<Livro> findAllByIdParaAtualizacao(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT l.quantidadeDisponivel FROM Livro l WHERE l.id = :livroId")
+    Optional<Integer> findQuantidadeDisponivelById(@Param("livroId") Long livroId);
+
+    @Query("SELECT l.id, l.quantidadeDisponivel FROM Livro l WHERE l.id IN :ids")
+    List<Object[]> findQuantidadesDisponiveis(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT COUNT(e) FROM Livro l JOIN l.emprestimos e WHERE l.id = :livroId AND " + EmprestimoRepository.EM_ABERTO)
     Long countEmprestimosAtivosByLivroId(@Param("livroId") Long livroId);
 }
@@ -1,12 +1,20 @@
 package com.biblioteca.security;
 
+import com.biblioteca.config.JwtConfig;
 import com.biblioteca.service.JwtService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,6 +23,9 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -25,6 +36,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private JwtConfig jwtConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Usado apenas no modo com consulta ao banco (jwt.stateless=false)
+    private Cache<String, UserDetails> usuariosCarregados;
+
+    @PostConstruct
+    public void init() {
+        if (!jwtConfig.isStateless() && jwtConfig.getUserCacheMaxSize() > 0) {
+            usuariosCarregados = Caffeine.newBuilder()
+                    .maximumSize(jwtConfig.getUserCacheMaxSize())
+                    .expireAfterWrite(Duration.ofMillis(jwtConfig.getUserCacheTtl()))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, usuariosCarregados, "jwt.usuarios");
+        }
+    }
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -33,7 +65,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -41,21 +72,40 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
-
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            
-            if (jwtService.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
+        // Assinatura e expiração são verificadas uma única vez por token
+        Optional<Claims> claims = jwtService.verificarToken(jwt);
+
+        if (claims.isPresent() && claims.get().getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolverUsuario(claims.get());
+
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    userDetails,
+                    null,
+                    userDetails.getAuthorities()
+            );
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails resolverUsuario(Claims claims) {
+        String email = claims.getSubject();
+        List<?> roles = claims.get(JwtService.CLAIM_ROLES, List.class);
+
+        // Tokens emitidos antes dos claims de id/roles continuam passando pelo banco
+        if (jwtConfig.isStateless() && roles != null) {
+            Long usuarioId = claims.get(JwtService.CLAIM_USUARIO_ID, Long.class);
+            List<SimpleGrantedAuthority> authorities = roles.stream()
+                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                    .toList();
+            return new UsuarioAutenticado(usuarioId, email, authorities);
+        }
+
+        if (usuariosCarregados != null) {
+            return usuariosCarregados.get(email, userDetailsService::loadUserByUsername);
+        }
+        return userDetailsService.loadUserByUsername(email);
+    }
 }
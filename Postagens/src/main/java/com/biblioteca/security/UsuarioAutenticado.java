@@ -0,0 +1,20 @@
+package com.biblioteca.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+public class UsuarioAutenticado extends User {
+
+    private final Long id;
+
+    public UsuarioAutenticado(Long id, String email, Collection<? extends GrantedAuthority> authorities) {
+        super(email, "", authorities);
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
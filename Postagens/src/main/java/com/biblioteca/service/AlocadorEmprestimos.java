@@ -0,0 +1,171 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.EmprestimoDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Fila de escritor único por livro: os pedidos de um mesmo livro são atendidos em lotes, por uma thread por vez,
+// contra um contador de cópias em memória, e cada lote vira uma única escrita no banco. A fila só existe enquanto
+// tem pedidos: ao esvaziar ela sai do mapa, e a próxima rajada do livro recarrega o contador do banco.
+class AlocadorEmprestimos {
+
+    private static final int DESCONHECIDO = -1;
+
+    interface GravadorLote {
+        // Grava os pedidos aceitos e completa cada um; retorna false quando o banco não tinha as cópias esperadas
+        boolean gravar(Long livroId, List<Pedido> pedidos);
+    }
+
+    static class Pedido {
+        final EmprestimoDTO dados;
+        final Resultado resultado = new Resultado();
+
+        Pedido(EmprestimoDTO dados) {
+            this.dados = dados;
+        }
+    }
+
+    // O pedido fica com quem chegar primeiro: o lote que vai gravá-lo ou o chamador que desistiu de esperar.
+    // Cancelado, nenhum lote o grava; reservado por um lote, o cancelamento falha e o chamador espera o commit.
+    static class Resultado extends CompletableFuture<EmprestimoDTO> {
+        private final AtomicBoolean reservado = new AtomicBoolean();
+
+        boolean reservar() {
+            return !isDone() && reservado.compareAndSet(false, true);
+        }
+
+        // O lote foi desfeito sem gravar o pedido: ele volta a poder ser cancelado
+        void liberar() {
+            reservado.set(false);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return reservado.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    private static class FilaLivro {
+        final Queue<Pedido> pedidos = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean agendada = new AtomicBoolean();
+        final AtomicInteger disponivel = new AtomicInteger(DESCONHECIDO);
+    }
+
+    private final Map<Long, FilaLivro> filas = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final int tamanhoLote;
+    private final Function<Long, Optional<Integer>> carregarDisponivel;
+    private final GravadorLote gravador;
+
+    AlocadorEmprestimos(Executor executor, int tamanhoLote,
+                        Function<Long, Optional<Integer>> carregarDisponivel, GravadorLote gravador) {
+        this.executor = executor;
+        this.tamanhoLote = tamanhoLote;
+        this.carregarDisponivel = carregarDisponivel;
+        this.gravador = gravador;
+    }
+
+    CompletableFuture<EmprestimoDTO> submeter(Long livroId, EmprestimoDTO dados) {
+        Pedido pedido = new Pedido(dados);
+        // O pedido entra dentro do compute: uma fila que acabou de sair do mapa nunca recebe pedidos novos
+        FilaLivro fila = filas.compute(livroId, (id, atual) -> {
+            FilaLivro destino = atual != null ? atual : new FilaLivro();
+            destino.pedidos.add(pedido);
+            return destino;
+        });
+        agendar(livroId, fila);
+        return pedido.resultado;
+    }
+
+    // Chamado quando a quantidade disponível muda fora do alocador (devoluções, edições do livro)
+    void invalidar(Long livroId) {
+        FilaLivro fila = filas.get(livroId);
+        if (fila != null) {
+            fila.disponivel.set(DESCONHECIDO);
+        }
+    }
+
+    int filasAtivas() {
+        return filas.size();
+    }
+
+    private void agendar(Long livroId, FilaLivro fila) {
+        if (fila.agendada.compareAndSet(false, true)) {
+            executor.execute(() -> drenar(livroId, fila));
+        }
+    }
+
+    private void drenar(Long livroId, FilaLivro fila) {
+        try {
+            List<Pedido> lote = new ArrayList<>(tamanhoLote);
+            Pedido pedido;
+            while (lote.size() < tamanhoLote && (pedido = fila.pedidos.poll()) != null) {
+                lote.add(pedido);
+            }
+            if (!lote.isEmpty()) {
+                processar(livroId, fila, lote);
+            }
+        } finally {
+            fila.agendada.set(false);
+            if (!fila.pedidos.isEmpty()) {
+                agendar(livroId, fila);
+            } else {
+                filas.computeIfPresent(livroId,
+                        (id, atual) -> atual == fila && atual.pedidos.isEmpty() && !atual.agendada.get() ? null : atual);
+            }
+        }
+    }
+
+    private void processar(Long livroId, FilaLivro fila, List<Pedido> lote) {
+        try {
+            for (int tentativa = 0; tentativa < 2 && !lote.isEmpty(); tentativa++) {
+                int disponivel = fila.disponivel.get();
+                if (disponivel == DESCONHECIDO) {
+                    Optional<Integer> carregado = carregarDisponivel.apply(livroId);
+                    if (carregado.isEmpty()) {
+                        rejeitar(lote, "Livro não encontrado");
+                        return;
+                    }
+                    disponivel = carregado.get();
+                    fila.disponivel.compareAndSet(DESCONHECIDO, disponivel);
+                }
+
+                int aceitos = Math.min(disponivel, lote.size());
+                rejeitar(lote.subList(aceitos, lote.size()), "Livro não está disponível para empréstimo");
+                List<Pedido> reservados = lote.subList(0, aceitos);
+                if (reservados.isEmpty()) {
+                    return;
+                }
+
+                if (gravador.gravar(livroId, reservados)) {
+                    int gravados = (int) reservados.stream().filter(p -> !p.resultado.isCompletedExceptionally()).count();
+                    fila.disponivel.compareAndSet(disponivel, disponivel - gravados);
+                    return;
+                }
+
+                // O contador divergiu do banco: recarrega e tenta mais uma vez com os pedidos ainda pendentes
+                fila.disponivel.set(DESCONHECIDO);
+                lote = reservados.stream().filter(p -> !p.resultado.isDone()).toList();
+            }
+            rejeitar(lote, "Livro não está disponível para empréstimo");
+        } catch (RuntimeException e) {
+            fila.disponivel.set(DESCONHECIDO);
+            lote.forEach(p -> p.resultado.completeExceptionally(e));
+        }
+    }
+
+    private void rejeitar(List<Pedido> pedidos, String mensagem) {
+        pedidos.forEach(p -> p.resultado.completeExceptionally(new RuntimeException(mensagem)));
+    }
+}
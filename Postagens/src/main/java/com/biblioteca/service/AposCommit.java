@@ -0,0 +1,24 @@
+package com.biblioteca.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Índices em memória só refletem o que foi confirmado: dentro de uma transação a alteração espera o commit
+// (e some num rollback); fora de uma, é aplicada na hora
+final class AposCommit {
+
+    private AposCommit() {}
+
+    static void executar(Runnable alteracao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    alteracao.run();
+                }
+            });
+        } else {
+            alteracao.run();
+        }
+    }
+}
@@ -11,17 +11,20 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class AuthService implements UserDetailsService {
 
+    public static final String ROLE_PADRAO = "USER";
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private SenhaService senhaService;
 
     @Autowired
     private JwtService jwtService;
@@ -36,7 +39,7 @@ public class AuthService implements UserDetailsService {
         return org.springframework.security.core.userdetails.User.builder()
                 .username(usuario.getEmail())
                 .password(usuario.getSenha())
-                .roles("USER")
+                .roles(ROLE_PADRAO)
                 .build();
     }
 
@@ -44,11 +47,17 @@ public class AuthService implements UserDetailsService {
         Usuario usuario = usuarioRepository.findByEmail(loginDTO.getEmail())
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado"));
 
-        if (!passwordEncoder.matches(loginDTO.getSenha(), usuario.getSenha())) {
+        if (!senhaService.verificar(loginDTO.getSenha(), usuario.getSenha())) {
             throw new RuntimeException("Senha incorreta");
         }
 
-        String token = jwtService.generateToken(usuario.getEmail());
+        // Regrava o hash quando o custo do BCrypt configurado aumentou desde o cadastro
+        if (senhaService.precisaRehash(usuario.getSenha())) {
+            usuario.setSenha(senhaService.codificar(loginDTO.getSenha()));
+            usuarioRepository.save(usuario);
+        }
+
+        String token = jwtService.generateToken(usuario.getEmail(), usuario.getId(), List.of(ROLE_PADRAO));
 
         return new TokenDTO(token, usuario.getId(), usuario.getNome(), usuario.getEmail());
     }
@@ -58,7 +67,7 @@ public class AuthService implements UserDetailsService {
             throw new RuntimeException("Email já cadastrado");
         }
 
-        usuario.setSenha(passwordEncoder.encode(usuario.getSenha()));
+        usuario.setSenha(senhaService.codificar(usuario.getSenha()));
         return usuarioRepository.save(usuario);
     }
 }
@@ -0,0 +1,144 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.SugestaoDTO;
+import com.biblioteca.entity.Autor;
+import com.biblioteca.entity.Livro;
+import com.biblioteca.repository.AutorRepository;
+import com.biblioteca.repository.EmprestimoRepository;
+import com.biblioteca.repository.LivroRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Sugestões de títulos e autores por prefixo ou por semelhança, ordenadas pela quantidade de empréstimos
+@Service
+public class AutocompletarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompletarService.class);
+
+    public static final int LIMITE_PADRAO = 10;
+    public static final int LIMITE_MAXIMO = 50;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final TrieAutocompletar trie = new TrieAutocompletar();
+    private final IndiceAproximado aproximado = new IndiceAproximado();
+
+    // A popularidade de um autor soma os empréstimos dos livros dele
+    private final Map<Long, Long> autorPorLivro = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("autocompletar.memoria", trie, TrieAutocompletar::memoriaEstimada)
+                .baseUnit("bytes")
+                .description("Estimativa de memória ocupada pela trie de autocompletar")
+                .register(meterRegistry);
+        Gauge.builder("autocompletar.nos", trie, TrieAutocompletar::quantidadeNos).register(meterRegistry);
+        Gauge.builder("autocompletar.itens", trie, TrieAutocompletar::quantidadeItens).register(meterRegistry);
+        Gauge.builder("autocompletar.vocabulario", aproximado, IndiceAproximado::tamanhoVocabulario).register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        Map<Long, Long> emprestimosPorLivro = new HashMap<>();
+        emprestimoRepository.countEmprestimosPorLivro()
+                .forEach(linha -> emprestimosPorLivro.put((Long) linha[0], (Long) linha[1]));
+
+        Map<Long, Long> emprestimosPorAutor = new HashMap<>();
+        try (Stream<Livro> livros = livroRepository.streamTodos()) {
+            livros.forEach(livro -> {
+                long emprestimos = emprestimosPorLivro.getOrDefault(livro.getId(), 0L);
+                Long autorId = livro.getAutor().getId();
+                autorPorLivro.put(livro.getId(), autorId);
+                emprestimosPorAutor.merge(autorId, emprestimos, Long::sum);
+                trie.inserir(TrieAutocompletar.Tipo.LIVRO, livro.getId(), livro.getTitulo(), emprestimos);
+                aproximado.inserir(TrieAutocompletar.Tipo.LIVRO, livro.getId(), livro.getTitulo());
+            });
+        }
+        for (Autor autor : autorRepository.findAll()) {
+            trie.inserir(TrieAutocompletar.Tipo.AUTOR, autor.getId(), autor.getNome(),
+                    emprestimosPorAutor.getOrDefault(autor.getId(), 0L));
+            aproximado.inserir(TrieAutocompletar.Tipo.AUTOR, autor.getId(), autor.getNome());
+        }
+        logger.info("Trie de autocompletar com {} itens, {} nós, ~{} KB em {} ms",
+                trie.quantidadeItens(), trie.quantidadeNos(), trie.memoriaEstimada() / 1024,
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    public List<SugestaoDTO> completar(String prefixo, Integer limite) {
+        int tamanho = limite == null || limite <= 0 ? LIMITE_PADRAO : Math.min(limite, LIMITE_MAXIMO);
+        return trie.completar(prefixo, tamanho).stream()
+                .map(sugestao -> new SugestaoDTO(sugestao.tipo().name(), sugestao.id(), sugestao.texto(), sugestao.peso()))
+                .collect(Collectors.toList());
+    }
+
+    // Tolera até dois erros de digitação por palavra (um em palavras de até quatro letras)
+    public List<SugestaoDTO> buscarAproximado(String consulta, Integer limite) {
+        int tamanho = limite == null || limite <= 0 ? LIMITE_PADRAO : Math.min(limite, LIMITE_MAXIMO);
+        return aproximado.buscar(consulta, tamanho, trie::peso).stream()
+                .map(resultado -> new SugestaoDTO(resultado.tipo().name(), resultado.id(), resultado.texto(), resultado.popularidade()))
+                .collect(Collectors.toList());
+    }
+
+    public void livroSalvo(Long livroId, Long autorId, String titulo) {
+        autorPorLivro.put(livroId, autorId);
+        trie.inserir(TrieAutocompletar.Tipo.LIVRO, livroId, titulo, 0);
+        aproximado.inserir(TrieAutocompletar.Tipo.LIVRO, livroId, titulo);
+    }
+
+    public void livroRemovido(Long livroId) {
+        autorPorLivro.remove(livroId);
+        trie.remover(TrieAutocompletar.Tipo.LIVRO, livroId);
+        aproximado.remover(TrieAutocompletar.Tipo.LIVRO, livroId);
+    }
+
+    public void autorSalvo(Long autorId, String nome) {
+        trie.inserir(TrieAutocompletar.Tipo.AUTOR, autorId, nome, 0);
+        aproximado.inserir(TrieAutocompletar.Tipo.AUTOR, autorId, nome);
+    }
+
+    // A exclusão do autor remove os livros dele em cascata
+    public void autorRemovido(Long autorId) {
+        trie.remover(TrieAutocompletar.Tipo.AUTOR, autorId);
+        aproximado.remover(TrieAutocompletar.Tipo.AUTOR, autorId);
+        autorPorLivro.entrySet().removeIf(entrada -> {
+            if (autorId.equals(entrada.getValue())) {
+                trie.remover(TrieAutocompletar.Tipo.LIVRO, entrada.getKey());
+                aproximado.remover(TrieAutocompletar.Tipo.LIVRO, entrada.getKey());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public void emprestimosRegistrados(Long livroId, int quantidade) {
+        trie.incrementar(TrieAutocompletar.Tipo.LIVRO, livroId, quantidade);
+        Long autorId = autorPorLivro.get(livroId);
+        if (autorId != null) {
+            trie.incrementar(TrieAutocompletar.Tipo.AUTOR, autorId, quantidade);
+        }
+    }
+}
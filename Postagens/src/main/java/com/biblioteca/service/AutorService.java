@@ -1,6 +1,8 @@
 package com.biblioteca.service;
 
+import com.biblioteca.dto.AlteracoesDTO;
 import com.biblioteca.dto.AutorDTO;
+import com.biblioteca.dto.PaginaDTO;
 import com.biblioteca.entity.Autor;
 import com.biblioteca.repository.AutorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,26 +18,59 @@ public class AutorService {
     @Autowired
     private AutorRepository autorRepository;
 
-    public List<AutorDTO> listarTodos() {
-        return autorRepository.findAll().stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private IndiceIsbn indiceIsbn;
+
+    @Autowired
+    private IndiceCatalogo indiceCatalogo;
+
+    @Autowired
+    private PesquisaService pesquisaService;
+
+    @Autowired
+    private AutocompletarService autocompletarService;
+
+    @Autowired
+    private RegistroAlteracoes registroAlteracoes;
+
+    public PaginaDTO<AutorDTO> listarTodos(String cursor, Integer limite) {
+        int tamanho = Paginacao.limite(limite);
+        List<Autor> autores = autorRepository.findPagina(Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(autores, tamanho, Autor::getId, this::converterParaDTO);
+    }
+
+    public RespostaSerializada listarTodosSerializado(String cursor, Integer limite) {
+        return catalogoCache.autoresSerializados(cursor, limite, () -> listarTodos(cursor, limite));
     }
 
     public Optional<AutorDTO> buscarPorId(Long id) {
-        return autorRepository.findById(id)
-                .map(this::converterParaDTO);
+        return catalogoCache.autor(id, chave -> autorRepository.findById(chave).map(this::converterParaDTO));
+    }
+
+    public Optional<RespostaSerializada> buscarSerializadoPorId(Long id) {
+        return catalogoCache.autorSerializado(id, () -> buscarPorId(id));
+    }
+
+    public AlteracoesDTO<AutorDTO> listarAlteracoes(String desde, Integer limite) {
+        return registroAlteracoes.alteracoes(RegistroAlteracoes.Recurso.AUTOR, desde, limite, ids ->
+                autorRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(Autor::getId, this::converterParaDTO)));
     }
 
-    public List<AutorDTO> buscarPorNome(String nome) {
-        return autorRepository.findByNomeContainingIgnoreCase(nome).stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    public PaginaDTO<AutorDTO> buscarPorNome(String nome, String cursor, Integer limite) {
+        int tamanho = Paginacao.limite(limite);
+        List<Autor> autores = autorRepository.findPaginaByNome(nome, Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(autores, tamanho, Autor::getId, this::converterParaDTO);
     }
 
     public AutorDTO criar(AutorDTO autorDTO) {
         Autor autor = converterParaEntidade(autorDTO);
         autor = autorRepository.save(autor);
+        catalogoCache.invalidarListaAutores();
+        autocompletarService.autorSalvo(autor.getId(), autor.getNome());
         return converterParaDTO(autor);
     }
 
@@ -46,13 +81,21 @@ public class AutorService {
                     autor.setBiografia(autorDTO.getBiografia());
                     autor.setDataNascimento(autorDTO.getDataNascimento());
                     autor = autorRepository.save(autor);
+                    catalogoCache.invalidarAutor(id);
+                    pesquisaService.reindexarAutor(id);
+                    autocompletarService.autorSalvo(id, autor.getNome());
                     return converterParaDTO(autor);
                 });
     }
 
     public boolean deletar(Long id) {
         if (autorRepository.existsById(id)) {
+            indiceIsbn.removerAutor(id);
             autorRepository.deleteById(id);
+            catalogoCache.invalidarAutor(id);
+            indiceCatalogo.autorRemovido(id);
+            pesquisaService.removerAutor(id);
+            autocompletarService.autorRemovido(id);
             return true;
         }
         return false;
@@ -0,0 +1,533 @@
+package com.biblioteca.service;
+
+import java.util.Arrays;
+
+// Conjunto de inteiros não negativos no formato do Roaring bitmap: os 16 bits altos escolhem um bloco e
+// cada bloco guarda os 16 bits baixos em um array ordenado (até 4096 valores) ou em um mapa de 65536 bits.
+// Blocos esparsos ocupam 2 bytes por valor e blocos densos no máximo 8 KB; interseção, união e diferença
+// trabalham bloco a bloco, palavra a palavra nos blocos densos. Não é thread-safe.
+class BitmapCompactado {
+
+    private static final int LIMITE_ARRAY = 4096;
+    private static final int PALAVRAS = 1024;
+
+    static final int FORA_DA_FAIXA = -1;
+
+    private char[] chaves = new char[4];
+    private Bloco[] blocos = new Bloco[4];
+    private int tamanho;
+
+    // Ids de livro são long; só os de 0 a Integer.MAX_VALUE cabem no bitmap. Os demais viram FORA_DA_FAIXA,
+    // que nenhum bitmap contém, e quem indexa precisa deixá-los de fora explicitamente.
+    static int valor(long id) {
+        return id >= 0 && id <= Integer.MAX_VALUE ? (int) id : FORA_DA_FAIXA;
+    }
+
+    boolean adicionar(int valor) {
+        if (valor < 0) {
+            throw new IllegalArgumentException("Valor negativo: " + valor);
+        }
+        char alto = (char) (valor >>> 16);
+        int i = buscar(alto);
+        if (i < 0) {
+            i = -i - 1;
+            inserirBloco(i, alto, new BlocoArray(new char[4], 0));
+        }
+        int antes = blocos[i].cardinalidade();
+        blocos[i] = blocos[i].adicionar((char) valor);
+        return blocos[i].cardinalidade() > antes;
+    }
+
+    boolean remover(int valor) {
+        int i = valor < 0 ? -1 : buscar((char) (valor >>> 16));
+        if (i < 0) {
+            return false;
+        }
+        int antes = blocos[i].cardinalidade();
+        blocos[i] = blocos[i].remover((char) valor);
+        if (blocos[i].cardinalidade() == 0) {
+            removerBloco(i);
+            return true;
+        }
+        return blocos[i].cardinalidade() < antes;
+    }
+
+    boolean contem(int valor) {
+        int i = valor < 0 ? -1 : buscar((char) (valor >>> 16));
+        return i >= 0 && blocos[i].contem((char) valor);
+    }
+
+    long cardinalidade() {
+        long total = 0;
+        for (int i = 0; i < tamanho; i++) {
+            total += blocos[i].cardinalidade();
+        }
+        return total;
+    }
+
+    void limpar() {
+        Arrays.fill(blocos, 0, tamanho, null);
+        tamanho = 0;
+    }
+
+    BitmapCompactado copia() {
+        BitmapCompactado copia = new BitmapCompactado();
+        copia.chaves = Arrays.copyOf(chaves, Math.max(tamanho, 4));
+        copia.blocos = new Bloco[copia.chaves.length];
+        for (int i = 0; i < tamanho; i++) {
+            copia.blocos[i] = blocos[i].copia();
+        }
+        copia.tamanho = tamanho;
+        return copia;
+    }
+
+    BitmapCompactado e(BitmapCompactado outro) {
+        BitmapCompactado resultado = new BitmapCompactado();
+        int i = 0;
+        int j = 0;
+        while (i < tamanho && j < outro.tamanho) {
+            if (chaves[i] < outro.chaves[j]) {
+                i++;
+            } else if (chaves[i] > outro.chaves[j]) {
+                j++;
+            } else {
+                Bloco bloco = blocos[i].e(outro.blocos[j]);
+                if (bloco.cardinalidade() > 0) {
+                    resultado.inserirBloco(resultado.tamanho, chaves[i], bloco);
+                }
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    BitmapCompactado ou(BitmapCompactado outro) {
+        BitmapCompactado resultado = new BitmapCompactado();
+        int i = 0;
+        int j = 0;
+        while (i < tamanho || j < outro.tamanho) {
+            if (j == outro.tamanho || (i < tamanho && chaves[i] < outro.chaves[j])) {
+                resultado.inserirBloco(resultado.tamanho, chaves[i], blocos[i].copia());
+                i++;
+            } else if (i == tamanho || chaves[i] > outro.chaves[j]) {
+                resultado.inserirBloco(resultado.tamanho, outro.chaves[j], outro.blocos[j].copia());
+                j++;
+            } else {
+                resultado.inserirBloco(resultado.tamanho, chaves[i], blocos[i].ou(outro.blocos[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    BitmapCompactado eNao(BitmapCompactado outro) {
+        BitmapCompactado resultado = new BitmapCompactado();
+        int j = 0;
+        for (int i = 0; i < tamanho; i++) {
+            while (j < outro.tamanho && outro.chaves[j] < chaves[i]) {
+                j++;
+            }
+            Bloco bloco = j < outro.tamanho && outro.chaves[j] == chaves[i]
+                    ? blocos[i].eNao(outro.blocos[j])
+                    : blocos[i].copia();
+            if (bloco.cardinalidade() > 0) {
+                resultado.inserirBloco(resultado.tamanho, chaves[i], bloco);
+            }
+        }
+        return resultado;
+    }
+
+    // Tamanho da interseção sem materializá-la
+    long cardinalidadeE(BitmapCompactado outro) {
+        long total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < tamanho && j < outro.tamanho) {
+            if (chaves[i] < outro.chaves[j]) {
+                i++;
+            } else if (chaves[i] > outro.chaves[j]) {
+                j++;
+            } else {
+                total += blocos[i].cardinalidadeE(outro.blocos[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    // Até `limite` valores maiores que `apos`, em ordem crescente; é o que a paginação por keyset precisa
+    int[] proximos(long apos, int limite) {
+        if (apos >= Integer.MAX_VALUE || limite <= 0) {
+            return new int[0];
+        }
+        int inicio = (int) Math.max(apos + 1, 0);
+        int[] destino = new int[limite];
+        int preenchidos = 0;
+        int i = buscar((char) (inicio >>> 16));
+        char desde = (char) inicio;
+        if (i < 0) {
+            i = -i - 1;
+            desde = 0;
+        }
+        for (; i < tamanho && preenchidos < limite; i++, desde = 0) {
+            preenchidos = blocos[i].copiar(desde, chaves[i] << 16, destino, preenchidos);
+        }
+        return preenchidos == limite ? destino : Arrays.copyOf(destino, preenchidos);
+    }
+
+    long memoriaEstimada() {
+        long bytes = 2L * chaves.length + 4L * blocos.length;
+        for (int i = 0; i < tamanho; i++) {
+            bytes += blocos[i].memoriaEstimada();
+        }
+        return bytes;
+    }
+
+    private int buscar(char alto) {
+        return Arrays.binarySearch(chaves, 0, tamanho, alto);
+    }
+
+    private void inserirBloco(int posicao, char alto, Bloco bloco) {
+        if (tamanho == chaves.length) {
+            chaves = Arrays.copyOf(chaves, tamanho * 2);
+            blocos = Arrays.copyOf(blocos, tamanho * 2);
+        }
+        System.arraycopy(chaves, posicao, chaves, posicao + 1, tamanho - posicao);
+        System.arraycopy(blocos, posicao, blocos, posicao + 1, tamanho - posicao);
+        chaves[posicao] = alto;
+        blocos[posicao] = bloco;
+        tamanho++;
+    }
+
+    private void removerBloco(int posicao) {
+        System.arraycopy(chaves, posicao + 1, chaves, posicao, tamanho - posicao - 1);
+        System.arraycopy(blocos, posicao + 1, blocos, posicao, tamanho - posicao - 1);
+        blocos[--tamanho] = null;
+    }
+
+    // Um bloco troca de representação ao cruzar 4096 valores, onde os dois formatos ocupam os mesmos 8 KB
+    private abstract static class Bloco {
+
+        abstract int cardinalidade();
+
+        abstract boolean contem(char valor);
+
+        abstract Bloco adicionar(char valor);
+
+        abstract Bloco remover(char valor);
+
+        abstract Bloco copia();
+
+        abstract Bloco e(Bloco outro);
+
+        abstract Bloco ou(Bloco outro);
+
+        abstract Bloco eNao(Bloco outro);
+
+        abstract int cardinalidadeE(Bloco outro);
+
+        abstract int copiar(char desde, int base, int[] destino, int preenchidos);
+
+        abstract long memoriaEstimada();
+    }
+
+    private static final class BlocoArray extends Bloco {
+        char[] valores;
+        int quantidade;
+
+        BlocoArray(char[] valores, int quantidade) {
+            this.valores = valores;
+            this.quantidade = quantidade;
+        }
+
+        @Override
+        int cardinalidade() {
+            return quantidade;
+        }
+
+        @Override
+        boolean contem(char valor) {
+            return Arrays.binarySearch(valores, 0, quantidade, valor) >= 0;
+        }
+
+        @Override
+        Bloco adicionar(char valor) {
+            int i = Arrays.binarySearch(valores, 0, quantidade, valor);
+            if (i >= 0) {
+                return this;
+            }
+            if (quantidade == LIMITE_ARRAY) {
+                return paraBitmap().adicionar(valor);
+            }
+            i = -i - 1;
+            if (quantidade == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(quantidade * 2, LIMITE_ARRAY));
+            }
+            System.arraycopy(valores, i, valores, i + 1, quantidade - i);
+            valores[i] = valor;
+            quantidade++;
+            return this;
+        }
+
+        @Override
+        Bloco remover(char valor) {
+            int i = Arrays.binarySearch(valores, 0, quantidade, valor);
+            if (i >= 0) {
+                System.arraycopy(valores, i + 1, valores, i, quantidade - i - 1);
+                quantidade--;
+            }
+            return this;
+        }
+
+        @Override
+        Bloco copia() {
+            return new BlocoArray(Arrays.copyOf(valores, Math.max(quantidade, 1)), quantidade);
+        }
+
+        @Override
+        Bloco e(Bloco outro) {
+            char[] resultado = new char[Math.min(quantidade, outro.cardinalidade())];
+            int n = 0;
+            if (outro instanceof BlocoArray array) {
+                int i = 0;
+                int j = 0;
+                while (i < quantidade && j < array.quantidade) {
+                    if (valores[i] < array.valores[j]) {
+                        i++;
+                    } else if (valores[i] > array.valores[j]) {
+                        j++;
+                    } else {
+                        resultado[n++] = valores[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < quantidade; i++) {
+                    if (outro.contem(valores[i])) {
+                        resultado[n++] = valores[i];
+                    }
+                }
+            }
+            return new BlocoArray(resultado, n);
+        }
+
+        @Override
+        Bloco ou(Bloco outro) {
+            if (outro instanceof BlocoBitmap) {
+                return outro.ou(this);
+            }
+            BlocoArray array = (BlocoArray) outro;
+            char[] resultado = new char[quantidade + array.quantidade];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < quantidade || j < array.quantidade) {
+                if (j == array.quantidade || (i < quantidade && valores[i] < array.valores[j])) {
+                    resultado[n++] = valores[i++];
+                } else if (i == quantidade || valores[i] > array.valores[j]) {
+                    resultado[n++] = array.valores[j++];
+                } else {
+                    resultado[n++] = valores[i++];
+                    j++;
+                }
+            }
+            BlocoArray uniao = new BlocoArray(resultado, n);
+            return n > LIMITE_ARRAY ? uniao.paraBitmap() : uniao;
+        }
+
+        @Override
+        Bloco eNao(Bloco outro) {
+            char[] resultado = new char[quantidade];
+            int n = 0;
+            for (int i = 0; i < quantidade; i++) {
+                if (!outro.contem(valores[i])) {
+                    resultado[n++] = valores[i];
+                }
+            }
+            return new BlocoArray(resultado, n);
+        }
+
+        @Override
+        int cardinalidadeE(Bloco outro) {
+            int total = 0;
+            for (int i = 0; i < quantidade; i++) {
+                if (outro.contem(valores[i])) {
+                    total++;
+                }
+            }
+            return total;
+        }
+
+        @Override
+        int copiar(char desde, int base, int[] destino, int preenchidos) {
+            int i = Arrays.binarySearch(valores, 0, quantidade, desde);
+            for (i = i < 0 ? -i - 1 : i; i < quantidade && preenchidos < destino.length; i++) {
+                destino[preenchidos++] = base | valores[i];
+            }
+            return preenchidos;
+        }
+
+        @Override
+        long memoriaEstimada() {
+            return 16 + 16 + 2L * valores.length;
+        }
+
+        private BlocoBitmap paraBitmap() {
+            long[] palavras = new long[PALAVRAS];
+            for (int i = 0; i < quantidade; i++) {
+                palavras[valores[i] >>> 6] |= 1L << valores[i];
+            }
+            return new BlocoBitmap(palavras, quantidade);
+        }
+    }
+
+    private static final class BlocoBitmap extends Bloco {
+        final long[] palavras;
+        int quantidade;
+
+        BlocoBitmap(long[] palavras, int quantidade) {
+            this.palavras = palavras;
+            this.quantidade = quantidade;
+        }
+
+        @Override
+        int cardinalidade() {
+            return quantidade;
+        }
+
+        @Override
+        boolean contem(char valor) {
+            return (palavras[valor >>> 6] & (1L << valor)) != 0;
+        }
+
+        @Override
+        Bloco adicionar(char valor) {
+            long antes = palavras[valor >>> 6];
+            palavras[valor >>> 6] = antes | (1L << valor);
+            if (antes != palavras[valor >>> 6]) {
+                quantidade++;
+            }
+            return this;
+        }
+
+        @Override
+        Bloco remover(char valor) {
+            long antes = palavras[valor >>> 6];
+            palavras[valor >>> 6] = antes & ~(1L << valor);
+            if (antes != palavras[valor >>> 6]) {
+                quantidade--;
+            }
+            return quantidade <= LIMITE_ARRAY ? paraArray(palavras, quantidade) : this;
+        }
+
+        @Override
+        Bloco copia() {
+            return new BlocoBitmap(palavras.clone(), quantidade);
+        }
+
+        @Override
+        Bloco e(Bloco outro) {
+            if (outro instanceof BlocoArray) {
+                return outro.e(this);
+            }
+            long[] outras = ((BlocoBitmap) outro).palavras;
+            long[] resultado = new long[PALAVRAS];
+            int n = 0;
+            for (int k = 0; k < PALAVRAS; k++) {
+                resultado[k] = palavras[k] & outras[k];
+                n += Long.bitCount(resultado[k]);
+            }
+            return n <= LIMITE_ARRAY ? paraArray(resultado, n) : new BlocoBitmap(resultado, n);
+        }
+
+        @Override
+        Bloco ou(Bloco outro) {
+            long[] resultado = palavras.clone();
+            if (outro instanceof BlocoArray array) {
+                for (int i = 0; i < array.quantidade; i++) {
+                    resultado[array.valores[i] >>> 6] |= 1L << array.valores[i];
+                }
+            } else {
+                long[] outras = ((BlocoBitmap) outro).palavras;
+                for (int k = 0; k < PALAVRAS; k++) {
+                    resultado[k] |= outras[k];
+                }
+            }
+            int n = 0;
+            for (long palavra : resultado) {
+                n += Long.bitCount(palavra);
+            }
+            return new BlocoBitmap(resultado, n);
+        }
+
+        @Override
+        Bloco eNao(Bloco outro) {
+            long[] resultado = palavras.clone();
+            if (outro instanceof BlocoArray array) {
+                for (int i = 0; i < array.quantidade; i++) {
+                    resultado[array.valores[i] >>> 6] &= ~(1L << array.valores[i]);
+                }
+            } else {
+                long[] outras = ((BlocoBitmap) outro).palavras;
+                for (int k = 0; k < PALAVRAS; k++) {
+                    resultado[k] &= ~outras[k];
+                }
+            }
+            int n = 0;
+            for (long palavra : resultado) {
+                n += Long.bitCount(palavra);
+            }
+            return n <= LIMITE_ARRAY ? paraArray(resultado, n) : new BlocoBitmap(resultado, n);
+        }
+
+        @Override
+        int cardinalidadeE(Bloco outro) {
+            if (outro instanceof BlocoArray) {
+                return outro.cardinalidadeE(this);
+            }
+            long[] outras = ((BlocoBitmap) outro).palavras;
+            int total = 0;
+            for (int k = 0; k < PALAVRAS; k++) {
+                total += Long.bitCount(palavras[k] & outras[k]);
+            }
+            return total;
+        }
+
+        @Override
+        int copiar(char desde, int base, int[] destino, int preenchidos) {
+            int k = desde >>> 6;
+            long palavra = palavras[k] & (-1L << desde);
+            while (preenchidos < destino.length) {
+                if (palavra != 0) {
+                    destino[preenchidos++] = base | (k << 6) + Long.numberOfTrailingZeros(palavra);
+                    palavra &= palavra - 1;
+                } else if (++k < PALAVRAS) {
+                    palavra = palavras[k];
+                } else {
+                    break;
+                }
+            }
+            return preenchidos;
+        }
+
+        @Override
+        long memoriaEstimada() {
+            return 16 + 16 + 8L * PALAVRAS;
+        }
+
+        private static BlocoArray paraArray(long[] palavras, int quantidade) {
+            char[] valores = new char[Math.max(quantidade, 1)];
+            int n = 0;
+            for (int k = 0; k < PALAVRAS; k++) {
+                for (long palavra = palavras[k]; palavra != 0; palavra &= palavra - 1) {
+                    valores[n++] = (char) ((k << 6) + Long.numberOfTrailingZeros(palavra));
+                }
+            }
+            return new BlocoArray(valores, n);
+        }
+    }
+}
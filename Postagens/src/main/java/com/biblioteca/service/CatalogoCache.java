@@ -0,0 +1,199 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.CatalogoConfig;
+import com.biblioteca.dto.AutorDTO;
+import com.biblioteca.dto.LivroDTO;
+import com.biblioteca.dto.PaginaDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Cache em memória das leituras por id de autores e livros, que quase nunca mudam. As respostas mais lidas
+// também ficam guardadas já serializadas, e as mesmas invalidações descartam as duas formas.
+@Component
+public class CatalogoCache {
+
+    private static final String CHAVE_LIVRO = "livro:";
+    private static final String CHAVE_AUTOR = "autor:";
+    private static final String CHAVE_LISTA_AUTORES = "autores:";
+    private static final int FAIXAS_GERACAO = 1024;
+
+    @Autowired
+    private CatalogoConfig catalogoConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Cache<Long, AutorDTO> autores;
+    private Cache<Long, LivroDTO> livros;
+    private Cache<String, RespostaSerializada> respostas;
+
+    // Gerações de invalidação dos livros, por faixa de ids (e uma geral, para o autor): a carga em lote só
+    // guarda um livro se nenhuma invalidação o alcançou enquanto ela lia o banco
+    private final AtomicLongArray geracoesLivros = new AtomicLongArray(FAIXAS_GERACAO);
+    private final AtomicLong geracaoLivros = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        autores = criar("catalogo.autores");
+        livros = criar("catalogo.livros");
+        respostas = criar("catalogo.respostas");
+    }
+
+    private <K, V> Cache<K, V> criar(String nome) {
+        Cache<K, V> cache = Caffeine.newBuilder()
+                .maximumSize(catalogoConfig.getCacheMaxSize())
+                .expireAfterWrite(Duration.ofMillis(catalogoConfig.getCacheTtl()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, nome);
+        return cache;
+    }
+
+    // O carregamento é atômico por chave: uma invalidação concorrente espera a carga terminar e então a descarta
+    public Optional<AutorDTO> autor(Long id, Function<Long, Optional<AutorDTO>> carregar) {
+        return Optional.ofNullable(autores.get(id, chave -> carregar.apply(chave).orElse(null)));
+    }
+
+    public Optional<LivroDTO> livro(Long id, Function<Long, Optional<LivroDTO>> carregar) {
+        return Optional.ofNullable(livros.get(id, chave -> carregar.apply(chave).orElse(null)));
+    }
+
+    // Os que faltam vêm numa consulta só, mas sem a atomicidade por chave do get: cada um entra no cache dentro
+    // do compute, que exclui a invalidação da mesma chave, e só se a geração dele não mudou desde antes da leitura
+    public Map<Long, LivroDTO> livros(Collection<Long> ids, Function<Set<? extends Long>, Map<Long, LivroDTO>> carregar) {
+        Map<Long, LivroDTO> encontrados = new HashMap<>(livros.getAllPresent(ids));
+        Map<Long, Long> geracoes = new HashMap<>();
+        for (Long id : ids) {
+            if (!encontrados.containsKey(id)) {
+                geracoes.put(id, geracaoLivro(id));
+            }
+        }
+        if (geracoes.isEmpty()) {
+            return encontrados;
+        }
+        carregar.apply(geracoes.keySet()).forEach((id, livro) -> {
+            livros.asMap().compute(id, (chave, atual) -> geracaoLivro(id) == geracoes.get(id) ? livro : atual);
+            encontrados.put(id, livro);
+        });
+        return encontrados;
+    }
+
+    // A serialização parte do DTO em cache, então um acerto aqui não passa nem pelo banco nem pelo Jackson
+    public Optional<RespostaSerializada> livroSerializado(Long id, Supplier<Optional<LivroDTO>> carregar) {
+        return Optional.ofNullable(respostas.get(CHAVE_LIVRO + id, chave ->
+                carregar.get().map(livro -> serializar(livro, null, livro.getAutorId())).orElse(null)));
+    }
+
+    public Optional<RespostaSerializada> autorSerializado(Long id, Supplier<Optional<AutorDTO>> carregar) {
+        return Optional.ofNullable(respostas.get(CHAVE_AUTOR + id, chave ->
+                carregar.get().map(autor -> serializar(autor, null, id)).orElse(null)));
+    }
+
+    public RespostaSerializada autoresSerializados(String cursor, Integer limite, Supplier<PaginaDTO<AutorDTO>> carregar) {
+        return respostas.get(CHAVE_LISTA_AUTORES + cursor + ":" + limite, chave -> {
+            PaginaDTO<AutorDTO> pagina = carregar.get();
+            return serializar(pagina.getItens(), pagina.getProximoCursor(), null);
+        });
+    }
+
+    // O nome do autor aparece nos livros, então os livros dele também saem do cache
+    public void invalidarAutor(Long autorId) {
+        Runnable invalidacao = () -> {
+            autores.invalidate(autorId);
+            geracaoLivros.incrementAndGet();
+            livros.asMap().values().removeIf(livro -> autorId.equals(livro.getAutorId()));
+            respostas.asMap().entrySet().removeIf(entrada ->
+                    autorId.equals(entrada.getValue().autorId()) || entrada.getKey().startsWith(CHAVE_LISTA_AUTORES));
+        };
+        invalidacao.run();
+        aposCommit(invalidacao);
+    }
+
+    // Um autor novo muda as páginas da listagem, mesmo sem nenhuma entrada por id para descartar
+    public void invalidarListaAutores() {
+        Runnable invalidacao = () -> respostas.asMap().keySet().removeIf(chave -> chave.startsWith(CHAVE_LISTA_AUTORES));
+        invalidacao.run();
+        aposCommit(invalidacao);
+    }
+
+    public void invalidarLivro(Long livroId) {
+        Runnable invalidacao = () -> {
+            geracoesLivros.incrementAndGet(faixa(livroId));
+            livros.invalidate(livroId);
+            respostas.invalidate(CHAVE_LIVRO + livroId);
+        };
+        invalidacao.run();
+        aposCommit(invalidacao);
+    }
+
+    public void invalidarLivros(Collection<Long> livroIds) {
+        List<Long> ids = List.copyOf(livroIds);
+        List<String> chaves = ids.stream().map(id -> CHAVE_LIVRO + id).toList();
+        Runnable invalidacao = () -> {
+            ids.forEach(id -> geracoesLivros.incrementAndGet(faixa(id)));
+            livros.invalidateAll(ids);
+            respostas.invalidateAll(chaves);
+        };
+        invalidacao.run();
+        aposCommit(invalidacao);
+    }
+
+    private long geracaoLivro(Long livroId) {
+        return geracaoLivros.get() + geracoesLivros.get(faixa(livroId));
+    }
+
+    private static int faixa(Long livroId) {
+        return Math.floorMod(Long.hashCode(livroId), FAIXAS_GERACAO);
+    }
+
+    private RespostaSerializada serializar(Object corpo, String proximoCursor, Long autorId) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(corpo);
+            byte[] resumo = MessageDigest.getInstance("SHA-256").digest(bytes);
+            String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(resumo, 16)) + "\"";
+            return new RespostaSerializada(bytes, etag, proximoCursor, autorId);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Invalida de novo após o commit, descartando o que outra thread tenha lido antes da transação terminar
+    private void aposCommit(Runnable invalidacao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidacao.run();
+                }
+            });
+        }
+    }
+}
@@ -1,25 +1,64 @@
 package com.biblioteca.service;
 
+import com.biblioteca.config.EmprestimoConfig;
+import com.biblioteca.dto.AlteracoesDTO;
 import com.biblioteca.dto.EmprestimoDTO;
+import com.biblioteca.dto.ItemLoteDTO;
+import com.biblioteca.dto.PaginaDTO;
 import com.biblioteca.entity.Emprestimo;
 import com.biblioteca.entity.Livro;
 import com.biblioteca.entity.StatusEmprestimo;
 import com.biblioteca.entity.Usuario;
+import com.biblioteca.exception.ServicoSobrecarregadoException;
 import com.biblioteca.repository.EmprestimoRepository;
 import com.biblioteca.repository.LivroRepository;
 import com.biblioteca.repository.UsuarioRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import java.util.stream.Collectors;
 
 @Service
 public class EmprestimoService {
 
+    private static final int TAMANHO_MAXIMO_LOTE = 100;
+    private static final int TAMANHO_LOTE_EXPORTACAO = 500;
+
     @Autowired
     private EmprestimoRepository emprestimoRepository;
 
@@ -29,95 +68,438 @@ public class EmprestimoService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
-    public List<EmprestimoDTO> listarTodos() {
-        return emprestimoRepository.findAll().stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    @Autowired
+    private EmprestimoConfig emprestimoConfig;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private IndiceCatalogo indiceCatalogo;
+
+    @Autowired
+    private AutocompletarService autocompletarService;
+
+    @Autowired
+    private MotorAtrasos motorAtrasos;
+
+    @Autowired
+    private RegistroAlteracoes registroAlteracoes;
+
+    @Autowired
+    private NotificadorDisponibilidade notificadorDisponibilidade;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private ThreadPoolExecutor executorAlocador;
+    private AlocadorEmprestimos alocador;
+    private DistributionSummary tamanhoLote;
+
+    @PostConstruct
+    public void init() {
+        if (!emprestimoConfig.isAlocadorEnabled()) {
+            return;
+        }
+        AtomicInteger contador = new AtomicInteger();
+        executorAlocador = new ThreadPoolExecutor(
+                emprestimoConfig.getAlocadorThreads(),
+                emprestimoConfig.getAlocadorThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "alocador-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        tamanhoLote = DistributionSummary.builder("emprestimo.alocador.lote").register(meterRegistry);
+        alocador = new AlocadorEmprestimos(
+                executorAlocador,
+                emprestimoConfig.getAlocadorBatchSize(),
+                livroRepository::findQuantidadeDisponivelById,
+                this::gravarLote);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (executorAlocador != null) {
+            executorAlocador.shutdown();
+        }
+    }
+
+    public PaginaDTO<EmprestimoDTO> listarTodos(String cursor, Integer limite) {
+        int tamanho = Paginacao.limite(limite);
+        List<EmprestimoDTO> emprestimos = emprestimoRepository.findPagina(Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(emprestimos, tamanho, EmprestimoDTO::getId, Function.identity());
     }
 
     public Optional<EmprestimoDTO> buscarPorId(Long id) {
-        return emprestimoRepository.findById(id)
-                .map(this::converterParaDTO);
+        return emprestimoRepository.findDTOById(id);
     }
 
-    public List<EmprestimoDTO> buscarPorUsuario(Long usuarioId) {
-        return emprestimoRepository.findByUsuarioId(usuarioId).stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    public AlteracoesDTO<EmprestimoDTO> listarAlteracoes(String desde, Integer limite) {
+        return registroAlteracoes.alteracoes(RegistroAlteracoes.Recurso.EMPRESTIMO, desde, limite, ids ->
+                emprestimoRepository.findDTOByIdIn(ids).stream()
+                        .collect(Collectors.toMap(EmprestimoDTO::getId, Function.identity())));
     }
 
-    public List<EmprestimoDTO> buscarPorLivro(Long livroId) {
-        return emprestimoRepository.findByLivroId(livroId).stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    public PaginaDTO<EmprestimoDTO> buscarPorUsuario(Long usuarioId, String cursor, Integer limite) {
+        int tamanho = Paginacao.limite(limite);
+        List<EmprestimoDTO> emprestimos = emprestimoRepository.findPaginaByUsuarioId(
+                usuarioId, Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(emprestimos, tamanho, EmprestimoDTO::getId, Function.identity());
     }
 
-    public List<EmprestimoDTO> buscarPorStatus(StatusEmprestimo status) {
-        return emprestimoRepository.findByStatus(status).stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    public PaginaDTO<EmprestimoDTO> buscarPorLivro(Long livroId, String cursor, Integer limite) {
+        int tamanho = Paginacao.limite(limite);
+        List<EmprestimoDTO> emprestimos = emprestimoRepository.findPaginaByLivroId(
+                livroId, Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(emprestimos, tamanho, EmprestimoDTO::getId, Function.identity());
     }
 
-    public List<EmprestimoDTO> buscarAtivosPorUsuario(Long usuarioId) {
-        return emprestimoRepository.findEmprestimosAtivosByUsuario(usuarioId).stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    public PaginaDTO<EmprestimoDTO> buscarPorStatus(StatusEmprestimo status, String cursor, Integer limite) {
+        int tamanho = Paginacao.limite(limite);
+        List<EmprestimoDTO> emprestimos = emprestimoRepository.findPaginaByStatus(
+                status, Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(emprestimos, tamanho, EmprestimoDTO::getId, Function.identity());
     }
 
-    public List<EmprestimoDTO> buscarAtrasados() {
-        return emprestimoRepository.findEmprestimosAtrasados(LocalDateTime.now()).stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    public PaginaDTO<EmprestimoDTO> buscarAtivosPorUsuario(Long usuarioId, String cursor, Integer limite) {
+        int tamanho = Paginacao.limite(limite);
+        List<EmprestimoDTO> emprestimos = emprestimoRepository.findPaginaAtivosByUsuario(
+                usuarioId, Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(emprestimos, tamanho, EmprestimoDTO::getId, Function.identity());
+    }
+
+    public PaginaDTO<EmprestimoDTO> buscarAtrasados(String cursor, Integer limite) {
+        int tamanho = Paginacao.limite(limite);
+        List<EmprestimoDTO> emprestimos = emprestimoRepository.findPaginaAtrasados(
+                Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(emprestimos, tamanho, EmprestimoDTO::getId, Function.identity());
     }
 
-    @Transactional
     public EmprestimoDTO emprestar(EmprestimoDTO emprestimoDTO) {
-        Livro livro = livroRepository.findById(emprestimoDTO.getLivroId())
-                .orElseThrow(() -> new RuntimeException("Livro não encontrado"));
+        if (alocador != null) {
+            return aguardar(alocador.submeter(emprestimoDTO.getLivroId(), emprestimoDTO));
+        }
+        EmprestimoDTO emprestimo = transactionTemplate.execute(status -> emprestarDireto(emprestimoDTO));
+        autocompletarService.emprestimosRegistrados(emprestimo.getLivroId(), 1);
+        return emprestimo;
+    }
+
+    private EmprestimoDTO emprestarDireto(EmprestimoDTO emprestimoDTO) {
+        Long livroId = emprestimoDTO.getLivroId();
 
         Usuario usuario = usuarioRepository.findById(emprestimoDTO.getUsuarioId())
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
 
-        if (!livro.isDisponivel()) {
-            throw new RuntimeException("Livro não está disponível para empréstimo");
-        }
-
         // Verificar se o usuário já tem muitos empréstimos ativos (máximo 3)
         Long emprestimosAtivos = emprestimoRepository.countEmprestimosAtivosByUsuario(usuario.getId());
         if (emprestimosAtivos >= 3) {
             throw new RuntimeException("Usuário já possui o máximo de empréstimos ativos (3)");
         }
 
+        // Reserva a cópia com um único UPDATE condicional, sem ler-modificar-gravar em memória
+        if (livroRepository.decrementarDisponivel(livroId, 1, LocalDateTime.now()) == 0) {
+            if (!livroRepository.existsById(livroId)) {
+                throw new RuntimeException("Livro não encontrado");
+            }
+            throw new RuntimeException("Livro não está disponível para empréstimo");
+        }
+        catalogoCache.invalidarLivro(livroId);
+        indiceCatalogo.copiasAlteradas(livroId, -1);
+        registroAlteracoes.salvo(RegistroAlteracoes.Recurso.LIVRO, livroId);
+        notificadorDisponibilidade.alterado(livroId);
+
+        Livro livro = livroRepository.getReferenceById(livroId);
         Emprestimo emprestimo = new Emprestimo(livro, usuario);
         emprestimo = emprestimoRepository.save(emprestimo);
-
-        // Atualizar quantidade disponível do livro
-        livro.emprestar();
-        livroRepository.save(livro);
+        motorAtrasos.agendar(emprestimo);
 
         return converterParaDTO(emprestimo);
     }
 
+    // Grava um lote do alocador em uma única transação, com um único UPDATE de quantidade no livro
+    private boolean gravarLote(Long livroId, List<AlocadorEmprestimos.Pedido> pedidos) {
+        tamanhoLote.record(pedidos.size());
+        List<AlocadorEmprestimos.Pedido> validos = new ArrayList<>();
+
+        List<EmprestimoDTO> gravados = transactionTemplate.execute(status -> {
+            Map<Long, Long> ativosPorUsuario = new HashMap<>();
+            List<Usuario> usuarios = new ArrayList<>();
+
+            for (AlocadorEmprestimos.Pedido pedido : pedidos) {
+                // Quem já desistiu por timeout recebeu 503 e pode repetir: o pedido dele não é gravado
+                if (!pedido.resultado.reservar()) {
+                    continue;
+                }
+                Optional<Usuario> usuario = usuarioRepository.findById(pedido.dados.getUsuarioId());
+                if (usuario.isEmpty()) {
+                    pedido.resultado.completeExceptionally(new RuntimeException("Usuário não encontrado"));
+                    continue;
+                }
+                long ativos = ativosPorUsuario.computeIfAbsent(usuario.get().getId(),
+                        emprestimoRepository::countEmprestimosAtivosByUsuario);
+                if (ativos >= 3) {
+                    pedido.resultado.completeExceptionally(
+                            new RuntimeException("Usuário já possui o máximo de empréstimos ativos (3)"));
+                    continue;
+                }
+                ativosPorUsuario.put(usuario.get().getId(), ativos + 1);
+                validos.add(pedido);
+                usuarios.add(usuario.get());
+            }
+
+            if (validos.isEmpty()) {
+                return List.of();
+            }
+            if (livroRepository.decrementarDisponivel(livroId, validos.size(), LocalDateTime.now()) == 0) {
+                validos.forEach(pedido -> pedido.resultado.liberar());
+                return null;
+            }
+            catalogoCache.invalidarLivro(livroId);
+            indiceCatalogo.copiasAlteradas(livroId, -validos.size());
+            registroAlteracoes.salvo(RegistroAlteracoes.Recurso.LIVRO, livroId);
+            notificadorDisponibilidade.alterado(livroId);
+
+            Livro livro = livroRepository.getReferenceById(livroId);
+            List<Emprestimo> emprestimos = usuarios.stream()
+                    .map(usuario -> new Emprestimo(livro, usuario))
+                    .collect(Collectors.toList());
+            List<Emprestimo> salvos = emprestimoRepository.saveAll(emprestimos);
+            salvos.forEach(motorAtrasos::agendar);
+            return salvos.stream()
+                    .map(this::converterParaDTO)
+                    .collect(Collectors.toList());
+        });
+
+        if (gravados == null) {
+            return false;
+        }
+        if (!gravados.isEmpty()) {
+            autocompletarService.emprestimosRegistrados(livroId, gravados.size());
+        }
+        // Cada chamador só recebe a resposta depois do commit do lote
+        for (int i = 0; i < gravados.size(); i++) {
+            validos.get(i).resultado.complete(gravados.get(i));
+        }
+        return true;
+    }
+
+    private EmprestimoDTO aguardar(CompletableFuture<EmprestimoDTO> resultado) {
+        try {
+            try {
+                return resultado.get(emprestimoConfig.getAlocadorTimeout(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Ainda na fila: o cancelamento garante que nenhum lote o grave depois do 503
+                if (resultado.cancel(false)) {
+                    throw new ServicoSobrecarregadoException("Tempo de espera do empréstimo esgotado, tente novamente", e);
+                }
+                // Um lote já está gravando o pedido: espera o commit em vez de esconder o empréstimo
+                return resultado.get(emprestimoConfig.getAlocadorTimeout(), TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException e) {
+            throw new ServicoSobrecarregadoException(
+                    "Empréstimo ainda em gravação, confira os empréstimos do usuário antes de repetir", e);
+        } catch (InterruptedException e) {
+            resultado.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ServicoSobrecarregadoException("Empréstimo interrompido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
     @Transactional
     public EmprestimoDTO devolver(Long emprestimoId) {
+        // Apenas uma devolução concorrente consegue encerrar o empréstimo e liberar a cópia
+        int encerrados = emprestimoRepository.marcarComoDevolvido(emprestimoId, LocalDateTime.now());
+
         Emprestimo emprestimo = emprestimoRepository.findById(emprestimoId)
                 .orElseThrow(() -> new RuntimeException("Empréstimo não encontrado"));
 
-        if (!emprestimo.isAtivo()) {
+        if (encerrados == 0) {
             throw new RuntimeException("Empréstimo já foi devolvido");
         }
-
-        emprestimo.devolver();
-        emprestimo = emprestimoRepository.save(emprestimo);
+        registroAlteracoes.salvo(RegistroAlteracoes.Recurso.EMPRESTIMO, emprestimoId);
 
         // Atualizar quantidade disponível do livro
-        Livro livro = emprestimo.getLivro();
-        livro.devolver();
-        livroRepository.save(livro);
+        Long livroId = emprestimo.getLivro().getId();
+        if (livroRepository.incrementarDisponivel(livroId, 1, LocalDateTime.now()) > 0) {
+            indiceCatalogo.copiasAlteradas(livroId, 1);
+            registroAlteracoes.salvo(RegistroAlteracoes.Recurso.LIVRO, livroId);
+        }
+        invalidarLivros(List.of(livroId));
 
         return converterParaDTO(emprestimo);
     }
 
+    // Empresta vários livros em uma transação; cada item falha isoladamente sem abortar o lote
+    @Transactional
+    public List<ItemLoteDTO> emprestarLote(List<EmprestimoDTO> itens) {
+        validarTamanhoLote(itens.size());
+
+        Set<Long> livroIds = itens.stream().map(EmprestimoDTO::getLivroId)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Long> usuarioIds = itens.stream().map(EmprestimoDTO::getUsuarioId)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+
+        // Map.of() lança NPE em get(null), e um item pode vir sem livroId
+        Map<Long, Livro> livros = livroIds.isEmpty() ? Collections.emptyMap() :
+                livroRepository.findAllByIdParaAtualizacao(livroIds).stream()
+                        .collect(Collectors.toMap(Livro::getId, Function.identity()));
+        Map<Long, Usuario> usuarios = usuarioRepository.findAllById(usuarioIds).stream()
+                .collect(Collectors.toMap(Usuario::getId, Function.identity()));
+        Map<Long, Long> ativosPorUsuario = new HashMap<>();
+        if (!usuarioIds.isEmpty()) {
+            emprestimoRepository.countEmprestimosAtivosByUsuarios(usuarioIds)
+                    .forEach(linha -> ativosPorUsuario.put((Long) linha[0], (Long) linha[1]));
+        }
+
+        ItemLoteDTO[] resultados = new ItemLoteDTO[itens.size()];
+        List<Emprestimo> novos = new ArrayList<>();
+        List<Integer> indicesNovos = new ArrayList<>();
+
+        for (int i = 0; i < itens.size(); i++) {
+            EmprestimoDTO item = itens.get(i);
+            Livro livro = livros.get(item.getLivroId());
+            Usuario usuario = usuarios.get(item.getUsuarioId());
+
+            if (livro == null) {
+                resultados[i] = ItemLoteDTO.falha(i, "Livro não encontrado");
+            } else if (usuario == null) {
+                resultados[i] = ItemLoteDTO.falha(i, "Usuário não encontrado");
+            } else if (ativosPorUsuario.getOrDefault(usuario.getId(), 0L) >= 3) {
+                resultados[i] = ItemLoteDTO.falha(i, "Usuário já possui o máximo de empréstimos ativos (3)");
+            } else if (!livro.isDisponivel()) {
+                resultados[i] = ItemLoteDTO.falha(i, "Livro não está disponível para empréstimo");
+            } else {
+                // Livros estão bloqueados nesta transação, então a alteração em memória é segura
+                livro.emprestar();
+                ativosPorUsuario.merge(usuario.getId(), 1L, Long::sum);
+                novos.add(new Emprestimo(livro, usuario));
+                indicesNovos.add(i);
+            }
+        }
+
+        List<Emprestimo> salvos = emprestimoRepository.saveAll(novos);
+        for (int j = 0; j < salvos.size(); j++) {
+            int indice = indicesNovos.get(j);
+            resultados[indice] = ItemLoteDTO.sucesso(indice, converterParaDTO(salvos.get(j)));
+            motorAtrasos.agendar(salvos.get(j));
+        }
+        salvos.stream()
+                .collect(Collectors.groupingBy(emprestimo -> emprestimo.getLivro().getId(), Collectors.counting()))
+                .forEach((livroId, quantidade) -> {
+                    autocompletarService.emprestimosRegistrados(livroId, quantidade.intValue());
+                    indiceCatalogo.copiasAlteradas(livroId, -quantidade.intValue());
+                });
+
+        invalidarLivros(livros.keySet());
+        return Arrays.asList(resultados);
+    }
+
+    // Devolve vários empréstimos em uma transação; cada item falha isoladamente sem abortar o lote
+    @Transactional
+    public List<ItemLoteDTO> devolverLote(List<Long> emprestimoIds) {
+        validarTamanhoLote(emprestimoIds.size());
+
+        Set<Long> ids = emprestimoIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Emprestimo> emprestimos = ids.isEmpty() ? Collections.emptyMap() :
+                emprestimoRepository.findAllByIdParaAtualizacao(ids).stream()
+                        .collect(Collectors.toMap(Emprestimo::getId, Function.identity()));
+
+        ItemLoteDTO[] resultados = new ItemLoteDTO[emprestimoIds.size()];
+        Map<Long, Integer> devolvidosPorLivro = new HashMap<>();
+        Map<Integer, Emprestimo> devolvidos = new LinkedHashMap<>();
+
+        for (int i = 0; i < emprestimoIds.size(); i++) {
+            Emprestimo emprestimo = emprestimos.get(emprestimoIds.get(i));
+            if (emprestimo == null) {
+                resultados[i] = ItemLoteDTO.falha(i, "Empréstimo não encontrado");
+            } else if (!emprestimo.isAtivo()) {
+                resultados[i] = ItemLoteDTO.falha(i, "Empréstimo já foi devolvido");
+            } else {
+                emprestimo.devolver();
+                devolvidosPorLivro.merge(emprestimo.getLivro().getId(), 1, Integer::sum);
+                devolvidos.put(i, emprestimo);
+            }
+        }
+
+        if (!devolvidosPorLivro.isEmpty()) {
+            for (Livro livro : livroRepository.findAllByIdParaAtualizacao(devolvidosPorLivro.keySet())) {
+                int liberadas = 0;
+                for (int k = devolvidosPorLivro.get(livro.getId()); k > 0 && livro.getQuantidadeDisponivel() < livro.getQuantidade(); k--) {
+                    livro.devolver();
+                    liberadas++;
+                }
+                indiceCatalogo.copiasAlteradas(livro.getId(), liberadas);
+            }
+        }
+
+        devolvidos.forEach((indice, emprestimo) ->
+                resultados[indice] = ItemLoteDTO.sucesso(indice, converterParaDTO(emprestimo)));
+
+        invalidarLivros(devolvidosPorLivro.keySet());
+        return Arrays.asList(resultados);
+    }
+
+    private void validarTamanhoLote(int tamanho) {
+        if (tamanho == 0 || tamanho > TAMANHO_MAXIMO_LOTE) {
+            throw new RuntimeException("Lote deve ter entre 1 e " + TAMANHO_MAXIMO_LOTE + " itens");
+        }
+    }
+
+    // Edições e remoções feitas pelo LivroService: o contador do alocador é descartado depois do commit,
+    // para que a recarga leia o livro já alterado
+    public void livroAlterado(Long livroId) {
+        if (alocador != null) {
+            AposCommit.executar(() -> alocador.invalidar(livroId));
+        }
+    }
+
+    // A quantidade disponível mudou fora do alocador: descarta o contador dele e a cópia do catálogo em cache
+    // e avisa quem assinou a disponibilidade desses livros. O contador só é descartado depois do commit; antes
+    // disso a recarga ainda leria a quantidade anterior
+    private void invalidarLivros(Collection<Long> livroIds) {
+        catalogoCache.invalidarLivros(livroIds);
+        notificadorDisponibilidade.alterados(livroIds);
+        if (alocador != null) {
+            List<Long> ids = List.copyOf(livroIds);
+            AposCommit.executar(() -> ids.forEach(alocador::invalidar));
+        }
+    }
+
+    // Escreve o histórico de empréstimos como NDJSON direto na saída, liberando as entidades do contexto a cada lote
+    @Transactional(readOnly = true)
+    public long exportar(OutputStream saida) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long total = 0;
+        try (Stream<Emprestimo> emprestimos = emprestimoRepository.streamTodos()) {
+            Iterator<Emprestimo> iterator = emprestimos.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(saida, converterParaDTO(iterator.next()));
+                saida.write('\n');
+                if (++total % TAMANHO_LOTE_EXPORTACAO == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return total;
+    }
+
     public boolean deletar(Long id) {
         if (emprestimoRepository.existsById(id)) {
             emprestimoRepository.deleteById(id);
@@ -134,6 +516,10 @@ public class EmprestimoService {
         return emprestimoRepository.countEmprestimosAtivosByLivro(livroId);
     }
 
+    public Long contarEmprestimosAtrasados() {
+        return emprestimoRepository.countEmprestimosAtrasados();
+    }
+
     private EmprestimoDTO converterParaDTO(Emprestimo emprestimo) {
         EmprestimoDTO dto = new EmprestimoDTO();
         dto.setId(emprestimo.getId());
@@ -0,0 +1,243 @@
+package com.biblioteca.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToLongBiFunction;
+
+// Busca tolerante a erros de digitação sobre o vocabulário de títulos e nomes. Um índice de trigramas
+// seleciona as palavras candidatas e só elas passam pelo cálculo de Levenshtein, sem varrer o vocabulário.
+class IndiceAproximado {
+
+    record Resultado(TrieAutocompletar.Tipo tipo, long id, String texto, double similaridade, long popularidade) {}
+
+    private record Chave(TrieAutocompletar.Tipo tipo, long id) {}
+
+    private record Documento(String texto, Set<String> palavras) {}
+
+    private record Semelhante(String palavra, double similaridade) {}
+
+    private record Candidato(Chave chave, double similaridade, long popularidade) {}
+
+    private static final int DISTANCIA_MAXIMA = 2;
+    private static final int TAMANHO_GRAMA = 3;
+    private static final String BORDA = "$$";
+
+    // Menor primeiro, para o heap: similaridade, popularidade e, no empate, o id mais antigo vence
+    private static final Comparator<Candidato> ORDEM = Comparator
+            .comparingDouble(Candidato::similaridade)
+            .thenComparingLong(Candidato::popularidade)
+            .thenComparing(candidato -> candidato.chave().id(), Comparator.reverseOrder());
+
+    private final Map<Chave, Documento> documentos = new HashMap<>();
+    private final Map<String, Set<Chave>> itensPorPalavra = new HashMap<>();
+    private final Map<String, Set<String>> palavrasPorTrigrama = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void inserir(TrieAutocompletar.Tipo tipo, long id, String texto) {
+        Chave chave = new Chave(tipo, id);
+        Documento documento = new Documento(texto, palavras(texto));
+        lock.writeLock().lock();
+        try {
+            removerSemLock(chave);
+            if (documento.palavras().isEmpty()) {
+                return;
+            }
+            documentos.put(chave, documento);
+            for (String palavra : documento.palavras()) {
+                itensPorPalavra.computeIfAbsent(palavra, p -> {
+                    trigramas(p).forEach(grama -> palavrasPorTrigrama.computeIfAbsent(grama, g -> new HashSet<>()).add(p));
+                    return new HashSet<>();
+                }).add(chave);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remover(TrieAutocompletar.Tipo tipo, long id) {
+        lock.writeLock().lock();
+        try {
+            removerSemLock(new Chave(tipo, id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int tamanhoVocabulario() {
+        lock.readLock().lock();
+        try {
+            return itensPorPalavra.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Cada palavra da consulta contribui com a melhor similaridade encontrada no item; empates vão para o mais emprestado
+    List<Resultado> buscar(String consulta, int limite, ToLongBiFunction<TrieAutocompletar.Tipo, Long> popularidade) {
+        Set<String> termos = palavras(consulta);
+        if (termos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Chave, Double> similaridades = new HashMap<>();
+            for (String termo : termos) {
+                Map<Chave, Double> melhorPorItem = termos.size() == 1 ? similaridades : new HashMap<>();
+                for (Semelhante semelhante : semelhantes(termo)) {
+                    for (Chave chave : itensPorPalavra.get(semelhante.palavra())) {
+                        melhorPorItem.merge(chave, semelhante.similaridade(), Math::max);
+                    }
+                }
+                if (melhorPorItem != similaridades) {
+                    melhorPorItem.forEach((chave, similaridade) -> similaridades.merge(chave, similaridade, Double::sum));
+                }
+            }
+
+            // Heap mínimo com os K melhores: palavras comuns casam com milhares de itens e ordenar todos custaria caro.
+            // O texto só é buscado para quem sobra no final.
+            PriorityQueue<Candidato> melhores = new PriorityQueue<>(limite + 1, ORDEM);
+            similaridades.forEach((chave, soma) -> {
+                double similaridade = soma / termos.size();
+                if (melhores.size() == limite && similaridade < melhores.peek().similaridade()) {
+                    return;
+                }
+                Candidato candidato = new Candidato(chave, similaridade, popularidade.applyAsLong(chave.tipo(), chave.id()));
+                if (melhores.size() == limite && ORDEM.compare(candidato, melhores.peek()) <= 0) {
+                    return;
+                }
+                melhores.add(candidato);
+                if (melhores.size() > limite) {
+                    melhores.poll();
+                }
+            });
+
+            List<Candidato> ordenados = new ArrayList<>(melhores);
+            ordenados.sort(ORDEM.reversed());
+            return ordenados.stream()
+                    .map(candidato -> new Resultado(candidato.chave().tipo(), candidato.chave().id(),
+                            documentos.get(candidato.chave()).texto(), candidato.similaridade(), candidato.popularidade()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Filtro de q-gramas: k edições destroem no máximo k * 3 trigramas, então quem compartilha menos que
+    // (trigramas da consulta - k * 3) não pode estar a distância k e nem chega ao Levenshtein
+    private List<Semelhante> semelhantes(String termo) {
+        int distancia = distanciaPermitida(termo);
+        List<String> gramas = trigramas(termo);
+        int minimoComum = gramas.size() - distancia * TAMANHO_GRAMA;
+
+        Map<String, Integer> comuns = new HashMap<>();
+        for (String grama : gramas) {
+            Set<String> palavras = palavrasPorTrigrama.get(grama);
+            if (palavras != null) {
+                for (String palavra : palavras) {
+                    if (Math.abs(palavra.length() - termo.length()) <= distancia) {
+                        comuns.merge(palavra, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        List<Semelhante> semelhantes = new ArrayList<>();
+        comuns.forEach((palavra, comum) -> {
+            if (comum < minimoComum) {
+                return;
+            }
+            int d = levenshtein(termo, palavra, distancia);
+            if (d <= distancia) {
+                semelhantes.add(new Semelhante(palavra, 1.0 - (double) d / Math.max(termo.length(), palavra.length())));
+            }
+        });
+        return semelhantes;
+    }
+
+    // Palavras curtas aceitam só um erro; com dois, quase qualquer palavra de três letras seria candidata
+    private static int distanciaPermitida(String termo) {
+        return termo.length() <= 4 ? 1 : DISTANCIA_MAXIMA;
+    }
+
+    // Levenshtein com uma linha por vez, abandonando o cálculo assim que a linha inteira passa do limite
+    static int levenshtein(String a, String b, int limite) {
+        int[] anterior = new int[b.length() + 1];
+        int[] atual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            atual[0] = i;
+            int menor = atual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int custo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                atual[j] = Math.min(Math.min(atual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + custo);
+                menor = Math.min(menor, atual[j]);
+            }
+            if (menor > limite) {
+                return limite + 1;
+            }
+            int[] troca = anterior;
+            anterior = atual;
+            atual = troca;
+        }
+        return anterior[b.length()];
+    }
+
+    private void removerSemLock(Chave chave) {
+        Documento documento = documentos.remove(chave);
+        if (documento == null) {
+            return;
+        }
+        for (String palavra : documento.palavras()) {
+            Set<Chave> itens = itensPorPalavra.get(palavra);
+            if (itens == null) {
+                continue;
+            }
+            itens.remove(chave);
+            if (itens.isEmpty()) {
+                itensPorPalavra.remove(palavra);
+                for (String grama : trigramas(palavra)) {
+                    Set<String> palavras = palavrasPorTrigrama.get(grama);
+                    if (palavras != null && palavras.remove(palavra) && palavras.isEmpty()) {
+                        palavrasPorTrigrama.remove(grama);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> palavras(String texto) {
+        Set<String> palavras = new LinkedHashSet<>();
+        String normalizado = TrieAutocompletar.normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return palavras;
+        }
+        for (String palavra : normalizado.split(" ")) {
+            if (palavra.length() > 1 && !IndiceInvertido.stopword(palavra)) {
+                palavras.add(palavra);
+            }
+        }
+        return palavras;
+    }
+
+    // Trigramas com borda nas duas pontas, para que início e fim da palavra também pesem na comparação
+    private static List<String> trigramas(String palavra) {
+        String comBorda = BORDA + palavra + BORDA;
+        List<String> gramas = new ArrayList<>(comBorda.length() - TAMANHO_GRAMA + 1);
+        for (int i = 0; i + TAMANHO_GRAMA <= comBorda.length(); i++) {
+            gramas.add(comBorda.substring(i, i + TAMANHO_GRAMA));
+        }
+        return gramas;
+    }
+}
@@ -0,0 +1,357 @@
+package com.biblioteca.service;
+
+import com.biblioteca.repository.LivroRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Bitmaps dos ids de livros: todos, os que têm cópia disponível, os de cada autor e os de cada ano de publicação.
+// Filtros, contagens e facetas viram operações entre bitmaps em vez de varreduras da tabela livros.
+@Component
+public class IndiceCatalogo {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceCatalogo.class);
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final BitmapCompactado todos = new BitmapCompactado();
+    private final BitmapCompactado disponiveis = new BitmapCompactado();
+    private final Map<Long, BitmapCompactado> porAutor = new HashMap<>();
+    private final NavigableMap<Integer, BitmapCompactado> porAno = new TreeMap<>();
+    private final MapaLongLong autorPorLivro = new MapaLongLong();
+    private final MapaLongLong anoPorLivro = new MapaLongLong();
+    private final MapaLongLong copiasPorLivro = new MapaLongLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Resultado de um filtro: os ids que passam em todos os critérios e, em cada faceta, as contagens
+    // com os demais critérios aplicados (a faceta não se filtra por ela mesma, para mostrar as alternativas)
+    record Filtro(BitmapCompactado ids, Map<Long, Long> porAutor, Map<Integer, Long> porDecada,
+                  long disponiveis, long indisponiveis) {}
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("catalogo.facetas.memoria", this, IndiceCatalogo::memoriaEstimada)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            todos.limpar();
+            disponiveis.limpar();
+            porAutor.clear();
+            porAno.clear();
+            autorPorLivro.clear();
+            anoPorLivro.clear();
+            copiasPorLivro.clear();
+            try (Stream<Object[]> linhas = livroRepository.streamFacetas()) {
+                linhas.forEach(linha -> incluir((Long) linha[0], (Long) linha[1], (Integer) linha[3], (Integer) linha[2]));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Índice do catálogo reconstruído com {} livros em {} ms",
+                contar(true, null) + contar(false, null), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    public void livroSalvo(Long livroId, Long autorId, Integer anoPublicacao, Integer quantidadeDisponivel) {
+        AposCommit.executar(() -> {
+            lock.writeLock().lock();
+            try {
+                excluir(livroId);
+                incluir(livroId, autorId, anoPublicacao, quantidadeDisponivel);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // Empréstimos e devoluções chegam como variação de cópias, não como o saldo lido na transação: os callbacks
+    // pós-commit de transações concorrentes rodam em qualquer ordem, e só a soma sem limites comuta. Um saldo
+    // intermediário pode ficar negativo; o final é o do banco. Livros fora do índice são ignorados.
+    public void copiasAlteradas(Long livroId, int variacao) {
+        AposCommit.executar(() -> {
+            lock.writeLock().lock();
+            try {
+                int id = BitmapCompactado.valor(livroId);
+                if (!todos.contem(id)) {
+                    return;
+                }
+                long copias = copiasPorLivro.get(livroId) + variacao;
+                copiasPorLivro.put(livroId, copias);
+                if (copias > 0) {
+                    disponiveis.adicionar(id);
+                } else {
+                    disponiveis.remover(id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void livroRemovido(Long livroId) {
+        AposCommit.executar(() -> {
+            lock.writeLock().lock();
+            try {
+                excluir(livroId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // A exclusão do autor apaga os livros dele em cascata
+    public void autorRemovido(Long autorId) {
+        AposCommit.executar(() -> {
+            lock.writeLock().lock();
+            try {
+                BitmapCompactado livros = porAutor.get(autorId);
+                if (livros != null) {
+                    for (int id : livros.proximos(-1, (int) livros.cardinalidade())) {
+                        excluir((long) id);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public boolean disponivel(Long livroId) {
+        lock.readLock().lock();
+        try {
+            return disponiveis.contem(BitmapCompactado.valor(livroId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids depois de `aposId`, em ordem, dos livros disponíveis (ou indisponíveis), opcionalmente de um autor
+    public List<Long> proximos(boolean disponivel, Long autorId, long aposId, int limite) {
+        lock.readLock().lock();
+        try {
+            int[] ids = conjunto(disponivel, autorId).proximos(aposId, limite);
+            List<Long> resultado = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                resultado.add((long) id);
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long contar(boolean disponivel, Long autorId) {
+        lock.readLock().lock();
+        try {
+            BitmapCompactado universo = autorId == null ? todos : porAutor.get(autorId);
+            if (universo == null) {
+                return 0;
+            }
+            long comCopia = universo == todos ? disponiveis.cardinalidade() : universo.cardinalidadeE(disponiveis);
+            return disponivel ? comCopia : universo.cardinalidade() - comCopia;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Critérios nulos não filtram. O texto já chega resolvido em ids, vindo do índice invertido.
+    Filtro filtrar(Long autorId, Integer anoDe, Integer anoAte, Boolean disponivel, BitmapCompactado texto,
+                   int limiteAutores) {
+        lock.readLock().lock();
+        try {
+            BitmapCompactado doAutor = autorId == null ? null : porAutor.getOrDefault(autorId, new BitmapCompactado());
+            BitmapCompactado dosAnos = anoDe == null && anoAte == null ? null : anos(anoDe, anoAte);
+            BitmapCompactado daDisponibilidade = disponivel == null ? null
+                    : disponivel ? disponiveis : todos.eNao(disponiveis);
+
+            BitmapCompactado semAutor = cruzar(dosAnos, daDisponibilidade, texto);
+            BitmapCompactado semAno = cruzar(doAutor, daDisponibilidade, texto);
+            BitmapCompactado semDisponibilidade = cruzar(doAutor, dosAnos, texto);
+            BitmapCompactado ids = cruzar(semDisponibilidade, daDisponibilidade);
+
+            long comCopia = contarEm(semDisponibilidade, disponiveis);
+            return new Filtro(
+                    ids == todos || ids == disponiveis || ids == doAutor ? ids.copia() : ids,
+                    contarPorAutor(semAutor, limiteAutores),
+                    contarPorDecada(semAno),
+                    comCopia,
+                    semDisponibilidade.cardinalidade() - comCopia);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // União em pares, para não recopiar o acumulado a cada ano do intervalo
+    private BitmapCompactado anos(Integer anoDe, Integer anoAte) {
+        int de = anoDe == null ? Integer.MIN_VALUE : anoDe;
+        int ate = anoAte == null ? Integer.MAX_VALUE : anoAte;
+        if (de > ate) {
+            return new BitmapCompactado();
+        }
+        List<BitmapCompactado> partes = new ArrayList<>(porAno.subMap(de, true, ate, true).values());
+        if (partes.size() <= 1) {
+            return partes.isEmpty() ? new BitmapCompactado() : partes.get(0).copia();
+        }
+        while (partes.size() > 1) {
+            List<BitmapCompactado> unidas = new ArrayList<>((partes.size() + 1) / 2);
+            for (int i = 0; i + 1 < partes.size(); i += 2) {
+                unidas.add(partes.get(i).ou(partes.get(i + 1)));
+            }
+            if (partes.size() % 2 == 1) {
+                unidas.add(partes.get(partes.size() - 1));
+            }
+            partes = unidas;
+        }
+        return partes.get(0);
+    }
+
+    // Interseção dos critérios informados, começando pelo menor; sem nenhum, o universo é o catálogo todo
+    private BitmapCompactado cruzar(BitmapCompactado... conjuntos) {
+        BitmapCompactado resultado = null;
+        for (BitmapCompactado conjunto : conjuntos) {
+            if (conjunto == null || conjunto == todos) {
+                continue;
+            }
+            if (resultado == null) {
+                resultado = conjunto;
+            } else {
+                resultado = resultado.cardinalidade() <= conjunto.cardinalidade()
+                        ? resultado.e(conjunto) : conjunto.e(resultado);
+            }
+        }
+        return resultado == null ? todos : resultado;
+    }
+
+    private long contarEm(BitmapCompactado base, BitmapCompactado conjunto) {
+        return base == todos ? conjunto.cardinalidade() : base.cardinalidadeE(conjunto);
+    }
+
+    // Com poucos livros na base sai mais barato olhar o autor de cada um do que cruzar com o bitmap de cada autor
+    private Map<Long, Long> contarPorAutor(BitmapCompactado base, int limite) {
+        Map<Long, Long> contagens = new HashMap<>();
+        if (base.cardinalidade() < porAutor.size()) {
+            for (int id : base.proximos(-1, (int) base.cardinalidade())) {
+                contagens.merge(autorPorLivro.get(id), 1L, Long::sum);
+            }
+        } else {
+            porAutor.forEach((autorId, livros) -> {
+                long quantidade = contarEm(base, livros);
+                if (quantidade > 0) {
+                    contagens.put(autorId, quantidade);
+                }
+            });
+        }
+        Map<Long, Long> maiores = new LinkedHashMap<>();
+        contagens.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limite)
+                .forEach(entrada -> maiores.put(entrada.getKey(), entrada.getValue()));
+        return maiores;
+    }
+
+    private Map<Integer, Long> contarPorDecada(BitmapCompactado base) {
+        Map<Integer, Long> contagens = new LinkedHashMap<>();
+        porAno.forEach((ano, livros) -> {
+            long quantidade = contarEm(base, livros);
+            if (quantidade > 0) {
+                contagens.merge(ano - Math.floorMod(ano, 10), quantidade, Long::sum);
+            }
+        });
+        return contagens;
+    }
+
+    private BitmapCompactado conjunto(boolean disponivel, Long autorId) {
+        BitmapCompactado universo = autorId == null ? todos : porAutor.get(autorId);
+        if (universo == null) {
+            return new BitmapCompactado();
+        }
+        if (disponivel) {
+            return universo == todos ? disponiveis : universo.e(disponiveis);
+        }
+        return universo.eNao(disponiveis);
+    }
+
+    // Um id acima de Integer.MAX_VALUE não cabe nos bitmaps: o livro fica fora dos filtros e contagens
+    // (e aparece como indisponível para eles) em vez de derrubar a reconstrução ou o callback pós-commit
+    private void incluir(Long livroId, Long autorId, Integer anoPublicacao, Integer quantidadeDisponivel) {
+        int id = BitmapCompactado.valor(livroId);
+        if (id == BitmapCompactado.FORA_DA_FAIXA) {
+            logger.warn("Livro {} fora da faixa de ids dos bitmaps do catálogo; ignorado nos filtros", livroId);
+            return;
+        }
+        int copias = quantidadeDisponivel == null ? 0 : quantidadeDisponivel;
+        todos.adicionar(id);
+        copiasPorLivro.put(livroId, copias);
+        if (copias > 0) {
+            disponiveis.adicionar(id);
+        }
+        porAutor.computeIfAbsent(autorId, chave -> new BitmapCompactado()).adicionar(id);
+        autorPorLivro.put(livroId, autorId);
+        if (anoPublicacao != null) {
+            porAno.computeIfAbsent(anoPublicacao, chave -> new BitmapCompactado()).adicionar(id);
+            anoPorLivro.put(livroId, anoPublicacao);
+        }
+    }
+
+    private void excluir(Long livroId) {
+        int id = BitmapCompactado.valor(livroId);
+        if (id == BitmapCompactado.FORA_DA_FAIXA) {
+            return;
+        }
+        todos.remover(id);
+        disponiveis.remover(id);
+        copiasPorLivro.remove(livroId);
+        long autorId = autorPorLivro.remove(livroId);
+        BitmapCompactado doAutor = porAutor.get(autorId);
+        if (doAutor != null && doAutor.remover(id) && doAutor.cardinalidade() == 0) {
+            porAutor.remove(autorId);
+        }
+        long ano = anoPorLivro.remove(livroId);
+        BitmapCompactado doAno = ano == MapaLongLong.AUSENTE ? null : porAno.get((int) ano);
+        if (doAno != null && doAno.remover(id) && doAno.cardinalidade() == 0) {
+            porAno.remove((int) ano);
+        }
+    }
+
+    private long memoriaEstimada() {
+        lock.readLock().lock();
+        try {
+            long bytes = todos.memoriaEstimada() + disponiveis.memoriaEstimada()
+                    + autorPorLivro.memoriaEstimada() + anoPorLivro.memoriaEstimada() + copiasPorLivro.memoriaEstimada();
+            for (BitmapCompactado livros : porAutor.values()) {
+                bytes += livros.memoriaEstimada();
+            }
+            for (BitmapCompactado livros : porAno.values()) {
+                bytes += livros.memoriaEstimada();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
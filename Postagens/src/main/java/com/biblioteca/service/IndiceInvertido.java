@@ -0,0 +1,331 @@
+package com.biblioteca.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Índice invertido em memória com posições por campo, ranqueado por BM25.
+// Cada documento é um livro; nome e biografia do autor entram como campos do próprio livro.
+class IndiceInvertido {
+
+    enum Campo {
+        TITULO(3.0), AUTOR_NOME(2.0), SINOPSE(1.0), AUTOR_BIOGRAFIA(0.5);
+
+        final double peso;
+
+        Campo(double peso) {
+            this.peso = peso;
+        }
+    }
+
+    record Resultado(long livroId, double pontuacao) {}
+
+    private record Token(String termo, int posicao) {}
+
+    private record Documento(long autorId, int[] comprimentos, Set<String> termos) {}
+
+    private static final Campo[] CAMPOS = Campo.values();
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Pattern FRASE = Pattern.compile("\"([^\"]+)\"");
+    private static final Pattern SEPARADOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas", "e", "ou", "de", "da", "do", "das", "dos",
+            "em", "no", "na", "nos", "nas", "por", "para", "com", "sem", "que", "se", "ao", "aos", "the", "of");
+
+    // termo -> livro -> posições do termo em cada campo (null quando o termo não aparece no campo)
+    private final Map<String, Map<Long, int[][]>> postings = new HashMap<>();
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    private final long[] comprimentoTotal = new long[CAMPOS.length];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void indexar(long livroId, long autorId, String titulo, String sinopse, String autorNome, String autorBiografia) {
+        String[] textos = new String[CAMPOS.length];
+        textos[Campo.TITULO.ordinal()] = titulo;
+        textos[Campo.SINOPSE.ordinal()] = sinopse;
+        textos[Campo.AUTOR_NOME.ordinal()] = autorNome;
+        textos[Campo.AUTOR_BIOGRAFIA.ordinal()] = autorBiografia;
+
+        // A tokenização acontece fora do lock; só a troca das postings é exclusiva
+        Map<String, List<Integer>[]> posicoesPorTermo = new HashMap<>();
+        int[] comprimentos = new int[CAMPOS.length];
+        for (Campo campo : CAMPOS) {
+            List<Token> tokens = tokenizar(textos[campo.ordinal()]);
+            comprimentos[campo.ordinal()] = tokens.size();
+            for (Token token : tokens) {
+                @SuppressWarnings("unchecked")
+                List<Integer>[] porCampo = posicoesPorTermo.computeIfAbsent(token.termo(), t -> new List[CAMPOS.length]);
+                if (porCampo[campo.ordinal()] == null) {
+                    porCampo[campo.ordinal()] = new ArrayList<>();
+                }
+                porCampo[campo.ordinal()].add(token.posicao());
+            }
+        }
+
+        Map<String, int[][]> novas = new HashMap<>();
+        posicoesPorTermo.forEach((termo, porCampo) -> {
+            int[][] posicoes = new int[CAMPOS.length][];
+            for (int c = 0; c < CAMPOS.length; c++) {
+                if (porCampo[c] != null) {
+                    posicoes[c] = porCampo[c].stream().mapToInt(Integer::intValue).toArray();
+                }
+            }
+            novas.put(termo, posicoes);
+        });
+
+        lock.writeLock().lock();
+        try {
+            removerSemLock(livroId);
+            novas.forEach((termo, posicoes) -> postings.computeIfAbsent(termo, t -> new HashMap<>()).put(livroId, posicoes));
+            documentos.put(livroId, new Documento(autorId, comprimentos, novas.keySet()));
+            for (int c = 0; c < CAMPOS.length; c++) {
+                comprimentoTotal[c] += comprimentos[c];
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remover(long livroId) {
+        lock.writeLock().lock();
+        try {
+            removerSemLock(livroId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removerAutor(long autorId) {
+        lock.writeLock().lock();
+        try {
+            List<Long> livros = documentos.entrySet().stream()
+                    .filter(entrada -> entrada.getValue().autorId() == autorId)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            livros.forEach(this::removerSemLock);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void limpar() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentos.clear();
+            Arrays.fill(comprimentoTotal, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int tamanho() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Termos soltos somam pontuação; trechos entre aspas também exigem os termos em sequência no mesmo campo
+    List<Resultado> pesquisar(String consulta, int limite) {
+        return pesquisar(consulta, limite, livroId -> true);
+    }
+
+    // O filtro corre antes do heap, então os K resultados já são os K melhores entre os que passam nele
+    List<Resultado> pesquisar(String consulta, int limite, LongPredicate filtro) {
+        List<List<Token>> frases = frases(consulta);
+        Set<String> termos = termos(consulta);
+        if (termos.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int totalDocumentos = documentos.size();
+            double[] comprimentoMedio = new double[CAMPOS.length];
+            for (int c = 0; c < CAMPOS.length; c++) {
+                comprimentoMedio[c] = totalDocumentos == 0 ? 0 : (double) comprimentoTotal[c] / totalDocumentos;
+            }
+
+            Map<Long, Double> pontuacoes = new HashMap<>();
+            for (String termo : termos) {
+                Map<Long, int[][]> lista = postings.get(termo);
+                if (lista == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (totalDocumentos - lista.size() + 0.5) / (lista.size() + 0.5));
+                lista.forEach((livroId, posicoes) -> {
+                    int[] comprimentos = documentos.get(livroId).comprimentos();
+                    double pontuacao = 0;
+                    for (int c = 0; c < CAMPOS.length; c++) {
+                        if (posicoes[c] == null) {
+                            continue;
+                        }
+                        int frequencia = posicoes[c].length;
+                        double normalizacao = 1 - B + B * comprimentos[c] / Math.max(comprimentoMedio[c], 1);
+                        pontuacao += CAMPOS[c].peso * idf * frequencia * (K1 + 1) / (frequencia + K1 * normalizacao);
+                    }
+                    pontuacoes.merge(livroId, pontuacao, Double::sum);
+                });
+            }
+
+            // Mantém apenas os K melhores em um heap mínimo, sem ordenar todos os candidatos
+            Comparator<Resultado> ordem = Comparator.comparingDouble(Resultado::pontuacao)
+                    .thenComparing(Resultado::livroId, Comparator.reverseOrder());
+            PriorityQueue<Resultado> melhores = new PriorityQueue<>(limite + 1, ordem);
+            pontuacoes.forEach((livroId, pontuacao) -> {
+                if (!filtro.test(livroId) || !frases.stream().allMatch(frase -> contemFrase(livroId, frase))) {
+                    return;
+                }
+                melhores.add(new Resultado(livroId, pontuacao));
+                if (melhores.size() > limite) {
+                    melhores.poll();
+                }
+            });
+
+            List<Resultado> resultado = new ArrayList<>(melhores);
+            resultado.sort(ordem.reversed());
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Todos os livros que a consulta encontraria, sem ranquear; serve para cruzar a pesquisa com outros filtros
+    BitmapCompactado correspondentes(String consulta) {
+        List<List<Token>> frases = frases(consulta);
+        BitmapCompactado resultado = new BitmapCompactado();
+        lock.readLock().lock();
+        try {
+            for (String termo : termos(consulta)) {
+                Map<Long, int[][]> lista = postings.get(termo);
+                if (lista == null) {
+                    continue;
+                }
+                for (Long livroId : lista.keySet()) {
+                    // Fora da faixa do bitmap: o livro também não está no índice do catálogo, então não cruzaria
+                    int id = BitmapCompactado.valor(livroId);
+                    if (id != BitmapCompactado.FORA_DA_FAIXA && !resultado.contem(id) && frases.stream().allMatch(frase -> contemFrase(livroId, frase))) {
+                        resultado.adicionar(id);
+                    }
+                }
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<List<Token>> frases(String consulta) {
+        List<List<Token>> frases = new ArrayList<>();
+        Matcher matcher = FRASE.matcher(consulta);
+        while (matcher.find()) {
+            List<Token> frase = tokenizar(matcher.group(1));
+            if (!frase.isEmpty()) {
+                frases.add(frase);
+            }
+        }
+        return frases;
+    }
+
+    private static Set<String> termos(String consulta) {
+        Set<String> termos = new HashSet<>();
+        tokenizar(consulta).forEach(token -> termos.add(token.termo()));
+        return termos;
+    }
+
+    private boolean contemFrase(long livroId, List<Token> frase) {
+        int[][][] posicoesPorTermo = new int[frase.size()][][];
+        for (int i = 0; i < frase.size(); i++) {
+            Map<Long, int[][]> lista = postings.get(frase.get(i).termo());
+            posicoesPorTermo[i] = lista == null ? null : lista.get(livroId);
+            if (posicoesPorTermo[i] == null) {
+                return false;
+            }
+        }
+        for (int c = 0; c < CAMPOS.length; c++) {
+            int[] inicio = posicoesPorTermo[0][c];
+            if (inicio == null) {
+                continue;
+            }
+            for (int posicao : inicio) {
+                boolean encontrou = true;
+                for (int i = 1; i < frase.size() && encontrou; i++) {
+                    int[] seguinte = posicoesPorTermo[i][c];
+                    int esperada = posicao + frase.get(i).posicao() - frase.get(0).posicao();
+                    encontrou = seguinte != null && Arrays.binarySearch(seguinte, esperada) >= 0;
+                }
+                if (encontrou) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void removerSemLock(long livroId) {
+        Documento documento = documentos.remove(livroId);
+        if (documento == null) {
+            return;
+        }
+        for (String termo : documento.termos()) {
+            Map<Long, int[][]> lista = postings.get(termo);
+            if (lista != null) {
+                lista.remove(livroId);
+                if (lista.isEmpty()) {
+                    postings.remove(termo);
+                }
+            }
+        }
+        for (int c = 0; c < CAMPOS.length; c++) {
+            comprimentoTotal[c] -= documento.comprimentos()[c];
+        }
+    }
+
+    static String normalizar(String texto) {
+        return DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    static boolean stopword(String termo) {
+        return STOPWORDS.contains(termo);
+    }
+
+    // Minúsculas e sem acentos; stopwords são descartadas, mas contam posição para que frases continuem alinhadas
+    static List<Token> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String normalizado = normalizar(texto);
+        List<Token> tokens = new ArrayList<>();
+        int posicao = 0;
+        for (String termo : SEPARADOR.split(normalizado)) {
+            if (termo.isEmpty()) {
+                continue;
+            }
+            if (!STOPWORDS.contains(termo)) {
+                tokens.add(new Token(termo, posicao));
+            }
+            posicao++;
+        }
+        return tokens;
+    }
+}
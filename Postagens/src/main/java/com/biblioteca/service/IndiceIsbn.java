@@ -0,0 +1,215 @@
+package com.biblioteca.service;
+
+import com.biblioteca.repository.LivroRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// ISBN normalizado (ISBN-13 como número) -> id do livro, inteiro em memória. Um acerto dispensa o banco
+// na leitura por ISBN e na checagem de ISBN duplicado; uma falta ainda consulta o banco.
+@Component
+public class IndiceIsbn {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceIsbn.class);
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final MapaLongLong livroIdPorIsbn = new MapaLongLong();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("catalogo.isbn.itens", this, IndiceIsbn::tamanho).register(meterRegistry);
+        Gauge.builder("catalogo.isbn.memoria", this, IndiceIsbn::memoriaEstimada)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            livroIdPorIsbn.clear();
+            try (Stream<Object[]> linhas = livroRepository.streamIdsEIsbns()) {
+                linhas.forEach(linha -> {
+                    long isbn = normalizar((String) linha[1]);
+                    if (isbn != MapaLongLong.AUSENTE) {
+                        livroIdPorIsbn.put(isbn, (Long) linha[0]);
+                    }
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Índice de ISBN reconstruído com {} livros em {} ms",
+                tamanho(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    public Long livroId(String isbn) {
+        long chave = normalizar(isbn);
+        if (chave == MapaLongLong.AUSENTE) {
+            return null;
+        }
+        long id;
+        lock.readLock().lock();
+        try {
+            id = livroIdPorIsbn.get(chave);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return id == MapaLongLong.AUSENTE ? null : id;
+    }
+
+    // A inclusão espera o commit, para que um rollback não deixe um ISBN fantasma barrando cadastros
+    public void indexar(String isbn, Long livroId) {
+        long chave = normalizar(isbn);
+        if (chave == MapaLongLong.AUSENTE) {
+            return;
+        }
+        AposCommit.executar(() -> {
+            lock.writeLock().lock();
+            try {
+                livroIdPorIsbn.put(chave, livroId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // A remoção é imediata; se a transação voltar atrás, a próxima leitura pelo banco reindexa o livro
+    public void remover(String isbn, Long livroId) {
+        long chave = normalizar(isbn);
+        if (chave == MapaLongLong.AUSENTE) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (livroIdPorIsbn.get(chave) == livroId) {
+                livroIdPorIsbn.remove(chave);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A exclusão do autor apaga os livros dele em cascata; chamado antes, enquanto os livros ainda existem
+    public void removerAutor(Long autorId) {
+        livroRepository.findIdsEIsbnsByAutorId(autorId)
+                .forEach(linha -> remover((String) linha[1], (Long) linha[0]));
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return livroIdPorIsbn.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long memoriaEstimada() {
+        lock.readLock().lock();
+        try {
+            return livroIdPorIsbn.memoriaEstimada();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static boolean mesmoIsbn(String a, String b) {
+        long normalizadoA = normalizar(a);
+        return normalizadoA == MapaLongLong.AUSENTE ? Objects.equals(a, b) : normalizadoA == normalizar(b);
+    }
+
+    // Formas em que o mesmo ISBN pode estar gravado: como informado, ISBN-13 e, para o prefixo 978, ISBN-10
+    public static Set<String> formas(String isbn) {
+        Set<String> formas = new LinkedHashSet<>();
+        formas.add(isbn);
+        long normalizado = normalizar(isbn);
+        if (normalizado == MapaLongLong.AUSENTE) {
+            return formas;
+        }
+        String isbn13 = Long.toString(normalizado);
+        formas.add(isbn13);
+        if (isbn13.startsWith("978")) {
+            String corpo = isbn13.substring(3, 12);
+            int soma = 0;
+            for (int i = 0; i < 9; i++) {
+                soma += (corpo.charAt(i) - '0') * (10 - i);
+            }
+            int verificador = (11 - soma % 11) % 11;
+            formas.add(corpo + (verificador == 10 ? "X" : Integer.toString(verificador)));
+        }
+        return formas;
+    }
+
+    // Aceita ISBN-10 e ISBN-13, com ou sem hífens e espaços. O ISBN-10 vira o ISBN-13 equivalente
+    // (prefixo 978 e novo dígito verificador) só se o próprio dígito verificador confere: um ISBN-10 digitado
+    // errado não pode colidir com o ISBN-13 de outro livro. Retorna AUSENTE quando o texto não é um ISBN.
+    static long normalizar(String isbn) {
+        if (isbn == null) {
+            return MapaLongLong.AUSENTE;
+        }
+        char[] digitos = new char[13];
+        int quantidade = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            boolean verificadorIsbn10 = (c == 'X' || c == 'x') && quantidade == 9;
+            if (quantidade == 13 || (!verificadorIsbn10 && (c < '0' || c > '9'))) {
+                return MapaLongLong.AUSENTE;
+            }
+            digitos[quantidade++] = c;
+        }
+
+        long numero = 0;
+        if (quantidade == 13 && Character.isDigit(digitos[9])) {
+            for (char digito : digitos) {
+                numero = numero * 10 + (digito - '0');
+            }
+            return numero == 0 ? MapaLongLong.AUSENTE : numero;
+        }
+        if (quantidade != 10) {
+            return MapaLongLong.AUSENTE;
+        }
+
+        // ISBN-10: soma com pesos 10 a 1, múltipla de 11; X vale 10
+        int verificacao = 0;
+        for (int i = 0; i < 10; i++) {
+            int digito = Character.isDigit(digitos[i]) ? digitos[i] - '0' : 10;
+            verificacao += digito * (10 - i);
+        }
+        if (verificacao % 11 != 0) {
+            return MapaLongLong.AUSENTE;
+        }
+
+        // O dígito verificador do ISBN-10 é descartado; o do ISBN-13 é recalculado com pesos 1 e 3
+        numero = 978;
+        int soma = 9 + 7 * 3 + 8;
+        for (int i = 0; i < 9; i++) {
+            int digito = digitos[i] - '0';
+            numero = numero * 10 + digito;
+            soma += digito * (i % 2 == 0 ? 3 : 1);
+        }
+        return numero * 10 + (10 - soma % 10) % 10;
+    }
+}
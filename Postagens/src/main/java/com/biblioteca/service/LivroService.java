@@ -1,102 +1,319 @@
 package com.biblioteca.service;
 
+import com.biblioteca.dto.AlteracoesDTO;
+import com.biblioteca.dto.FiltroLivrosDTO;
 import com.biblioteca.dto.LivroDTO;
+import com.biblioteca.dto.PaginaDTO;
 import com.biblioteca.entity.Autor;
 import com.biblioteca.entity.Livro;
 import com.biblioteca.repository.AutorRepository;
 import com.biblioteca.repository.LivroRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class LivroService {
 
+    private static final int TAMANHO_LOTE_EXPORTACAO = 500;
+    private static final int LIMITE_PESQUISA_PADRAO = 10;
+    private static final int LIMITE_PESQUISA_MAXIMO = 100;
+    private static final int LIMITE_FACETA_AUTORES = 20;
+
     @Autowired
     private LivroRepository livroRepository;
 
     @Autowired
     private AutorRepository autorRepository;
 
-    public List<LivroDTO> listarTodos() {
-        return livroRepository.findAll().stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private IndiceIsbn indiceIsbn;
+
+    @Autowired
+    private IndiceCatalogo indiceCatalogo;
+
+    @Autowired
+    private PesquisaService pesquisaService;
+
+    @Autowired
+    private AutocompletarService autocompletarService;
+
+    @Autowired
+    private RegistroAlteracoes registroAlteracoes;
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public PaginaDTO<LivroDTO> listarTodos(String cursor, Integer limite) {
+        int tamanho = Paginacao.limite(limite);
+        List<Livro> livros = livroRepository.findPagina(Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(livros, tamanho, Livro::getId, this::converterParaDTO);
     }
 
     public Optional<LivroDTO> buscarPorId(Long id) {
-        return livroRepository.findById(id)
-                .map(this::converterParaDTO);
+        return catalogoCache.livro(id, chave -> livroRepository.findComAutorById(chave).map(this::converterParaDTO));
+    }
+
+    public Optional<RespostaSerializada> buscarSerializadoPorId(Long id) {
+        return catalogoCache.livroSerializado(id, () -> buscarPorId(id));
     }
 
+    public AlteracoesDTO<LivroDTO> listarAlteracoes(String desde, Integer limite) {
+        return registroAlteracoes.alteracoes(RegistroAlteracoes.Recurso.LIVRO, desde, limite, this::carregar);
+    }
+
+    // O ISBN só aponta para o id; o livro em si vem do cache por id, que é o que as escritas invalidam.
+    // ISBN-10 e ISBN-13 do mesmo livro caem na mesma entrada do índice.
     public Optional<LivroDTO> buscarPorIsbn(String isbn) {
-        return livroRepository.findByIsbn(isbn)
+        Long id = indiceIsbn.livroId(isbn);
+        if (id != null) {
+            Optional<LivroDTO> livro = buscarPorId(id).filter(dto -> IndiceIsbn.mesmoIsbn(isbn, dto.getIsbn()));
+            if (livro.isPresent()) {
+                return livro;
+            }
+            indiceIsbn.remover(isbn, id);
+        }
+        Optional<LivroDTO> livro = livroRepository.findByIsbnIn(IndiceIsbn.formas(isbn)).stream()
+                .findFirst()
                 .map(this::converterParaDTO);
+        livro.ifPresent(dto -> indiceIsbn.indexar(dto.getIsbn(), dto.getId()));
+        return livro;
     }
 
-    public List<LivroDTO> buscarPorTitulo(String titulo) {
-        return livroRepository.findByTituloContainingIgnoreCase(titulo).stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    // Ranqueia pelo índice em memória e completa os livros pelo cache, com uma única consulta para os que faltarem.
+    // O filtro de disponibilidade vem do bitmap e é aplicado dentro do ranqueamento, antes do corte dos K melhores.
+    public List<LivroDTO> pesquisar(String consulta, Boolean disponivel, Integer limite) {
+        return ranquear(consulta, limite,
+                disponivel == null ? id -> true : id -> indiceCatalogo.disponivel(id) == disponivel);
     }
 
-    public List<LivroDTO> buscarPorAutor(Long autorId) {
-        return livroRepository.findByAutorId(autorId).stream()
-                .map(this::converterParaDTO)
+    private List<LivroDTO> ranquear(String consulta, Integer limite, LongPredicate filtro) {
+        int tamanho = limite == null || limite <= 0 ? LIMITE_PESQUISA_PADRAO : Math.min(limite, LIMITE_PESQUISA_MAXIMO);
+        List<Long> ids = pesquisaService.pesquisar(consulta, tamanho, filtro)
+                .stream()
+                .map(IndiceInvertido.Resultado::livroId)
+                .collect(Collectors.toList());
+        Map<Long, LivroDTO> livros = carregar(ids);
+        return ids.stream()
+                .map(livros::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
-    public List<LivroDTO> buscarDisponiveis() {
-        return livroRepository.findLivrosDisponiveis().stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    public PaginaDTO<LivroDTO> buscarPorTitulo(String titulo, String cursor, Integer limite) {
+        int tamanho = Paginacao.limite(limite);
+        List<Livro> livros = livroRepository.findPaginaByTitulo(titulo, Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(livros, tamanho, Livro::getId, this::converterParaDTO);
     }
 
-    public List<LivroDTO> buscarIndisponiveis() {
-        return livroRepository.findLivrosIndisponiveis().stream()
-                .map(this::converterParaDTO)
-                .collect(Collectors.toList());
+    public PaginaDTO<LivroDTO> buscarPorAutor(Long autorId, Boolean disponivel, String cursor, Integer limite) {
+        if (disponivel != null) {
+            return paginaPorDisponibilidade(disponivel, autorId, cursor, limite);
+        }
+        int tamanho = Paginacao.limite(limite);
+        List<Livro> livros = livroRepository.findPaginaByAutorId(autorId, Paginacao.aposId(cursor), Paginacao.consulta(tamanho));
+        return Paginacao.pagina(livros, tamanho, Livro::getId, this::converterParaDTO);
+    }
+
+    public PaginaDTO<LivroDTO> buscarDisponiveis(String cursor, Integer limite) {
+        return paginaPorDisponibilidade(true, null, cursor, limite);
+    }
+
+    public PaginaDTO<LivroDTO> buscarIndisponiveis(String cursor, Integer limite) {
+        return paginaPorDisponibilidade(false, null, cursor, limite);
+    }
+
+    public long contarPorDisponibilidade(boolean disponivel, Long autorId) {
+        return indiceCatalogo.contar(disponivel, autorId);
+    }
+
+    // Critérios e facetas saem dos bitmaps do catálogo. Com texto, a lista vem ranqueada pelo BM25 só entre
+    // os ids que passaram nos demais critérios (sem cursor, como na pesquisa); sem texto, é paginada por id.
+    public FiltroLivrosDTO filtrar(Long autorId, Integer anoDe, Integer anoAte, Boolean disponivel, String consulta,
+                                   String cursor, Integer limite) {
+        BitmapCompactado texto = consulta == null || consulta.isBlank() ? null : pesquisaService.correspondentes(consulta);
+        IndiceCatalogo.Filtro filtro = indiceCatalogo.filtrar(autorId, anoDe, anoAte, disponivel, texto, LIMITE_FACETA_AUTORES);
+        BitmapCompactado ids = filtro.ids();
+        Predicate<LivroDTO> atende = livro -> (autorId == null || autorId.equals(livro.getAutorId()))
+                && (anoDe == null || livro.getAnoPublicacao() != null && livro.getAnoPublicacao() >= anoDe)
+                && (anoAte == null || livro.getAnoPublicacao() != null && livro.getAnoPublicacao() <= anoAte)
+                && (disponivel == null || livro.getQuantidadeDisponivel() > 0 == disponivel);
+
+        PaginaDTO<LivroDTO> pagina;
+        if (texto != null) {
+            List<LivroDTO> livros = ranquear(consulta, limite, id -> ids.contem(BitmapCompactado.valor(id))).stream()
+                    .filter(atende)
+                    .collect(Collectors.toList());
+            pagina = new PaginaDTO<>(livros, null);
+        } else {
+            pagina = paginaDoIndice(cursor, limite, (aposId, quantidade) -> {
+                List<Long> proximos = new ArrayList<>(quantidade);
+                for (int id : ids.proximos(aposId, quantidade)) {
+                    proximos.add((long) id);
+                }
+                return proximos;
+            }, atende);
+        }
+        return new FiltroLivrosDTO(ids.cardinalidade(), pagina.getItens(), pagina.getProximoCursor(),
+                filtro.porAutor(), filtro.porDecada(), filtro.disponiveis(), filtro.indisponiveis());
+    }
+
+    private PaginaDTO<LivroDTO> paginaPorDisponibilidade(boolean disponivel, Long autorId, String cursor, Integer limite) {
+        return paginaDoIndice(cursor, limite,
+                (aposId, quantidade) -> indiceCatalogo.proximos(disponivel, autorId, aposId, quantidade),
+                livro -> livro.getQuantidadeDisponivel() > 0 == disponivel);
+    }
+
+    // Os ids da página saem do bitmap e os livros do cache por id. Um livro que o cache mostre em outro estado
+    // (alteração ainda não confirmada) ou que não exista mais fica fora, e a página é completada com os seguintes.
+    private PaginaDTO<LivroDTO> paginaDoIndice(String cursor, Integer limite,
+                                               BiFunction<Long, Integer, List<Long>> proximos,
+                                               Predicate<LivroDTO> valido) {
+        int tamanho = Paginacao.limite(limite);
+        long aposId = Paginacao.aposId(cursor);
+        List<LivroDTO> encontrados = new ArrayList<>(tamanho + 1);
+        while (encontrados.size() <= tamanho) {
+            List<Long> ids = proximos.apply(aposId, tamanho + 1 - encontrados.size());
+            if (ids.isEmpty()) {
+                break;
+            }
+            Map<Long, LivroDTO> livros = carregar(ids);
+            for (Long id : ids) {
+                LivroDTO livro = livros.get(id);
+                if (livro != null && valido.test(livro)) {
+                    encontrados.add(livro);
+                }
+            }
+            aposId = ids.get(ids.size() - 1);
+        }
+        return Paginacao.pagina(encontrados, tamanho, LivroDTO::getId, Function.identity());
+    }
+
+    private Map<Long, LivroDTO> carregar(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return catalogoCache.livros(ids, faltantes ->
+                livroRepository.findComAutorByIdIn(List.copyOf(faltantes)).stream()
+                        .collect(Collectors.toMap(Livro::getId, this::converterParaDTO)));
     }
 
     public LivroDTO criar(LivroDTO livroDTO) {
+        if (existePorIsbn(livroDTO.getIsbn())) {
+            throw new RuntimeException("ISBN já cadastrado");
+        }
         Autor autor = autorRepository.findById(livroDTO.getAutorId())
                 .orElseThrow(() -> new RuntimeException("Autor não encontrado"));
 
         Livro livro = converterParaEntidade(livroDTO);
         livro.setAutor(autor);
         livro = livroRepository.save(livro);
+        indiceIsbn.indexar(livro.getIsbn(), livro.getId());
+        indiceCatalogo.livroSalvo(livro.getId(), autor.getId(), livro.getAnoPublicacao(), livro.getQuantidadeDisponivel());
+        pesquisaService.indexarLivro(livro.getId());
+        autocompletarService.livroSalvo(livro.getId(), autor.getId(), livro.getTitulo());
         return converterParaDTO(livro);
     }
 
+    // Empréstimos e devoluções mudam a quantidade disponível com UPDATEs condicionais, então a edição não a
+    // regrava: o cadastro vai num UPDATE próprio com a linha travada, e a disponível indexada é relida depois dele
+    @Transactional
     public Optional<LivroDTO> atualizar(Long id, LivroDTO livroDTO) {
-        return livroRepository.findById(id)
+        Long existente = indiceIsbn.livroId(livroDTO.getIsbn());
+        if (existente != null && !existente.equals(id)) {
+            throw new RuntimeException("ISBN já cadastrado");
+        }
+        return livroRepository.findAllByIdParaAtualizacao(List.of(id)).stream()
+                .findFirst()
                 .map(livro -> {
-                    livro.setTitulo(livroDTO.getTitulo());
-                    livro.setSinopse(livroDTO.getSinopse());
-                    livro.setIsbn(livroDTO.getIsbn());
-                    livro.setAnoPublicacao(livroDTO.getAnoPublicacao());
-                    livro.setQuantidade(livroDTO.getQuantidade());
-
-                    if (livroDTO.getAutorId() != null && !livroDTO.getAutorId().equals(livro.getAutor().getId())) {
-                        Autor autor = autorRepository.findById(livroDTO.getAutorId())
+                    String isbnAnterior = livro.getIsbn();
+                    Autor autor = livro.getAutor();
+                    if (livroDTO.getAutorId() != null && !livroDTO.getAutorId().equals(autor.getId())) {
+                        autor = autorRepository.findById(livroDTO.getAutorId())
                                 .orElseThrow(() -> new RuntimeException("Autor não encontrado"));
-                        livro.setAutor(autor);
                     }
+                    int quantidade = Objects.requireNonNullElse(livroDTO.getQuantidade(), livro.getQuantidade());
 
-                    livro = livroRepository.save(livro);
-                    return converterParaDTO(livro);
+                    if (livroRepository.atualizarCadastro(id, livroDTO.getTitulo(), livroDTO.getSinopse(),
+                            livroDTO.getIsbn(), livroDTO.getAnoPublicacao(), autor, quantidade, LocalDateTime.now()) == 0) {
+                        throw new RuntimeException("Quantidade não pode ser menor que a de exemplares emprestados");
+                    }
+                    registroAlteracoes.salvo(RegistroAlteracoes.Recurso.LIVRO, id);
+                    Livro atualizado = livroRepository.findComAutorById(id).orElseThrow();
+
+                    catalogoCache.invalidarLivro(id);
+                    emprestimoService.livroAlterado(id);
+                    indiceIsbn.remover(isbnAnterior, id);
+                    indiceIsbn.indexar(atualizado.getIsbn(), id);
+                    indiceCatalogo.livroSalvo(id, atualizado.getAutor().getId(), atualizado.getAnoPublicacao(),
+                            atualizado.getQuantidadeDisponivel());
+                    pesquisaService.indexarLivro(id);
+                    autocompletarService.livroSalvo(id, atualizado.getAutor().getId(), atualizado.getTitulo());
+                    return converterParaDTO(atualizado);
                 });
     }
 
-    public boolean deletar(Long id) {
-        if (livroRepository.existsById(id)) {
-            livroRepository.deleteById(id);
-            return true;
+    // Escreve o catálogo como NDJSON direto na saída, liberando as entidades do contexto a cada lote
+    @Transactional(readOnly = true)
+    public long exportar(OutputStream saida) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long total = 0;
+        try (Stream<Livro> livros = livroRepository.streamTodos()) {
+            Iterator<Livro> iterator = livros.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(saida, converterParaDTO(iterator.next()));
+                saida.write('\n');
+                if (++total % TAMANHO_LOTE_EXPORTACAO == 0) {
+                    entityManager.clear();
+                }
+            }
         }
-        return false;
+        return total;
+    }
+
+    public boolean deletar(Long id) {
+        return livroRepository.findById(id)
+                .map(livro -> {
+                    livroRepository.delete(livro);
+                    catalogoCache.invalidarLivro(id);
+                    emprestimoService.livroAlterado(id);
+                    indiceIsbn.remover(livro.getIsbn(), id);
+                    indiceCatalogo.livroRemovido(id);
+                    pesquisaService.removerLivro(id);
+                    autocompletarService.livroRemovido(id);
+                    return true;
+                })
+                .orElse(false);
     }
 
     public boolean existePorId(Long id) {
@@ -104,7 +321,7 @@ public class LivroService {
     }
 
     public boolean existePorIsbn(String isbn) {
-        return livroRepository.existsByIsbn(isbn);
+        return indiceIsbn.livroId(isbn) != null || livroRepository.existsByIsbnIn(IndiceIsbn.formas(isbn));
     }
 
     public Long contarEmprestimosAtivos(Long livroId) {
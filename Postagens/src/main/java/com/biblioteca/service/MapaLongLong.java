@@ -0,0 +1,152 @@
+package com.biblioteca.service;
+
+import java.util.Arrays;
+
+// Mapa de long para long com endereçamento aberto e sondagem linear, sem boxing nem objetos por entrada.
+// A chave 0 marca posição livre, então não pode ser usada; não é thread-safe.
+class MapaLongLong {
+
+    static final long AUSENTE = -1;
+
+    private static final long LIVRE = 0;
+    private static final int CAPACIDADE_MINIMA = 16;
+
+    private long[] chaves;
+    private long[] valores;
+    private int tamanho;
+    private int limiteRedimensionamento;
+
+    MapaLongLong() {
+        this(CAPACIDADE_MINIMA);
+    }
+
+    MapaLongLong(int capacidadeEsperada) {
+        alocar(capacidadePara(capacidadeEsperada));
+    }
+
+    long get(long chave) {
+        if (chave == LIVRE) {
+            return AUSENTE;
+        }
+        int mascara = chaves.length - 1;
+        for (int i = indice(chave, mascara); ; i = (i + 1) & mascara) {
+            long atual = chaves[i];
+            if (atual == chave) {
+                return valores[i];
+            }
+            if (atual == LIVRE) {
+                return AUSENTE;
+            }
+        }
+    }
+
+    // Retorna o valor anterior ou AUSENTE
+    long put(long chave, long valor) {
+        if (chave == LIVRE) {
+            throw new IllegalArgumentException("Chave 0 é reservada");
+        }
+        int mascara = chaves.length - 1;
+        int i = indice(chave, mascara);
+        while (chaves[i] != LIVRE) {
+            if (chaves[i] == chave) {
+                long anterior = valores[i];
+                valores[i] = valor;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        chaves[i] = chave;
+        valores[i] = valor;
+        if (++tamanho > limiteRedimensionamento) {
+            redimensionar(chaves.length * 2);
+        }
+        return AUSENTE;
+    }
+
+    // Remoção com deslocamento para trás: as entradas seguintes voltam para perto da posição ideal,
+    // então não há lápides e a busca continua parando na primeira posição livre
+    long remove(long chave) {
+        if (chave == LIVRE) {
+            return AUSENTE;
+        }
+        int mascara = chaves.length - 1;
+        int i = indice(chave, mascara);
+        while (chaves[i] != chave) {
+            if (chaves[i] == LIVRE) {
+                return AUSENTE;
+            }
+            i = (i + 1) & mascara;
+        }
+        long anterior = valores[i];
+        int livre = i;
+        for (int j = (i + 1) & mascara; chaves[j] != LIVRE; j = (j + 1) & mascara) {
+            int ideal = indice(chaves[j], mascara);
+            // Move a entrada j para a posição livre se a posição ideal dela não está entre a livre e j
+            if (((j - ideal) & mascara) >= ((j - livre) & mascara)) {
+                chaves[livre] = chaves[j];
+                valores[livre] = valores[j];
+                livre = j;
+            }
+        }
+        chaves[livre] = LIVRE;
+        tamanho--;
+        return anterior;
+    }
+
+    void clear() {
+        Arrays.fill(chaves, LIVRE);
+        tamanho = 0;
+    }
+
+    int size() {
+        return tamanho;
+    }
+
+    long memoriaEstimada() {
+        return 2L * Long.BYTES * chaves.length;
+    }
+
+    private void redimensionar(int capacidade) {
+        long[] chavesAntigas = chaves;
+        long[] valoresAntigos = valores;
+        alocar(capacidade);
+        int mascara = capacidade - 1;
+        for (int k = 0; k < chavesAntigas.length; k++) {
+            if (chavesAntigas[k] != LIVRE) {
+                int i = indice(chavesAntigas[k], mascara);
+                while (chaves[i] != LIVRE) {
+                    i = (i + 1) & mascara;
+                }
+                chaves[i] = chavesAntigas[k];
+                valores[i] = valoresAntigos[k];
+            }
+        }
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new long[capacidade];
+        valores = new long[capacidade];
+        limiteRedimensionamento = capacidade / 2;
+    }
+
+    // Fator de carga máximo de 0,5, mantendo as sequências de sondagem curtas
+    private static int capacidadePara(int esperado) {
+        int capacidade = CAPACIDADE_MINIMA;
+        while (capacidade / 2 < esperado) {
+            capacidade *= 2;
+        }
+        return capacidade;
+    }
+
+    // ISBNs consecutivos diferem só nos últimos dígitos; o embaralhamento (finalizador do MurmurHash3)
+    // espalha essas chaves pela tabela inteira
+    private static int indice(long chave, int mascara) {
+        long h = chave;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mascara;
+    }
+}
@@ -0,0 +1,200 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.EmprestimoConfig;
+import com.biblioteca.entity.Emprestimo;
+import com.biblioteca.repository.EmprestimoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Passa empréstimos de ATIVO para ATRASADO no instante em que a devolução prevista vence. Os vencimentos
+// ficam numa fila de prioridade por data (DelayQueue), reconstruída do banco na partida; a thread do motor
+// dorme até o primeiro vencimento e marca de uma vez, com um UPDATE por lote, todos os que já venceram.
+// Assim a listagem e a contagem de atrasados viram consultas pelo status, sem comparar datas.
+@Component
+public class MotorAtrasos {
+
+    private static final Logger logger = LoggerFactory.getLogger(MotorAtrasos.class);
+
+    private static final int TAMANHO_LOTE = 500;
+    private static final long ESPERA_APOS_FALHA = 5_000;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private EmprestimoConfig emprestimoConfig;
+
+    @Autowired
+    private RegistroAlteracoes registroAlteracoes;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final DelayQueue<Vencimento> fila = new DelayQueue<>();
+    private Counter marcados;
+    private Thread thread;
+
+    record Vencimento(long emprestimoId, long instante) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unidade) {
+            return unidade.convert(instante - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed outro) {
+            return Long.compare(instante, ((Vencimento) outro).instante);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("emprestimo.atrasos.agendados", fila, DelayQueue::size).register(meterRegistry);
+        marcados = Counter.builder("emprestimo.atrasos.marcados").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void iniciar() {
+        if (!emprestimoConfig.isAtrasosEnabled() || thread != null) {
+            return;
+        }
+        reconstruir();
+        thread = new Thread(this::executar, "motor-atrasos");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public synchronized void encerrar() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    // O que venceu com a aplicação parada é marcado de uma vez; os ativos restantes entram na fila
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        int vencidos = transactionTemplate.execute(status -> marcarVencidos());
+        fila.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> linhas = emprestimoRepository.streamVencimentosAtivos()) {
+                linhas.forEach(linha -> fila.add(new Vencimento((Long) linha[0], instante((LocalDateTime) linha[1]))));
+            }
+        });
+        logger.info("Motor de atrasos: {} empréstimos marcados como atrasados e {} agendados em {} ms",
+                vencidos, fila.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // O vencimento só entra na fila depois do commit; um empréstimo desfeito nunca chega a ela
+    public void agendar(Emprestimo emprestimo) {
+        Vencimento vencimento = new Vencimento(emprestimo.getId(), instante(emprestimo.getDataDevolucaoPrevista()));
+        AposCommit.executar(() -> fila.add(vencimento));
+    }
+
+    // Varredura pelo índice (status, data_devolucao_prevista); participa da transação corrente, se houver.
+    // O UPDATE altera exatamente os ids lidos e registrados no feed, nunca um que venceu entre as duas etapas.
+    public int marcarVencidos() {
+        LocalDateTime agora = LocalDateTime.now();
+        List<Long> ids = emprestimoRepository.findIdsVencidos(agora);
+        registroAlteracoes.salvos(RegistroAlteracoes.Recurso.EMPRESTIMO, ids);
+        int quantidade = 0;
+        for (int inicio = 0; inicio < ids.size(); inicio += TAMANHO_LOTE) {
+            List<Long> lote = ids.subList(inicio, Math.min(inicio + TAMANHO_LOTE, ids.size()));
+            quantidade += emprestimoRepository.marcarAtrasados(lote, agora);
+        }
+        marcados.increment(quantidade);
+        return quantidade;
+    }
+
+    public int agendados() {
+        return fila.size();
+    }
+
+    // Devolvidos continuam na fila até o vencimento; o UPDATE só altera quem ainda está ATIVO. A varredura
+    // completa tem horário próprio: uma fila sempre com vencimentos não a adia.
+    private void executar() {
+        long proximaVarredura = System.currentTimeMillis() + emprestimoConfig.getAtrasosVarredura();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                long espera = proximaVarredura - System.currentTimeMillis();
+                if (espera <= 0) {
+                    proximaVarredura = System.currentTimeMillis() + emprestimoConfig.getAtrasosVarredura();
+                    varrer();
+                    continue;
+                }
+                Vencimento primeiro = fila.poll(espera, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                List<Vencimento> vencidos = new ArrayList<>();
+                vencidos.add(primeiro);
+                fila.drainTo(vencidos);
+                marcar(vencidos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Rede de segurança para empréstimos gravados por fora do serviço; uma falha espera a próxima varredura
+    private void varrer() throws InterruptedException {
+        try {
+            transactionTemplate.execute(status -> marcarVencidos());
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            logger.warn("Falha na varredura de empréstimos vencidos: {}", e.getMessage());
+        }
+    }
+
+    private void marcar(List<Vencimento> vencidos) throws InterruptedException {
+        for (int inicio = 0; inicio < vencidos.size(); inicio += TAMANHO_LOTE) {
+            List<Vencimento> lote = vencidos.subList(inicio, Math.min(inicio + TAMANHO_LOTE, vencidos.size()));
+            List<Long> ids = lote.stream().map(Vencimento::emprestimoId).toList();
+            try {
+                int quantidade = transactionTemplate.execute(status -> {
+                    // Devolvidos do lote também entram no feed; a alteração publicada é o estado atual deles
+                    registroAlteracoes.salvos(RegistroAlteracoes.Recurso.EMPRESTIMO, ids);
+                    return emprestimoRepository.marcarAtrasados(ids, LocalDateTime.now());
+                });
+                marcados.increment(quantidade);
+            } catch (RuntimeException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                // O lote volta para a fila e é tentado de novo em instantes
+                logger.warn("Falha ao marcar {} empréstimos como atrasados: {}", ids.size(), e.getMessage());
+                long novaTentativa = System.currentTimeMillis() + ESPERA_APOS_FALHA;
+                lote.forEach(vencimento -> fila.add(new Vencimento(vencimento.emprestimoId(), novaTentativa)));
+            }
+        }
+    }
+
+    private static long instante(LocalDateTime data) {
+        return data.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
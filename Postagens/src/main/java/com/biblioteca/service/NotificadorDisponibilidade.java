@@ -0,0 +1,324 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.DisponibilidadeConfig;
+import com.biblioteca.dto.DisponibilidadeDTO;
+import com.biblioteca.exception.ServicoSobrecarregadoException;
+import com.biblioteca.repository.LivroRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Empurra por Server-Sent Events a quantidade disponível dos livros que cada cliente assinou. A conexão fica
+// em modo assíncrono no servlet, então um assinante ocioso não ocupa thread: só o pool de envio escreve, e
+// apenas para quem tem evento pendente. Os eventos são coalescidos por livro (vale o último valor), o que
+// limita a memória de um consumidor lento ao número de livros assinados. Uma escrita para um cliente que
+// parou de ler falha no timeout de escrita do Tomcat (server.tomcat.connection-timeout), o que libera a thread
+// de envio; um envio parado além de disponibilidade.espera tira o assinante das assinaturas mesmo antes disso.
+// O cliente reconecta e recebe o estado atual de novo.
+@Component
+public class NotificadorDisponibilidade {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificadorDisponibilidade.class);
+
+    public static final String EVENTO = "disponibilidade";
+
+    private static final int TAMANHO_LOTE = 500;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private DisponibilidadeConfig disponibilidadeConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Set<Assinatura> assinaturas = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Long, Set<Assinatura>> assinantesPorLivro = new ConcurrentHashMap<>();
+    private final Set<Long> alterados = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean despachoAgendado = new AtomicBoolean();
+
+    private ThreadPoolExecutor executorEnvio;
+    private ScheduledExecutorService agendador;
+    private Counter eventos;
+    private Counter descartados;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger contador = new AtomicInteger();
+        executorEnvio = new ThreadPoolExecutor(
+                disponibilidadeConfig.getThreads(),
+                disponibilidadeConfig.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "disponibilidade-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Uma única thread lê o banco e distribui: as leituras de um livro chegam às assinaturas na ordem
+        agendador = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "disponibilidade-despacho");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long heartbeat = disponibilidadeConfig.getHeartbeat();
+        agendador.scheduleWithFixedDelay(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("disponibilidade.assinantes", assinaturas, Set::size).register(meterRegistry);
+        eventos = Counter.builder("disponibilidade.eventos").register(meterRegistry);
+        descartados = Counter.builder("disponibilidade.descartados").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+        executorEnvio.shutdownNow();
+        new ArrayList<>(assinaturas).forEach(assinatura -> {
+            remover(assinatura);
+            assinatura.emitter.complete();
+        });
+    }
+
+    // O primeiro evento de cada livro é o estado atual; os seguintes, as mudanças
+    public SseEmitter assinar(Collection<Long> livroIds) {
+        Set<Long> livros = new LinkedHashSet<>();
+        livroIds.stream().filter(Objects::nonNull).forEach(livros::add);
+        if (livros.isEmpty() || livros.size() > disponibilidadeConfig.getMaxLivros()) {
+            throw new RuntimeException("Informe entre 1 e " + disponibilidadeConfig.getMaxLivros() + " livros");
+        }
+        if (assinaturas.size() >= disponibilidadeConfig.getMaxAssinantes()) {
+            throw new ServicoSobrecarregadoException("Limite de assinaturas atingido, tente novamente mais tarde");
+        }
+
+        SseEmitter emitter = new SseEmitter(disponibilidadeConfig.getTimeout());
+        Assinatura assinatura = new Assinatura(emitter, livros);
+        emitter.onCompletion(() -> remover(assinatura));
+        emitter.onTimeout(() -> remover(assinatura));
+        emitter.onError(erro -> remover(assinatura));
+
+        assinaturas.add(assinatura);
+        for (Long livroId : livros) {
+            assinantesPorLivro.computeIfAbsent(livroId, id -> ConcurrentHashMap.newKeySet()).add(assinatura);
+        }
+        agendador.execute(() -> enviarEstado(List.copyOf(livros), Set.of(assinatura)));
+        return emitter;
+    }
+
+    // Chamado pelos serviços; só depois do commit, e livros sem assinantes não custam nada
+    public void alterados(Collection<Long> livroIds) {
+        AposCommit.executar(() -> {
+            boolean algum = false;
+            for (Long livroId : livroIds) {
+                if (assinantesPorLivro.containsKey(livroId)) {
+                    alterados.add(livroId);
+                    algum = true;
+                }
+            }
+            if (algum && despachoAgendado.compareAndSet(false, true)) {
+                agendador.execute(this::despachar);
+            }
+        });
+    }
+
+    public void alterado(Long livroId) {
+        alterados(List.of(livroId));
+    }
+
+    public int assinantes() {
+        return assinaturas.size();
+    }
+
+    // Uma rajada de empréstimos do mesmo livro vira uma leitura e um evento por assinante
+    private void despachar() {
+        despachoAgendado.set(false);
+        List<Long> livros = new ArrayList<>();
+        for (Iterator<Long> iterator = alterados.iterator(); iterator.hasNext(); ) {
+            livros.add(iterator.next());
+            iterator.remove();
+        }
+        enviarEstado(livros, null);
+    }
+
+    // Sem destinos, vai para todos os assinantes de cada livro
+    private void enviarEstado(List<Long> livros, Set<Assinatura> destinos) {
+        try {
+            for (int inicio = 0; inicio < livros.size(); inicio += TAMANHO_LOTE) {
+                List<Long> lote = livros.subList(inicio, Math.min(inicio + TAMANHO_LOTE, livros.size()));
+                for (Object[] linha : livroRepository.findQuantidadesDisponiveis(lote)) {
+                    Long livroId = (Long) linha[0];
+                    Integer quantidade = (Integer) linha[1];
+                    Set<Assinatura> assinantes = destinos != null ? destinos : assinantesPorLivro.get(livroId);
+                    if (assinantes != null) {
+                        assinantes.forEach(assinatura -> assinatura.enfileirar(livroId, quantidade));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao notificar a disponibilidade de {} livros: {}", livros.size(), e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        long agora = System.currentTimeMillis();
+        for (Assinatura assinatura : assinaturas) {
+            if (assinatura.parada(agora, disponibilidadeConfig.getEspera())) {
+                // Consumidor lento: sai dos índices já. Não dá para chamar emitter.completeWithError daqui: ele
+                // sincroniza no mesmo emitter do send travado e pararia esta thread, que despacha para todos. A
+                // conexão é encerrada quando a escrita voltar ou falhar no timeout de escrita do Tomcat.
+                remover(assinatura);
+                descartados.increment();
+            } else {
+                assinatura.heartbeat();
+            }
+        }
+    }
+
+    private void remover(Assinatura assinatura) {
+        if (!assinaturas.remove(assinatura)) {
+            return;
+        }
+        assinatura.fechar();
+        for (Long livroId : assinatura.livros) {
+            assinantesPorLivro.computeIfPresent(livroId, (id, assinantes) -> {
+                assinantes.remove(assinatura);
+                return assinantes.isEmpty() ? null : assinantes;
+            });
+        }
+    }
+
+    // No máximo um envio em andamento por assinatura; o que chega enquanto isso substitui o valor pendente
+    private final class Assinatura {
+
+        private final SseEmitter emitter;
+        private final Set<Long> livros;
+        private final Map<Long, Integer> pendentes = new LinkedHashMap<>();
+        private boolean heartbeatPendente;
+        private boolean enviando;
+        private long enviandoDesde;
+        private boolean fechada;
+
+        private Assinatura(SseEmitter emitter, Set<Long> livros) {
+            this.emitter = emitter;
+            this.livros = livros;
+        }
+
+        void enfileirar(Long livroId, Integer quantidade) {
+            synchronized (this) {
+                if (fechada) {
+                    return;
+                }
+                pendentes.put(livroId, quantidade);
+            }
+            agendarEnvio();
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                heartbeatPendente = true;
+            }
+            agendarEnvio();
+        }
+
+        synchronized boolean parada(long agora, long espera) {
+            return enviando && agora - enviandoDesde > espera;
+        }
+
+        synchronized void fechar() {
+            fechada = true;
+            pendentes.clear();
+        }
+
+        private void agendarEnvio() {
+            synchronized (this) {
+                if (enviando || fechada) {
+                    return;
+                }
+                enviando = true;
+                enviandoDesde = System.currentTimeMillis();
+            }
+            try {
+                executorEnvio.execute(this::enviar);
+            } catch (RejectedExecutionException e) {
+                remover(this);
+            }
+        }
+
+        private void enviar() {
+            while (true) {
+                Map<Long, Integer> lote;
+                boolean comHeartbeat;
+                boolean encerrar;
+                synchronized (this) {
+                    encerrar = fechada;
+                    if (fechada || (pendentes.isEmpty() && !heartbeatPendente)) {
+                        enviando = false;
+                        lote = null;
+                        comHeartbeat = false;
+                    } else {
+                        lote = new LinkedHashMap<>(pendentes);
+                        pendentes.clear();
+                        comHeartbeat = heartbeatPendente;
+                        heartbeatPendente = false;
+                        enviandoDesde = System.currentTimeMillis();
+                    }
+                }
+                if (lote == null) {
+                    // Descartada por lentidão enquanto escrevia: encerra agora que a escrita voltou
+                    if (encerrar) {
+                        emitter.complete();
+                    }
+                    return;
+                }
+                try {
+                    for (Map.Entry<Long, Integer> evento : lote.entrySet()) {
+                        emitter.send(SseEmitter.event()
+                                .name(EVENTO)
+                                .data(new DisponibilidadeDTO(evento.getKey(), evento.getValue()), MediaType.APPLICATION_JSON));
+                        eventos.increment();
+                    }
+                    // Só quando não houve evento: qualquer escrita já mantém a conexão viva
+                    if (comHeartbeat && lote.isEmpty()) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Cliente desconectou: o contêiner encerra a requisição assíncrona
+                    remover(this);
+                    synchronized (this) {
+                        enviando = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+}
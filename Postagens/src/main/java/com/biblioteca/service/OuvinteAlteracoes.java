@@ -0,0 +1,51 @@
+package com.biblioteca.service;
+
+import com.biblioteca.entity.Autor;
+import com.biblioteca.entity.Emprestimo;
+import com.biblioteca.entity.Livro;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Listener JPA das entidades do feed de alterações; instanciado pelo Hibernate com injeção do Spring.
+// Pega também o que o serviço não vê diretamente, como os livros e empréstimos removidos em cascata com o
+// autor. UPDATEs em massa (quantidade disponível, status) não passam por aqui e são registrados pelos serviços.
+public class OuvinteAlteracoes {
+
+    // Provider: o listener é criado junto com o EntityManagerFactory, antes do registro poder ser injetado
+    @Autowired
+    private ObjectProvider<RegistroAlteracoes> registroAlteracoes;
+
+    @PostPersist
+    @PostUpdate
+    public void salvo(Object entidade) {
+        registroAlteracoes.getObject().salvo(recurso(entidade), id(entidade));
+    }
+
+    @PostRemove
+    public void removido(Object entidade) {
+        registroAlteracoes.getObject().removido(recurso(entidade), id(entidade));
+    }
+
+    private static RegistroAlteracoes.Recurso recurso(Object entidade) {
+        if (entidade instanceof Livro) {
+            return RegistroAlteracoes.Recurso.LIVRO;
+        }
+        if (entidade instanceof Autor) {
+            return RegistroAlteracoes.Recurso.AUTOR;
+        }
+        return RegistroAlteracoes.Recurso.EMPRESTIMO;
+    }
+
+    private static Long id(Object entidade) {
+        if (entidade instanceof Livro livro) {
+            return livro.getId();
+        }
+        if (entidade instanceof Autor autor) {
+            return autor.getId();
+        }
+        return ((Emprestimo) entidade).getId();
+    }
+}
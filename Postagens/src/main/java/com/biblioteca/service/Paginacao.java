@@ -0,0 +1,62 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.PaginaDTO;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Paginação por keyset: o cursor guarda o último id entregue, então qualquer página custa o mesmo que a primeira
+public final class Paginacao {
+
+    public static final int LIMITE_PADRAO = 50;
+    public static final int LIMITE_MAXIMO = 200;
+
+    private static final String PREFIXO = "id:";
+
+    private Paginacao() {}
+
+    public static Long aposId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!valor.startsWith(PREFIXO)) {
+                throw new IllegalArgumentException(valor);
+            }
+            return Long.parseLong(valor.substring(PREFIXO.length()));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    public static String cursor(Long ultimoId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIXO + ultimoId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static int limite(Integer limite) {
+        if (limite == null || limite <= 0) {
+            return LIMITE_PADRAO;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    // Busca um item a mais para saber se existe próxima página sem precisar de COUNT
+    public static Pageable consulta(int limite) {
+        return PageRequest.of(0, limite + 1);
+    }
+
+    public static <E, T> PaginaDTO<T> pagina(List<E> resultado, int limite,
+                                            Function<E, Long> id, Function<E, T> conversor) {
+        boolean temProxima = resultado.size() > limite;
+        List<E> itens = temProxima ? resultado.subList(0, limite) : resultado;
+        String proximoCursor = temProxima ? cursor(id.apply(itens.get(itens.size() - 1))) : null;
+        return new PaginaDTO<>(itens.stream().map(conversor).collect(Collectors.toList()), proximoCursor);
+    }
+}
@@ -0,0 +1,67 @@
+package com.biblioteca.service;
+
+import com.biblioteca.entity.Livro;
+import com.biblioteca.repository.LivroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+// Mantém o índice de texto do catálogo: carga completa na subida e atualização incremental a cada escrita
+@Service
+public class PesquisaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PesquisaService.class);
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    private final IndiceInvertido indice = new IndiceInvertido();
+
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        long inicio = System.nanoTime();
+        indice.limpar();
+        try (Stream<Livro> livros = livroRepository.streamTodos()) {
+            livros.forEach(this::indexar);
+        }
+        logger.info("Índice de pesquisa reconstruído com {} livros em {} ms",
+                indice.tamanho(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    public List<IndiceInvertido.Resultado> pesquisar(String consulta, int limite, LongPredicate filtro) {
+        return indice.pesquisar(consulta, limite, filtro);
+    }
+
+    BitmapCompactado correspondentes(String consulta) {
+        return indice.correspondentes(consulta);
+    }
+
+    public void indexarLivro(Long livroId) {
+        livroRepository.findComAutorById(livroId)
+                .ifPresentOrElse(this::indexar, () -> indice.remover(livroId));
+    }
+
+    public void removerLivro(Long livroId) {
+        indice.remover(livroId);
+    }
+
+    // Nome e biografia do autor fazem parte dos documentos dos livros dele
+    public void reindexarAutor(Long autorId) {
+        livroRepository.findComAutorByAutorId(autorId).forEach(this::indexar);
+    }
+
+    public void removerAutor(Long autorId) {
+        indice.removerAutor(autorId);
+    }
+
+    private void indexar(Livro livro) {
+        indice.indexar(livro.getId(), livro.getAutor().getId(), livro.getTitulo(), livro.getSinopse(),
+                livro.getAutor().getNome(), livro.getAutor().getBiografia());
+    }
+}
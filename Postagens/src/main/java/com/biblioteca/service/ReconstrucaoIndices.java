@@ -0,0 +1,94 @@
+package com.biblioteca.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Reconstrói os índices em memória na partida. Cada um lê o banco na própria transação e não depende dos
+// outros, então rodam em paralelo: o reinício espera o mais lento (o de autocompletar, que soma os
+// empréstimos por livro) em vez da soma de todos. Roda numa fase do ciclo de vida anterior à do servidor web:
+// o Tomcat só passa a aceitar conexões com todos reconstruídos, e nenhuma consulta vê um índice vazio.
+@Component
+public class ReconstrucaoIndices implements SmartLifecycle {
+
+    // O servidor web sobe em SMART_LIFECYCLE_PHASE - 1024
+    private static final int FASE = WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconstrucaoIndices.class);
+
+    @Autowired
+    private AutocompletarService autocompletarService;
+
+    @Autowired
+    private PesquisaService pesquisaService;
+
+    @Autowired
+    private IndiceCatalogo indiceCatalogo;
+
+    @Autowired
+    private IndiceIsbn indiceIsbn;
+
+    private volatile boolean reconstruidos;
+
+    @Override
+    public void start() {
+        reconstruir();
+        reconstruidos = true;
+    }
+
+    @Override
+    public void stop() {
+        reconstruidos = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return reconstruidos;
+    }
+
+    @Override
+    public int getPhase() {
+        return FASE;
+    }
+
+    public void reconstruir() {
+        List<Runnable> tarefas = List.of(
+                autocompletarService::reconstruir,
+                pesquisaService::reconstruir,
+                indiceCatalogo::reconstruir,
+                indiceIsbn::reconstruir);
+        int threads = Math.min(tarefas.size(), Runtime.getRuntime().availableProcessors());
+        AtomicInteger contador = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "reconstrucao-indices-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long inicio = System.nanoTime();
+        try {
+            CompletableFuture.allOf(tarefas.stream()
+                    .map(tarefa -> CompletableFuture.runAsync(tarefa, executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            // Um índice incompleto responderia errado: a partida falha como falharia sem o paralelismo
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.info("Índices reconstruídos em {} ms com {} threads", (System.nanoTime() - inicio) / 1_000_000, threads);
+    }
+}
@@ -0,0 +1,215 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.AlteracaoDTO;
+import com.biblioteca.dto.AlteracoesDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+// Feed incremental do catálogo: cada livro, autor e empréstimo gravado ou removido recebe a próxima sequência
+// de alteracoes_seq, e o cliente pede só o que mudou depois da última sequência que viu. As alterações da
+// transação são acumuladas e gravadas de uma vez no fim dela, depois do último flush do Hibernate. A sequência
+// não trava nada entre transações, então uma sequência menor pode ser confirmada depois de uma maior. Para o
+// cursor nunca pular uma alteração confirmada depois, o feed só entrega até antes da menor sequência que uma
+// transação ainda em andamento possa ter recebido (a marca d'água, mantida aqui: a aplicação roda numa única
+// instância, como os índices em memória já pressupõem).
+@Component
+public class RegistroAlteracoes {
+
+    public enum Recurso { AUTOR, LIVRO, EMPRESTIMO }
+
+    // Atendida pelo índice único (recurso, sequencia)
+    public static final String CONSULTA_ALTERACOES = "SELECT recurso_id, sequencia, removido FROM alteracoes " +
+            "WHERE recurso = ? AND sequencia > ? AND sequencia <= ? ORDER BY sequencia LIMIT ?";
+
+    private static final String SORTEAR_SEQUENCIAS = "SELECT NEXT VALUE FOR alteracoes_seq FROM SYSTEM_RANGE(1, ?)";
+    private static final String MAIOR_SEQUENCIA = "SELECT COALESCE(MAX(sequencia), 0) FROM alteracoes";
+    private static final String GRAVAR_ALTERACAO = "MERGE INTO alteracoes " +
+            "(recurso, recurso_id, sequencia, removido, data_alteracao) KEY (recurso, recurso_id) VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record Chave(Recurso recurso, Long id) {}
+
+    private record Linha(Long id, long sequencia, boolean removido) {}
+
+    // Alterações da transação e, depois de sorteadas as sequências, o limite inferior delas na marca d'água
+    private static class Lote {
+        final Map<Chave, Boolean> alteracoes = new LinkedHashMap<>();
+        Long marca;
+    }
+
+    // Limites inferiores das transações que já podem ter sorteado sequências e ainda não terminaram, com
+    // quantas transações em cada um, e a maior sequência já sorteada (-1 enquanto não for lida do banco)
+    private final TreeMap<Long, Integer> emAndamento = new TreeMap<>();
+    private long maiorSorteada = -1;
+
+    public void salvo(Recurso recurso, Long id) {
+        registrar(recurso, List.of(id), false);
+    }
+
+    public void salvos(Recurso recurso, Collection<Long> ids) {
+        registrar(recurso, ids, false);
+    }
+
+    public void removido(Recurso recurso, Long id) {
+        registrar(recurso, List.of(id), true);
+    }
+
+    // Uma página do feed a partir do cursor; o cursor devolvido vale mesmo sem alterações e é o próximo "desde".
+    // Um registro que sumiu entre a leitura do feed e a dos dados sai como removido: a remoção vem em seguida.
+    public <T> AlteracoesDTO<T> alteracoes(Recurso recurso, String desde, Integer limite,
+                                           Function<List<Long>, Map<Long, T>> carregar) {
+        long aposSequencia = Paginacao.aposId(desde);
+        int tamanho = Paginacao.limite(limite);
+        List<Linha> linhas = jdbcTemplate.query(CONSULTA_ALTERACOES,
+                (resultado, numero) -> new Linha(resultado.getLong(1), resultado.getLong(2), resultado.getBoolean(3)),
+                recurso.name(), aposSequencia, limiteSeguro(), tamanho + 1);
+
+        boolean maisAlteracoes = linhas.size() > tamanho;
+        if (maisAlteracoes) {
+            linhas = linhas.subList(0, tamanho);
+        }
+        List<Long> salvos = linhas.stream().filter(linha -> !linha.removido()).map(Linha::id).toList();
+        Map<Long, T> dados = salvos.isEmpty() ? Map.of() : carregar.apply(salvos);
+
+        List<AlteracaoDTO<T>> alteracoes = new ArrayList<>(linhas.size());
+        for (Linha linha : linhas) {
+            T atual = linha.removido() ? null : dados.get(linha.id());
+            alteracoes.add(new AlteracaoDTO<>(linha.id(), atual == null, atual));
+        }
+        long ultima = linhas.isEmpty() ? aposSequencia : linhas.get(linhas.size() - 1).sequencia();
+        return new AlteracoesDTO<>(alteracoes, Paginacao.cursor(ultima), maisAlteracoes);
+    }
+
+    private void registrar(Recurso recurso, Collection<Long> ids, boolean removido) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            transactionTemplate.executeWithoutResult(status -> registrar(recurso, ids, removido));
+            return;
+        }
+        Map<Chave, Boolean> pendentes = lote().alteracoes;
+        for (Long id : ids) {
+            // A última alteração do registro na transação é a que vale
+            Chave chave = new Chave(recurso, id);
+            pendentes.remove(chave);
+            pendentes.put(chave, removido);
+        }
+    }
+
+    // Na primeira alteração da transação o lote é ligado a ela e a gravação é agendada na sessão do Hibernate,
+    // que a executa depois do flush do commit: alterações detectadas só nesse flush também entram
+    private Lote lote() {
+        Lote lote = (Lote) TransactionSynchronizationManager.getResource(this);
+        if (lote != null) {
+            return lote;
+        }
+        Lote novo = new Lote();
+        TransactionSynchronizationManager.bindResource(this, novo);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RegistroAlteracoes.this);
+                // Confirmadas ou desfeitas, as sequências do lote não seguram mais o feed
+                if (novo.marca != null) {
+                    concluir(novo.marca);
+                }
+            }
+        });
+        entityManager.unwrap(SessionImplementor.class).getActionQueue()
+                .registerProcess(sessao -> sessao.doWork(conexao -> gravar(conexao, novo)));
+        return novo;
+    }
+
+    private void gravar(Connection conexao, Lote lote) throws SQLException {
+        Map<Chave, Boolean> pendentes = lote.alteracoes;
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        // Entra na marca d'água antes de sortear: toda sequência que vier agora é maior que a marca
+        lote.marca = iniciar();
+        List<Long> sequencias = new ArrayList<>(pendentes.size());
+        try (PreparedStatement sortear = conexao.prepareStatement(SORTEAR_SEQUENCIAS)) {
+            sortear.setInt(1, pendentes.size());
+            try (ResultSet resultado = sortear.executeQuery()) {
+                while (resultado.next()) {
+                    sequencias.add(resultado.getLong(1));
+                }
+            }
+        }
+        Collections.sort(sequencias);
+        sorteadas(sequencias.get(sequencias.size() - 1));
+
+        Iterator<Long> sequencia = sequencias.iterator();
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        try (PreparedStatement gravar = conexao.prepareStatement(GRAVAR_ALTERACAO)) {
+            for (Map.Entry<Chave, Boolean> alteracao : pendentes.entrySet()) {
+                gravar.setString(1, alteracao.getKey().recurso().name());
+                gravar.setLong(2, alteracao.getKey().id());
+                gravar.setLong(3, sequencia.next());
+                gravar.setBoolean(4, alteracao.getValue());
+                gravar.setTimestamp(5, agora);
+                gravar.addBatch();
+            }
+            gravar.executeBatch();
+        }
+    }
+
+    private synchronized long iniciar() {
+        long marca = maiorSorteada() + 1;
+        emAndamento.merge(marca, 1, Integer::sum);
+        return marca;
+    }
+
+    private synchronized void sorteadas(long ultima) {
+        maiorSorteada = Math.max(maiorSorteada(), ultima);
+    }
+
+    private synchronized void concluir(long marca) {
+        emAndamento.computeIfPresent(marca, (chave, transacoes) -> transacoes == 1 ? null : transacoes - 1);
+    }
+
+    // Toda sequência até aqui já foi confirmada ou desfeita; as seguintes ainda podem aparecer fora de ordem
+    private synchronized long limiteSeguro() {
+        return emAndamento.isEmpty() ? maiorSorteada() : emAndamento.firstKey() - 1;
+    }
+
+    // Lida uma vez, na primeira necessidade: na partida não há transação em andamento
+    private long maiorSorteada() {
+        if (maiorSorteada < 0) {
+            maiorSorteada = jdbcTemplate.queryForObject(MAIOR_SEQUENCIA, Long.class);
+        }
+        return maiorSorteada;
+    }
+}
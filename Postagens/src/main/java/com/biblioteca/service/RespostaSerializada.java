@@ -0,0 +1,6 @@
+package com.biblioteca.service;
+
+// Corpo JSON já serializado de uma leitura do catálogo. O ETag forte é calculado sobre os próprios bytes;
+// autorId permite descartar a entrada quando o autor muda, já que o nome dele aparece nos livros.
+public record RespostaSerializada(byte[] corpo, String etag, String proximoCursor, Long autorId) {
+}
@@ -0,0 +1,101 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.SenhaConfig;
+import com.biblioteca.exception.ServicoSobrecarregadoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// BCrypt roda em um pool próprio e limitado, para que rajadas de login não consumam as threads do Tomcat
+@Service
+public class SenhaService {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private SenhaConfig senhaConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+    private Timer tempoHash;
+    private Timer tempoVerificacao;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger contador = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                senhaConfig.getThreads(),
+                senhaConfig.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(senhaConfig.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "senha.executor");
+        tempoHash = Timer.builder("senha.hash").register(meterRegistry);
+        tempoVerificacao = Timer.builder("senha.verificacao").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+
+    public String codificar(String senha) {
+        return executar(() -> tempoHash.record(() -> passwordEncoder.encode(senha)));
+    }
+
+    public boolean verificar(String senha, String hash) {
+        return executar(() -> tempoVerificacao.record(() -> passwordEncoder.matches(senha, hash)));
+    }
+
+    // Verdadeiro quando o hash foi gerado com custo menor que o configurado em senha.bcrypt-strength
+    public boolean precisaRehash(String hash) {
+        return passwordEncoder.upgradeEncoding(hash);
+    }
+
+    private <T> T executar(Callable<T> tarefa) {
+        Future<T> future;
+        try {
+            future = executor.submit(tarefa);
+        } catch (RejectedExecutionException e) {
+            throw new ServicoSobrecarregadoException("Serviço de autenticação sobrecarregado, tente novamente", e);
+        }
+
+        try {
+            return future.get(senhaConfig.getTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServicoSobrecarregadoException("Tempo de autenticação esgotado, tente novamente", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicoSobrecarregadoException("Autenticação interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.biblioteca.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Trie compactada (radix) de títulos e nomes normalizados. Cada texto entra uma vez por início de palavra,
+// para que "casm" complete "Dom Casmurro". Cada nó guarda o maior peso da sua subárvore, o que permite
+// buscar os N mais populares em ordem, sem percorrer a subárvore inteira.
+class TrieAutocompletar {
+
+    enum Tipo { LIVRO, AUTOR }
+
+    record Sugestao(Tipo tipo, long id, String texto, long peso) {}
+
+    private static final class Item {
+        final Tipo tipo;
+        final long id;
+        final String texto;
+        final String[] chaves;
+        long peso;
+
+        Item(Tipo tipo, long id, String texto, String[] chaves, long peso) {
+            this.tipo = tipo;
+            this.id = id;
+            this.texto = texto;
+            this.chaves = chaves;
+            this.peso = peso;
+        }
+    }
+
+    private static final class No {
+        String rotulo;
+        No[] filhos = SEM_FILHOS;
+        Item[] itens = SEM_ITENS;
+        long maiorPeso;
+
+        No(String rotulo) {
+            this.rotulo = rotulo;
+        }
+    }
+
+    private record Candidato(long peso, No no, Item item) {}
+
+    private static final No[] SEM_FILHOS = new No[0];
+    private static final Item[] SEM_ITENS = new Item[0];
+
+    // Estimativa de ocupação com referências comprimidas (cabeçalho de 12 bytes, referências de 4)
+    private static final int BYTES_NO = 32;
+    private static final int BYTES_ITEM = 40;
+    private static final int BYTES_STRING = 40;
+    private static final int BYTES_ARRAY = 16;
+
+    private static final Comparator<Candidato> ORDEM = Comparator
+            .comparingLong(Candidato::peso).reversed()
+            .thenComparing(candidato -> candidato.item() == null)
+            .thenComparing(candidato -> candidato.item() == null ? "" : candidato.item().texto);
+
+    private final No raiz = new No("");
+    private final Map<Tipo, Map<Long, Item>> itens = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    TrieAutocompletar() {
+        for (Tipo tipo : Tipo.values()) {
+            itens.put(tipo, new HashMap<>());
+        }
+    }
+
+    void inserir(Tipo tipo, long id, String texto, long peso) {
+        String[] chaves = chaves(texto);
+        lock.writeLock().lock();
+        try {
+            Item antigo = itens.get(tipo).remove(id);
+            if (antigo != null) {
+                peso = Math.max(peso, antigo.peso);
+                removerItem(antigo);
+            }
+            if (chaves.length == 0) {
+                return;
+            }
+            Item item = new Item(tipo, id, texto, chaves, peso);
+            itens.get(tipo).put(id, item);
+            for (String chave : chaves) {
+                inserirChave(chave, item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remover(Tipo tipo, long id) {
+        lock.writeLock().lock();
+        try {
+            Item item = itens.get(tipo).remove(id);
+            if (item != null) {
+                removerItem(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Só aumenta o peso, então basta propagar o novo máximo pelo caminho de cada chave
+    void incrementar(Tipo tipo, long id, long delta) {
+        lock.writeLock().lock();
+        try {
+            Item item = itens.get(tipo).get(id);
+            if (item == null || delta <= 0) {
+                return;
+            }
+            item.peso += delta;
+            for (String chave : item.chaves) {
+                No no = raiz;
+                int i = 0;
+                no.maiorPeso = Math.max(no.maiorPeso, item.peso);
+                while (i < chave.length()) {
+                    no = no.filhos[indiceFilho(no, chave.charAt(i))];
+                    no.maiorPeso = Math.max(no.maiorPeso, item.peso);
+                    i += no.rotulo.length();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<Sugestao> completar(String prefixo, int limite) {
+        String normalizado = normalizar(prefixo);
+        if (normalizado.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            No no = raiz;
+            int i = 0;
+            while (i < normalizado.length()) {
+                int f = indiceFilho(no, normalizado.charAt(i));
+                if (f < 0) {
+                    return List.of();
+                }
+                No filho = no.filhos[f];
+                int comum = prefixoComum(filho.rotulo, normalizado, i);
+                if (i + comum < normalizado.length() && comum < filho.rotulo.length()) {
+                    return List.of();
+                }
+                no = filho;
+                i += comum;
+            }
+
+            // Busca pelo melhor primeiro: um item só sai da fila depois de todos os nós que poderiam superá-lo
+            List<Sugestao> sugestoes = new ArrayList<>(limite);
+            Set<Item> vistos = new HashSet<>();
+            PriorityQueue<Candidato> fila = new PriorityQueue<>(ORDEM);
+            fila.add(new Candidato(no.maiorPeso, no, null));
+            while (!fila.isEmpty() && sugestoes.size() < limite) {
+                Candidato candidato = fila.poll();
+                if (candidato.item() != null) {
+                    Item item = candidato.item();
+                    if (vistos.add(item)) {
+                        sugestoes.add(new Sugestao(item.tipo, item.id, item.texto, item.peso));
+                    }
+                    continue;
+                }
+                for (Item item : candidato.no().itens) {
+                    fila.add(new Candidato(item.peso, null, item));
+                }
+                for (No filho : candidato.no().filhos) {
+                    fila.add(new Candidato(filho.maiorPeso, filho, null));
+                }
+            }
+            return sugestoes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long peso(Tipo tipo, long id) {
+        lock.readLock().lock();
+        try {
+            Item item = itens.get(tipo).get(id);
+            return item == null ? 0 : item.peso;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int quantidadeItens() {
+        lock.readLock().lock();
+        try {
+            return itens.values().stream().mapToInt(Map::size).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int quantidadeNos() {
+        lock.readLock().lock();
+        try {
+            return contarNos(raiz);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long memoriaEstimada() {
+        lock.readLock().lock();
+        try {
+            long bytes = memoria(raiz);
+            for (Map<Long, Item> porId : itens.values()) {
+                for (Item item : porId.values()) {
+                    bytes += BYTES_ITEM + BYTES_STRING + item.texto.length()
+                            + BYTES_ARRAY + 4L * item.chaves.length;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void inserirChave(String chave, Item item) {
+        No no = raiz;
+        int i = 0;
+        while (true) {
+            no.maiorPeso = Math.max(no.maiorPeso, item.peso);
+            if (i == chave.length()) {
+                no.itens = Arrays.copyOf(no.itens, no.itens.length + 1);
+                no.itens[no.itens.length - 1] = item;
+                return;
+            }
+            int f = indiceFilho(no, chave.charAt(i));
+            if (f < 0) {
+                No folha = new No(chave.substring(i));
+                folha.itens = new Item[]{item};
+                folha.maiorPeso = item.peso;
+                no.filhos = Arrays.copyOf(no.filhos, no.filhos.length + 1);
+                no.filhos[no.filhos.length - 1] = folha;
+                return;
+            }
+            No filho = no.filhos[f];
+            int comum = prefixoComum(filho.rotulo, chave, i);
+            if (comum < filho.rotulo.length()) {
+                // Divide a aresta no ponto em que a chave diverge do rótulo
+                No meio = new No(filho.rotulo.substring(0, comum));
+                filho.rotulo = filho.rotulo.substring(comum);
+                meio.filhos = new No[]{filho};
+                meio.maiorPeso = filho.maiorPeso;
+                no.filhos[f] = meio;
+                filho = meio;
+            }
+            no = filho;
+            i += comum;
+        }
+    }
+
+    private void removerItem(Item item) {
+        for (String chave : item.chaves) {
+            removerChave(raiz, chave, 0, item);
+        }
+    }
+
+    // Remove a chave descendo recursivamente; na volta recalcula os máximos, poda nós vazios
+    // e junta nós que ficaram com um único filho, mantendo a trie compactada
+    private void removerChave(No no, String chave, int i, Item item) {
+        if (i == chave.length()) {
+            no.itens = Arrays.stream(no.itens).filter(existente -> existente != item).toArray(Item[]::new);
+        } else {
+            int f = indiceFilho(no, chave.charAt(i));
+            if (f < 0 || !chave.startsWith(no.filhos[f].rotulo, i)) {
+                return;
+            }
+            No filho = no.filhos[f];
+            removerChave(filho, chave, i + filho.rotulo.length(), item);
+            if (filho.itens.length == 0 && filho.filhos.length == 0) {
+                No[] restantes = new No[no.filhos.length - 1];
+                System.arraycopy(no.filhos, 0, restantes, 0, f);
+                System.arraycopy(no.filhos, f + 1, restantes, f, restantes.length - f);
+                no.filhos = restantes;
+            } else if (filho.itens.length == 0 && filho.filhos.length == 1) {
+                No neto = filho.filhos[0];
+                neto.rotulo = filho.rotulo + neto.rotulo;
+                no.filhos[f] = neto;
+            }
+        }
+
+        long maior = 0;
+        for (Item existente : no.itens) {
+            maior = Math.max(maior, existente.peso);
+        }
+        for (No filho : no.filhos) {
+            maior = Math.max(maior, filho.maiorPeso);
+        }
+        no.maiorPeso = maior;
+    }
+
+    private int contarNos(No no) {
+        int total = 1;
+        for (No filho : no.filhos) {
+            total += contarNos(filho);
+        }
+        return total;
+    }
+
+    private long memoria(No no) {
+        long bytes = BYTES_NO + BYTES_STRING + no.rotulo.length()
+                + BYTES_ARRAY + 4L * no.filhos.length
+                + BYTES_ARRAY + 4L * no.itens.length;
+        for (No filho : no.filhos) {
+            bytes += memoria(filho);
+        }
+        return bytes;
+    }
+
+    private static int indiceFilho(No no, char primeiro) {
+        for (int f = 0; f < no.filhos.length; f++) {
+            if (no.filhos[f].rotulo.charAt(0) == primeiro) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    private static int prefixoComum(String rotulo, String chave, int inicio) {
+        int limite = Math.min(rotulo.length(), chave.length() - inicio);
+        int i = 0;
+        while (i < limite && rotulo.charAt(i) == chave.charAt(inicio + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    // Sem acentos, minúsculo e com um único espaço entre palavras
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return IndiceInvertido.normalizar(texto).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    // Uma chave por início de palavra; palavras que são stopwords não abrem chave própria
+    private static String[] chaves(String texto) {
+        String normalizado = normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return new String[0];
+        }
+        List<String> chaves = new ArrayList<>();
+        chaves.add(normalizado);
+        for (int i = normalizado.indexOf(' '); i >= 0; i = normalizado.indexOf(' ', i + 1)) {
+            String sufixo = normalizado.substring(i + 1);
+            int fim = sufixo.indexOf(' ');
+            String palavra = fim < 0 ? sufixo : sufixo.substring(0, fim);
+            if (!IndiceInvertido.stopword(palavra)) {
+                chaves.add(sufixo);
+            }
+        }
+        return chaves.stream().distinct().toArray(String[]::new);
+    }
+}
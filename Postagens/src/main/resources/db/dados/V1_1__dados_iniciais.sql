@@ -0,0 +1,27 @@
+-- Inserir usuário padrão (senha: admin123)
+INSERT INTO usuarios (id, nome, email, senha, data_criacao) 
+VALUES (1, 'Administrador', 'admin@biblioteca.com', '$2a$10$m52xciMJq8MeYt2wFD3WDO97G/Q/U34VOx/P5z63MsFM/XKRKnOIi', CURRENT_TIMESTAMP);
+
+-- Inserir autores
+INSERT INTO autores (id, nome, biografia, data_criacao) 
+VALUES 
+(1, 'Machado de Assis', 'Escritor brasileiro, considerado o maior nome da literatura nacional', CURRENT_TIMESTAMP),
+(2, 'Clarice Lispector', 'Escritora brasileira de origem ucraniana, uma das mais importantes do século XX', CURRENT_TIMESTAMP),
+(3, 'Jorge Amado', 'Escritor brasileiro, autor de obras como Gabriela, Cravo e Canela', CURRENT_TIMESTAMP),
+(4, 'Paulo Coelho', 'Escritor brasileiro, autor de O Alquimista', CURRENT_TIMESTAMP),
+(5, 'Monteiro Lobato', 'Escritor brasileiro, criador do Sítio do Picapau Amarelo', CURRENT_TIMESTAMP);
+
+-- Inserir livros
+INSERT INTO livros (id, titulo, sinopse, isbn, ano_publicacao, quantidade, quantidade_disponivel, autor_id, data_criacao) 
+VALUES 
+(1, 'Dom Casmurro', 'Romance de Machado de Assis que narra a história de Bentinho e Capitu', '9788535902778', 1899, 5, 5, 1, CURRENT_TIMESTAMP),
+(2, 'Memórias Póstumas de Brás Cubas', 'Romance narrado por um defunto autor', '9788535902779', 1881, 3, 3, 1, CURRENT_TIMESTAMP),
+(3, 'A Hora da Estrela', 'Último romance de Clarice Lispector', '9788535902780', 1977, 4, 4, 2, CURRENT_TIMESTAMP),
+(4, 'Gabriela, Cravo e Canela', 'Romance de Jorge Amado sobre a Bahia', '9788535902781', 1958, 6, 6, 3, CURRENT_TIMESTAMP),
+(5, 'O Alquimista', 'Romance sobre a busca pelo sonho pessoal', '9788535902782', 1988, 8, 8, 4, CURRENT_TIMESTAMP),
+(6, 'Reinações de Narizinho', 'Primeiro livro do Sítio do Picapau Amarelo', '9788535902783', 1931, 4, 4, 5, CURRENT_TIMESTAMP);
+
+-- Ids gerados pelas sequences começam depois dos registros iniciais
+ALTER SEQUENCE usuarios_seq RESTART WITH 101;
+ALTER SEQUENCE autores_seq RESTART WITH 101;
+ALTER SEQUENCE livros_seq RESTART WITH 101;
@@ -0,0 +1,58 @@
+-- Esquema equivalente ao que o Hibernate gerava com ddl-auto; daqui em diante o Hibernate só valida
+
+CREATE SEQUENCE autores_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE livros_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE usuarios_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE emprestimos_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE autores (
+    id BIGINT NOT NULL,
+    nome VARCHAR(100) NOT NULL,
+    biografia VARCHAR(500),
+    data_nascimento TIMESTAMP(6),
+    data_criacao TIMESTAMP(6) NOT NULL,
+    data_atualizacao TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE livros (
+    id BIGINT NOT NULL,
+    titulo VARCHAR(200) NOT NULL,
+    sinopse VARCHAR(1000),
+    isbn VARCHAR(13) NOT NULL,
+    ano_publicacao INTEGER,
+    quantidade INTEGER NOT NULL,
+    quantidade_disponivel INTEGER NOT NULL,
+    autor_id BIGINT NOT NULL,
+    data_criacao TIMESTAMP(6) NOT NULL,
+    data_atualizacao TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_livros_isbn UNIQUE (isbn),
+    CONSTRAINT fk_livros_autor FOREIGN KEY (autor_id) REFERENCES autores (id)
+);
+
+CREATE TABLE usuarios (
+    id BIGINT NOT NULL,
+    nome VARCHAR(100) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    senha VARCHAR(255) NOT NULL,
+    data_criacao TIMESTAMP(6) NOT NULL,
+    data_atualizacao TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+);
+
+CREATE TABLE emprestimos (
+    id BIGINT NOT NULL,
+    livro_id BIGINT NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    data_emprestimo TIMESTAMP(6) NOT NULL,
+    data_devolucao_prevista TIMESTAMP(6) NOT NULL,
+    data_devolucao_efetiva TIMESTAMP(6),
+    status VARCHAR(255) NOT NULL CHECK (status IN ('ATIVO', 'DEVOLVIDO', 'ATRASADO')),
+    data_criacao TIMESTAMP(6) NOT NULL,
+    data_atualizacao TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_emprestimos_livro FOREIGN KEY (livro_id) REFERENCES livros (id),
+    CONSTRAINT fk_emprestimos_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
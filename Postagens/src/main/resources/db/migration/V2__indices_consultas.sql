@@ -0,0 +1,20 @@
+-- Índices das consultas frequentes dos repositórios. As chaves estrangeiras e o status vêm primeiro
+-- porque são filtros de igualdade; id e datas ficam por último para os intervalos e a ordenação.
+
+-- Empréstimos de um usuário (todos ou só os ativos), contagem de ativos por usuário
+CREATE INDEX idx_emprestimos_usuario_status ON emprestimos (usuario_id, status);
+
+-- Empréstimos de um livro e contagem de ativos por livro
+CREATE INDEX idx_emprestimos_livro_status ON emprestimos (livro_id, status);
+
+-- Listagens por status e busca de atrasados (status = 'ATIVO' AND data_devolucao_prevista < agora)
+CREATE INDEX idx_emprestimos_status_devolucao ON emprestimos (status, data_devolucao_prevista);
+
+-- Livros de um autor, paginados por id
+CREATE INDEX idx_livros_autor ON livros (autor_id, id);
+
+-- Livros disponíveis e indisponíveis
+CREATE INDEX idx_livros_disponivel ON livros (quantidade_disponivel);
+
+-- Checagem de nome duplicado no cadastro de autores
+CREATE INDEX idx_autores_nome ON autores (nome);
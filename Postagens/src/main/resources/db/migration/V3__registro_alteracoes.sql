@@ -0,0 +1,34 @@
+-- Registro de alterações do feed incremental (/alteracoes). Uma linha por registro, com a sequência da última
+-- alteração: o feed cresce com o número de registros, não com o de escritas. Exclusões ficam como marcação.
+CREATE TABLE alteracoes (
+    recurso VARCHAR(20) NOT NULL CHECK (recurso IN ('AUTOR', 'LIVRO', 'EMPRESTIMO')),
+    recurso_id BIGINT NOT NULL,
+    sequencia BIGINT NOT NULL,
+    removido BOOLEAN NOT NULL,
+    data_alteracao TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (recurso, recurso_id)
+);
+
+-- Leitura do feed: recurso = ? AND sequencia > ? ORDER BY sequencia
+CREATE UNIQUE INDEX idx_alteracoes_recurso_sequencia ON alteracoes (recurso, sequencia);
+
+-- Contador das sequências. A transação reserva as suas logo antes do commit e a linha fica travada até ele,
+-- então uma sequência nunca fica visível depois de outra maior
+CREATE TABLE alteracoes_contador (
+    id INTEGER NOT NULL,
+    valor BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- O que já existe entra no feed, para que um cliente novo sincronize tudo a partir do cursor vazio
+INSERT INTO alteracoes (recurso, recurso_id, sequencia, removido, data_alteracao)
+SELECT recurso, recurso_id, ROW_NUMBER() OVER (ORDER BY ordem, recurso_id), FALSE, CURRENT_TIMESTAMP
+FROM (
+    SELECT 'AUTOR' AS recurso, id AS recurso_id, 1 AS ordem FROM autores
+    UNION ALL
+    SELECT 'LIVRO', id, 2 FROM livros
+    UNION ALL
+    SELECT 'EMPRESTIMO', id, 3 FROM emprestimos
+) existentes;
+
+INSERT INTO alteracoes_contador (id, valor) SELECT 1, COALESCE(MAX(sequencia), 0) FROM alteracoes;
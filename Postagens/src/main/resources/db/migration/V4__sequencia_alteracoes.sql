@@ -0,0 +1,8 @@
+-- As sequências do feed passam a sair de uma SEQUENCE, que não trava entre transações: o contador de linha
+-- única enfileirava todas as escritas do catálogo até o commit. A ordem de visibilidade fica com o feed, que
+-- só entrega alterações abaixo da menor sequência ainda sem commit
+CREATE SEQUENCE alteracoes_seq;
+
+ALTER SEQUENCE alteracoes_seq RESTART WITH (SELECT valor + 1 FROM alteracoes_contador WHERE id = 1);
+
+DROP TABLE alteracoes_contador;
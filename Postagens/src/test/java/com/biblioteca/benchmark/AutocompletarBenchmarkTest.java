@@ -0,0 +1,106 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.service.AutocompletarService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Executar com: mvn test -Dtest=AutocompletarBenchmarkTest -Dbenchmark=true
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=OFF")
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AutocompletarBenchmarkTest {
+
+    private static final int LIVROS = 50_000;
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int CONSULTAS_POR_THREAD = 50_000;
+    private static final String[] PALAVRAS = {
+            "amor", "memórias", "casa", "noite", "cidade", "sertão", "grande", "vidas", "secas", "hora",
+            "estrela", "capitães", "areia", "tempo", "vento", "mar", "morto", "ensaio", "cegueira", "sol"};
+
+    @Autowired
+    private AutocompletarService autocompletarService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void medirLatenciaDasSugestoes() throws Exception {
+        Random random = new Random(42);
+        for (long id = 1; id <= LIVROS; id++) {
+            String titulo = PALAVRAS[random.nextInt(PALAVRAS.length)] + " " + PALAVRAS[random.nextInt(PALAVRAS.length)]
+                    + " " + PALAVRAS[random.nextInt(PALAVRAS.length)] + " " + id;
+            autocompletarService.livroSalvo(1_000_000 + id, 1L, titulo);
+            autocompletarService.emprestimosRegistrados(1_000_000 + id, random.nextInt(100));
+        }
+
+        System.out.printf("Trie com %.0f nós, ~%.1f MB%n",
+                meterRegistry.get("autocompletar.nos").gauge().value(),
+                meterRegistry.get("autocompletar.memoria").gauge().value() / (1024 * 1024));
+
+        // Aquecimento do JIT
+        consultar(10_000, new Random(1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long inicio = System.nanoTime();
+        List<Future<long[]>> resultados = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int semente = t;
+            resultados.add(executor.submit(() -> consultar(CONSULTAS_POR_THREAD, new Random(semente))));
+        }
+        long[] latencias = new long[THREADS * CONSULTAS_POR_THREAD];
+        for (int t = 0; t < THREADS; t++) {
+            System.arraycopy(resultados.get(t).get(), 0, latencias, t * CONSULTAS_POR_THREAD, CONSULTAS_POR_THREAD);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        executor.shutdown();
+
+        Arrays.sort(latencias);
+        System.out.printf("%d consultas em %d threads: %.0f consultas/s%n", latencias.length, THREADS, latencias.length / segundos);
+        imprimirPercentis(latencias);
+
+        // Busca aproximada com uma letra trocada em cada palavra
+        Random random2 = new Random(7);
+        long[] aproximadas = new long[CONSULTAS_POR_THREAD / 10];
+        for (int i = 0; i < aproximadas.length; i++) {
+            char[] palavra = PALAVRAS[random2.nextInt(PALAVRAS.length)].toCharArray();
+            palavra[random2.nextInt(palavra.length)] = 'x';
+            long inicioConsulta = System.nanoTime();
+            autocompletarService.buscarAproximado(new String(palavra), 10);
+            aproximadas[i] = System.nanoTime() - inicioConsulta;
+        }
+        Arrays.sort(aproximadas);
+        System.out.printf("%d buscas aproximadas:%n", aproximadas.length);
+        imprimirPercentis(aproximadas);
+    }
+
+    private void imprimirPercentis(long[] latencias) {
+        System.out.printf("p50 %.1f µs, p99 %.1f µs, p99.9 %.1f µs%n",
+                latencias[latencias.length / 2] / 1000.0,
+                latencias[(int) (latencias.length * 0.99)] / 1000.0,
+                latencias[(int) (latencias.length * 0.999)] / 1000.0);
+    }
+
+    private long[] consultar(int total, Random random) {
+        long[] latencias = new long[total];
+        for (int i = 0; i < total; i++) {
+            String palavra = PALAVRAS[random.nextInt(PALAVRAS.length)];
+            String prefixo = palavra.substring(0, 1 + random.nextInt(palavra.length()));
+            long inicio = System.nanoTime();
+            autocompletarService.completar(prefixo, 10);
+            latencias[i] = System.nanoTime() - inicio;
+        }
+        return latencias;
+    }
+}
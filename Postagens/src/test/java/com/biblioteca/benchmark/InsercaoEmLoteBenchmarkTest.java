@@ -0,0 +1,61 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.entity.Autor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+// Executar com: mvn test -Dtest=InsercaoEmLoteBenchmarkTest -Dbenchmark=true
+@SpringBootTest(properties = "logging.level.org.hibernate.SQL=OFF")
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InsercaoEmLoteBenchmarkTest {
+
+    private static final int TOTAL = 100_000;
+    private static final int TAMANHO_LOTE = 50;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void compararInsercoesPorSegundo() {
+        // Aquecimento do JIT e do pool de conexões
+        inserir(5_000, 1);
+        inserir(5_000, TAMANHO_LOTE);
+
+        // Um INSERT por ida ao banco, como acontecia com GenerationType.IDENTITY
+        double semLote = inserir(TOTAL, 1);
+        // Ids da sequence pooled-lo e INSERTs agrupados pelo driver JDBC
+        double comLote = inserir(TOTAL, TAMANHO_LOTE);
+
+        System.out.printf("%d autores sem lote: %.0f inserções/s%n", TOTAL, semLote);
+        System.out.printf("%d autores com lote de %d: %.0f inserções/s (%.1fx)%n",
+                TOTAL, TAMANHO_LOTE, comLote, comLote / semLote);
+    }
+
+    private double inserir(int total, int tamanhoLote) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.unwrap(Session.class).setJdbcBatchSize(tamanhoLote);
+        long inicio = System.nanoTime();
+        try {
+            entityManager.getTransaction().begin();
+            for (int i = 0; i < total; i++) {
+                entityManager.persist(new Autor("Autor " + i));
+                if ((i + 1) % TAMANHO_LOTE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        return total / segundos;
+    }
+}
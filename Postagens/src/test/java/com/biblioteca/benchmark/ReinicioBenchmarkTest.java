@@ -0,0 +1,95 @@
+package com.biblioteca.benchmark;
+
+import com.biblioteca.BibliotecaApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Executar com: mvn test -Dtest=ReinicioBenchmarkTest -Dbenchmark=true
+// Sobe a aplicação no perfil producao (H2 em arquivo) e mede o tempo até ela ficar pronta, incluindo a
+// reconstrução dos índices em memória: partida fria com o arquivo vazio e reinícios com 1 milhão de empréstimos.
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReinicioBenchmarkTest {
+
+    private static final int AUTORES = 2_000;
+    private static final int LIVROS = 20_000;
+    private static final int USUARIOS = 50_000;
+    private static final int EMPRESTIMOS = 1_000_000;
+    private static final int LOTE = 100_000;
+    private static final int REINICIOS = 3;
+
+    @TempDir
+    Path aquecimento;
+
+    @TempDir
+    Path dados;
+
+    @Test
+    void compararPartidaFriaEReinicio() {
+        // Aquecimento do JIT e do carregamento de classes, em outro arquivo
+        iniciar(aquecimento, contexto -> {});
+
+        long fria = iniciar(dados, contexto -> {
+            long inicio = System.nanoTime();
+            popular(contexto.getBean(JdbcTemplate.class));
+            System.out.printf("Carga de %d empréstimos: %d ms%n", EMPRESTIMOS, (System.nanoTime() - inicio) / 1_000_000);
+        });
+        System.out.printf("Partida fria (arquivo vazio, migrations): %d ms%n", fria);
+
+        for (int i = 1; i <= REINICIOS; i++) {
+            long reinicio = iniciar(dados, contexto -> assertEquals(EMPRESTIMOS,
+                    contexto.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM emprestimos", Integer.class)));
+            System.out.printf("Reinício %d (%d livros, %d empréstimos): %d ms%n", i, LIVROS, EMPRESTIMOS, reinicio);
+        }
+    }
+
+    // Retorna o tempo até a aplicação ficar pronta; o contexto é fechado em seguida, como num shutdown normal
+    private long iniciar(Path diretorio, Consumer<ConfigurableApplicationContext> depois) {
+        long inicio = System.nanoTime();
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(BibliotecaApplication.class)
+                .profiles("producao")
+                .properties("BIBLIOTECA_DADOS=" + diretorio,
+                        "server.port=0",
+                        "spring.devtools.restart.enabled=false",
+                        "logging.level.com.biblioteca=WARN")
+                .run();
+        long pronto = (System.nanoTime() - inicio) / 1_000_000;
+        try {
+            depois.accept(contexto);
+        } finally {
+            contexto.close();
+        }
+        return pronto;
+    }
+
+    private void popular(JdbcTemplate jdbc) {
+        jdbc.update("INSERT INTO autores (id, nome, data_criacao) " +
+                "SELECT X, 'Autor ' || X, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + AUTORES + ")");
+        jdbc.update("INSERT INTO livros (id, titulo, isbn, ano_publicacao, quantidade, quantidade_disponivel, autor_id, data_criacao) " +
+                "SELECT X, 'Livro ' || X, CAST(9780000000000 + X AS VARCHAR), 1900 + MOD(X, 125), 5, 5, " +
+                "1 + MOD(X, " + AUTORES + "), CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, " + LIVROS + ")");
+        jdbc.update("INSERT INTO usuarios (id, nome, email, senha, data_criacao) " +
+                "SELECT X, 'Leitor ' || X, 'leitor' || X || '@biblioteca.com', 'senha', CURRENT_TIMESTAMP " +
+                "FROM SYSTEM_RANGE(1, " + USUARIOS + ")");
+        for (int inicio = 1; inicio <= EMPRESTIMOS; inicio += LOTE) {
+            jdbc.update("INSERT INTO emprestimos (id, livro_id, usuario_id, data_emprestimo, data_devolucao_prevista, " +
+                    "data_devolucao_efetiva, status, data_criacao) " +
+                    "SELECT X, 1 + MOD(X, " + LIVROS + "), 1 + MOD(X * 7, " + USUARIOS + "), " +
+                    "DATEADD('DAY', -MOD(X, 700) - 14, CURRENT_TIMESTAMP), DATEADD('DAY', -MOD(X, 700), CURRENT_TIMESTAMP), " +
+                    "DATEADD('DAY', -MOD(X, 700) - 7, CURRENT_TIMESTAMP), 'DEVOLVIDO', CURRENT_TIMESTAMP " +
+                    "FROM SYSTEM_RANGE(" + inicio + ", " + (inicio + LOTE - 1) + ")");
+        }
+        jdbc.execute("ALTER SEQUENCE autores_seq RESTART WITH " + (AUTORES + 1));
+        jdbc.execute("ALTER SEQUENCE livros_seq RESTART WITH " + (LIVROS + 1));
+        jdbc.execute("ALTER SEQUENCE usuarios_seq RESTART WITH " + (USUARIOS + 1));
+        jdbc.execute("ALTER SEQUENCE emprestimos_seq RESTART WITH " + (EMPRESTIMOS + 1));
+    }
+}
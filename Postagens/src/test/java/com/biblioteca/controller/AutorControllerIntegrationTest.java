@@ -3,6 +3,7 @@ package com.biblioteca.controller;
 import com.biblioteca.dto.AutorDTO;
 import com.biblioteca.entity.Autor;
 import com.biblioteca.repository.AutorRepository;
+import com.biblioteca.service.CatalogoCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -37,6 +38,9 @@ class AutorControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CatalogoCache catalogoCache;
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -45,6 +49,8 @@ class AutorControllerIntegrationTest {
                 .webAppContextSetup(context)
                 .apply(springSecurity())
                 .build();
+        // Autores gravados direto pelo repositório não passam pela invalidação da listagem serializada
+        catalogoCache.invalidarListaAutores();
     }
 
     @Test
@@ -64,6 +70,28 @@ class AutorControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].biografia").value("Escritor brasileiro"));
     }
 
+    @Test
+    @WithMockUser
+    void listarTodos_ComLimite_DevePaginarPorCursor() throws Exception {
+        // Given
+        autorRepository.save(new Autor("Machado de Assis"));
+        autorRepository.save(new Autor("Clarice Lispector"));
+
+        // When
+        String cursor = mockMvc.perform(get("/api/autores").param("limite", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].nome").value("Machado de Assis"))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        // Then
+        mockMvc.perform(get("/api/autores").param("limite", "1").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nome").value("Clarice Lispector"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
     @Test
     @WithMockUser
     void buscarPorId_QuandoAutorExiste_DeveRetornarAutor() throws Exception {
@@ -0,0 +1,134 @@
+package com.biblioteca.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"coalescencia.janela=500", "coalescencia.espera=" + ConsultasCoalescidasTest.ESPERA_MS})
+@ActiveProfiles("test")
+class ConsultasCoalescidasTest {
+
+    static final long ESPERA_MS = 1_000;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private ConsultasCoalescidas consultasCoalescidas;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void executar_QuandoRequisicoesSimultaneas_DeveConsultarESerializarUmaVez() throws Exception {
+        // Given: a consulta só termina depois que todas as requisições chegaram
+        String chave = "teste " + UUID.randomUUID();
+        AtomicInteger consultas = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+        double coalescidasAntes = contador("coalescida");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            // When
+            List<Future<ResponseEntity<byte[]>>> respostas = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                respostas.add(executor.submit(() -> consultasCoalescidas.executar(chave, () -> {
+                    consultas.incrementAndGet();
+                    try {
+                        liberar.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return ResponseEntity.ok().header("X-Next-Cursor", "42").body(List.of("Dom Casmurro"));
+                })));
+            }
+            Thread.sleep(200);
+            liberar.countDown();
+
+            // Then
+            byte[] primeiro = respostas.get(0).get(30, TimeUnit.SECONDS).getBody();
+            for (Future<ResponseEntity<byte[]>> resposta : respostas) {
+                ResponseEntity<byte[]> entregue = resposta.get(30, TimeUnit.SECONDS);
+                assertSame(primeiro, entregue.getBody());
+                assertEquals("42", entregue.getHeaders().getFirst("X-Next-Cursor"));
+            }
+            assertEquals("[\"Dom Casmurro\"]", new String(primeiro, StandardCharsets.UTF_8));
+            assertEquals(1, consultas.get());
+            assertEquals(THREADS - 1, contador("coalescida") - coalescidasAntes);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void executar_DeveReaproveitarARespostaSoDentroDaJanela() throws Exception {
+        // Given
+        String chave = "teste " + UUID.randomUUID();
+        AtomicInteger consultas = new AtomicInteger();
+
+        // When
+        consultasCoalescidas.executar(chave, () -> ResponseEntity.ok(consultas.incrementAndGet()));
+        ResponseEntity<byte[]> dentro = consultasCoalescidas.executar(chave, () -> ResponseEntity.ok(consultas.incrementAndGet()));
+        Thread.sleep(1_000);
+        ResponseEntity<byte[]> depois = consultasCoalescidas.executar(chave, () -> ResponseEntity.ok(consultas.incrementAndGet()));
+
+        // Then
+        assertEquals("1", new String(dentro.getBody(), StandardCharsets.UTF_8));
+        assertEquals("2", new String(depois.getBody(), StandardCharsets.UTF_8));
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void executar_QuandoAConsultaEmAndamentoPassaDaEspera_DeveConsultarPorContaPropria() throws Exception {
+        // Given: a primeira consulta fica travada
+        String chave = "teste " + UUID.randomUUID();
+        CountDownLatch liberar = new CountDownLatch(1);
+        double desistenciasAntes = contador("desistencia");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<ResponseEntity<byte[]>> travada = executor.submit(() -> consultasCoalescidas.executar(chave, () -> {
+                try {
+                    liberar.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ResponseEntity.ok("travada");
+            }));
+            Thread.sleep(200);
+
+            // When
+            long inicio = System.nanoTime();
+            ResponseEntity<byte[]> propria = consultasCoalescidas.executar(chave, () -> ResponseEntity.ok("propria"));
+            long esperou = (System.nanoTime() - inicio) / 1_000_000;
+
+            // Then
+            assertEquals("\"propria\"", new String(propria.getBody(), StandardCharsets.UTF_8));
+            assertTrue(esperou >= ESPERA_MS && esperou < 10 * ESPERA_MS, "Esperou " + esperou + " ms");
+            assertEquals(1, contador("desistencia") - desistenciasAntes);
+            liberar.countDown();
+            assertEquals("\"travada\"", new String(travada.get(30, TimeUnit.SECONDS).getBody(), StandardCharsets.UTF_8));
+        } finally {
+            liberar.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private double contador(String resultado) {
+        return meterRegistry.get("consultas.coalescencia").tag("resultado", resultado).counter().count();
+    }
+}
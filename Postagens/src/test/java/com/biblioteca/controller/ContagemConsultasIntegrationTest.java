@@ -0,0 +1,184 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.entity.Autor;
+import com.biblioteca.entity.Emprestimo;
+import com.biblioteca.entity.Livro;
+import com.biblioteca.entity.Usuario;
+import com.biblioteca.repository.AutorRepository;
+import com.biblioteca.repository.EmprestimoRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.UsuarioRepository;
+import com.biblioteca.service.CatalogoCache;
+import com.biblioteca.service.IndiceCatalogo;
+import com.biblioteca.service.MotorAtrasos;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Garante que listar N registros custa um único SELECT, independente de N
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Transactional
+class ContagemConsultasIntegrationTest {
+
+    private static final int TOTAL = 10;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private IndiceCatalogo indiceCatalogo;
+
+    @Autowired
+    private MotorAtrasos motorAtrasos;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    private MockMvc mockMvc;
+    private Statistics estatisticas;
+    private Livro livro;
+    private Usuario usuario;
+    private Emprestimo emprestimo;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Cada livro tem o próprio autor e cada empréstimo o próprio usuário, para que um N+1 apareça na contagem
+        for (int i = 0; i < TOTAL; i++) {
+            Autor autor = autorRepository.save(new Autor("Autor " + i));
+            livro = new Livro("Livro " + i, "978000000000" + i, autor);
+            livro.setQuantidade(1);
+            livro.setQuantidadeDisponivel(i % 2);
+            livro = livroRepository.save(livro);
+            usuario = usuarioRepository.save(new Usuario("Leitor " + i, "leitor" + i + "@biblioteca.com", "senha123"));
+            emprestimo = new Emprestimo(livro, usuario);
+            emprestimo.setDataDevolucaoPrevista(LocalDateTime.now().plusDays(i % 2 == 0 ? -1 : 1));
+            emprestimo = emprestimoRepository.save(emprestimo);
+        }
+
+        entityManager.flush();
+        // Metade dos empréstimos já nasceu vencida; a varredura do motor os marca como atrasados
+        motorAtrasos.marcarVencidos();
+        entityManager.clear();
+        // Os livros foram gravados direto pelo repositório, sem passar pelos ganchos do índice
+        indiceCatalogo.reconstruir();
+    }
+
+    @Test
+    @WithMockUser
+    void listagens_DevemExecutarUmaUnicaConsulta() throws Exception {
+        // Given
+        List<String> listagens = List.of(
+                "/api/livros",
+                "/api/livros/buscar?titulo=Livro",
+                "/api/livros/disponiveis",
+                "/api/livros/indisponiveis",
+                "/api/emprestimos",
+                "/api/emprestimos/status/ATIVO",
+                "/api/emprestimos/atrasados");
+
+        for (String url : listagens) {
+            estatisticas.clear();
+
+            // When
+            mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").exists());
+
+            // Then
+            assertEquals(1, estatisticas.getPrepareStatementCount(), url);
+            entityManager.clear();
+        }
+    }
+
+    @Test
+    @WithMockUser
+    void leituraCondicional_ComETagAtual_DeveResponder304SemConsultarOBanco() throws Exception {
+        // Given
+        String etag = mockMvc.perform(get("/api/livros/" + livro.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        estatisticas.clear();
+
+        // When
+        mockMvc.perform(get("/api/livros/" + livro.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // Then
+        assertEquals(0, estatisticas.getPrepareStatementCount());
+        catalogoCache.invalidarLivro(livro.getId());
+    }
+
+    @Test
+    @WithMockUser
+    void buscas_DevemExecutarUmaUnicaConsulta() throws Exception {
+        // Given
+        List<String> buscas = List.of(
+                "/api/livros/" + livro.getId(),
+                "/api/livros/isbn/" + livro.getIsbn(),
+                "/api/livros/autor/" + livro.getAutor().getId(),
+                "/api/emprestimos/" + emprestimo.getId(),
+                "/api/emprestimos/usuario/" + usuario.getId(),
+                "/api/emprestimos/usuario/" + usuario.getId() + "/ativos",
+                "/api/emprestimos/livro/" + livro.getId());
+
+        for (String url : buscas) {
+            estatisticas.clear();
+
+            // When
+            mockMvc.perform(get(url))
+                    .andExpect(status().isOk());
+
+            // Then
+            assertEquals(1, estatisticas.getPrepareStatementCount(), url);
+            entityManager.clear();
+        }
+    }
+}
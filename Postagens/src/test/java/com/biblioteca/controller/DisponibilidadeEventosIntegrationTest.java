@@ -0,0 +1,145 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.config.DisponibilidadeConfig;
+import com.biblioteca.dto.EmprestimoDTO;
+import com.biblioteca.entity.Autor;
+import com.biblioteca.entity.Livro;
+import com.biblioteca.entity.Usuario;
+import com.biblioteca.repository.AutorRepository;
+import com.biblioteca.repository.EmprestimoRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.UsuarioRepository;
+import com.biblioteca.service.EmprestimoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Sem @Transactional: os eventos só saem depois do commit
+@SpringBootTest(properties = "disponibilidade.heartbeat=200")
+@ActiveProfiles("test")
+class DisponibilidadeEventosIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private DisponibilidadeConfig disponibilidadeConfig;
+
+    @Autowired
+    private ServerProperties serverProperties;
+
+    private MockMvc mockMvc;
+    private Livro livro;
+    private Livro outro;
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+
+        Autor autor = autorRepository.save(new Autor("Machado de Assis"));
+        livro = new Livro("Dom Casmurro", "9788535902778", autor);
+        livro.setQuantidade(2);
+        livro.setQuantidadeDisponivel(2);
+        livro = livroRepository.save(livro);
+        outro = livroRepository.save(new Livro("Quincas Borba", "9788535910681", autor));
+        usuario = usuarioRepository.save(new Usuario("Leitor", "leitor@biblioteca.com", "senha123"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        autorRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser
+    void eventos_DevemTrazerOEstadoAtualECadaEmprestimoEDevolucaoDoLivroAssinado() throws Exception {
+        // Given
+        MvcResult assinatura = mockMvc.perform(get("/api/livros/disponibilidade/eventos")
+                        .param("livroIds", livro.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockHttpServletResponse resposta = assinatura.getResponse();
+        aguardar(resposta, conteudo -> conteudo.contains(evento(livro, 2)));
+
+        // When
+        EmprestimoDTO emprestimo = emprestimoService.emprestar(new EmprestimoDTO(livro.getId(), usuario.getId()));
+        aguardar(resposta, conteudo -> conteudo.contains(evento(livro, 1)));
+        emprestimoService.emprestar(new EmprestimoDTO(outro.getId(), usuario.getId()));
+        emprestimoService.devolver(emprestimo.getId());
+        aguardar(resposta, conteudo -> conteudo.lastIndexOf(evento(livro, 2)) > conteudo.indexOf(evento(livro, 1)));
+        aguardar(resposta, conteudo -> conteudo.contains(":heartbeat"));
+
+        // Then: o livro não assinado nunca aparece
+        String conteudo = resposta.getContentAsString();
+        assertTrue(resposta.getContentType().startsWith("text/event-stream"));
+        assertTrue(conteudo.contains("event:disponibilidade"));
+        assertFalse(conteudo.contains("\"livroId\":" + outro.getId() + ","));
+    }
+
+    @Test
+    @WithMockUser
+    void assinar_SemLivros_DeveSerRejeitado() throws Exception {
+        mockMvc.perform(get("/api/livros/disponibilidade/eventos").param("livroIds", ""))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void configuracao_DeveComportarOMaximoDeAssinantesELimitarAEscritaBloqueada() {
+        // Cada assinante ocupa uma conexão do Tomcat até o fim da assinatura
+        assertTrue(serverProperties.getTomcat().getMaxConnections() > disponibilidadeConfig.getMaxAssinantes());
+        assertNotNull(serverProperties.getTomcat().getConnectionTimeout());
+        assertTrue(serverProperties.getTomcat().getConnectionTimeout().toMillis() <= disponibilidadeConfig.getEspera());
+    }
+
+    private static String evento(Livro livro, int quantidadeDisponivel) {
+        return "{\"livroId\":" + livro.getId() + ",\"quantidadeDisponivel\":" + quantidadeDisponivel + "}";
+    }
+
+    private static void aguardar(MockHttpServletResponse resposta, Predicate<String> condicao) throws Exception {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!condicao.test(resposta.getContentAsString())) {
+            assertTrue(System.currentTimeMillis() < limite, "Evento não recebido:\n" + resposta.getContentAsString());
+            Thread.sleep(20);
+        }
+    }
+}
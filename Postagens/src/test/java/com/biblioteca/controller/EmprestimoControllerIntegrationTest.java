@@ -0,0 +1,246 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.dto.EmprestimoDTO;
+import com.biblioteca.entity.Autor;
+import com.biblioteca.entity.Emprestimo;
+import com.biblioteca.entity.Livro;
+import com.biblioteca.entity.Usuario;
+import com.biblioteca.repository.AutorRepository;
+import com.biblioteca.repository.EmprestimoRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.UsuarioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Transactional
+class EmprestimoControllerIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+    private Livro livro;
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+
+        Autor autor = autorRepository.save(new Autor("Machado de Assis"));
+        livro = new Livro("Dom Casmurro", "9788535902778", autor);
+        livro.setQuantidade(1);
+        livro.setQuantidadeDisponivel(1);
+        livro = livroRepository.save(livro);
+        usuario = usuarioRepository.save(new Usuario("Leitor", "leitor@biblioteca.com", "senha123"));
+    }
+
+    @Test
+    @WithMockUser
+    void emprestarLote_DeveRetornarResultadoPorItem() throws Exception {
+        // Given
+        List<EmprestimoDTO> itens = List.of(
+                new EmprestimoDTO(livro.getId(), usuario.getId()),
+                new EmprestimoDTO(livro.getId(), usuario.getId()),
+                new EmprestimoDTO(999L, usuario.getId()));
+
+        // When & Then
+        mockMvc.perform(post("/api/emprestimos/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(itens)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].sucesso").value(true))
+                .andExpect(jsonPath("$[0].emprestimo.livroTitulo").value("Dom Casmurro"))
+                .andExpect(jsonPath("$[1].sucesso").value(false))
+                .andExpect(jsonPath("$[1].erro").value("Livro não está disponível para empréstimo"))
+                .andExpect(jsonPath("$[2].erro").value("Livro não encontrado"));
+
+        assertEquals(0, livroRepository.findById(livro.getId()).orElseThrow().getQuantidadeDisponivel());
+    }
+
+    @Test
+    @WithMockUser
+    void emprestarLote_DeveInvalidarOLivroEmCache() throws Exception {
+        // Given
+        mockMvc.perform(get("/api/livros/" + livro.getId()))
+                .andExpect(jsonPath("$.quantidadeDisponivel").value(1));
+
+        // When
+        mockMvc.perform(post("/api/emprestimos/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(new EmprestimoDTO(livro.getId(), usuario.getId())))))
+                .andExpect(status().isOk());
+
+        // Then
+        mockMvc.perform(get("/api/livros/" + livro.getId()))
+                .andExpect(jsonPath("$.quantidadeDisponivel").value(0));
+        mockMvc.perform(get("/api/livros/isbn/" + livro.getIsbn()))
+                .andExpect(jsonPath("$.quantidadeDisponivel").value(0));
+    }
+
+    @Test
+    @WithMockUser
+    void devolverLote_DeveDevolverUmaVezPorEmprestimo() throws Exception {
+        // Given
+        livro.emprestar();
+        livroRepository.save(livro);
+        Emprestimo emprestimo = emprestimoRepository.save(new Emprestimo(livro, usuario));
+
+        // When & Then
+        mockMvc.perform(post("/api/emprestimos/devolucoes/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(emprestimo.getId(), emprestimo.getId(), 999L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].sucesso").value(true))
+                .andExpect(jsonPath("$[0].emprestimo.status").value("DEVOLVIDO"))
+                .andExpect(jsonPath("$[1].erro").value("Empréstimo já foi devolvido"))
+                .andExpect(jsonPath("$[2].erro").value("Empréstimo não encontrado"));
+
+        assertEquals(1, livroRepository.findById(livro.getId()).orElseThrow().getQuantidadeDisponivel());
+    }
+
+    @Test
+    @WithMockUser
+    void lotes_ComTodosOsIdsNulos_DevemFalharPorItem() throws Exception {
+        // Given
+        EmprestimoDTO semLivro = new EmprestimoDTO(null, usuario.getId());
+
+        // When & Then
+        mockMvc.perform(post("/api/emprestimos/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(semLivro, semLivro))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].erro").value("Livro não encontrado"))
+                .andExpect(jsonPath("$[1].erro").value("Livro não encontrado"));
+        mockMvc.perform(post("/api/emprestimos/devolucoes/lote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[null]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].erro").value("Empréstimo não encontrado"));
+    }
+
+    @Test
+    @WithMockUser
+    void emprestarEDevolver_ComMesmaIdempotencyKey_DevemRepetirAPrimeiraResposta() throws Exception {
+        // Given: o livro tem uma única cópia, então um segundo empréstimo de verdade falharia
+        String corpo = objectMapper.writeValueAsString(new EmprestimoDTO(livro.getId(), usuario.getId()));
+        String chaveEmprestimo = UUID.randomUUID().toString();
+
+        // When
+        MvcResult primeiro = mockMvc.perform(post("/api/emprestimos/emprestar")
+                        .header("Idempotency-Key", chaveEmprestimo)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+        Long emprestimoId = objectMapper.readTree(primeiro.getResponse().getContentAsString()).get("id").asLong();
+
+        // Then
+        mockMvc.perform(post("/api/emprestimos/emprestar")
+                        .header("Idempotency-Key", chaveEmprestimo)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(emprestimoId));
+        assertEquals(1, emprestimoRepository.findByUsuarioId(usuario.getId()).size());
+
+        // A devolução repetida com a mesma chave recebe a mesma resposta, e não "Empréstimo já foi devolvido"
+        String chaveDevolucao = UUID.randomUUID().toString();
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/emprestimos/" + emprestimoId + "/devolver")
+                            .header("Idempotency-Key", chaveDevolucao))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("DEVOLVIDO"));
+        }
+        mockMvc.perform(post("/api/emprestimos/" + emprestimoId + "/devolver"))
+                .andExpect(status().isBadRequest());
+        assertEquals(1, livroRepository.findById(livro.getId()).orElseThrow().getQuantidadeDisponivel());
+    }
+
+    @Test
+    @WithMockUser
+    void emprestar_ComAMesmaIdempotencyKeyEOutroCorpo_DeveRetornar422() throws Exception {
+        // Given
+        String chave = UUID.randomUUID().toString();
+        mockMvc.perform(post("/api/emprestimos/emprestar")
+                        .header("Idempotency-Key", chave)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new EmprestimoDTO(livro.getId(), usuario.getId()))))
+                .andExpect(status().isOk());
+
+        // When & Then: nada é executado com o corpo novo
+        mockMvc.perform(post("/api/emprestimos/emprestar")
+                        .header("Idempotency-Key", chave)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new EmprestimoDTO(livro.getId() + 1, usuario.getId()))))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message").value("Idempotency-Key já usada em uma requisição com outro corpo"));
+        assertEquals(1, emprestimoRepository.findByUsuarioId(usuario.getId()).size());
+    }
+
+    @Test
+    @WithMockUser
+    void exportar_DeveEscreverUmEmprestimoPorLinha() throws Exception {
+        // Given
+        List<Emprestimo> emprestimos = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            emprestimos.add(new Emprestimo(livro, usuario));
+        }
+        emprestimoRepository.saveAll(emprestimos);
+
+        // When
+        MvcResult resultado = mockMvc.perform(get("/api/emprestimos/exportar"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn();
+
+        // Then
+        String[] linhas = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(1200, linhas.length);
+        assertEquals("Dom Casmurro", objectMapper.readTree(linhas[1199]).get("livroTitulo").asText());
+    }
+}
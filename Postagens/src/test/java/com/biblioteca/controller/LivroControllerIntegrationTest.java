@@ -0,0 +1,353 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.dto.AutorDTO;
+import com.biblioteca.dto.LivroDTO;
+import com.biblioteca.entity.Autor;
+import com.biblioteca.entity.Livro;
+import com.biblioteca.repository.AutorRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.service.CatalogoCache;
+import com.biblioteca.service.IndiceCatalogo;
+import com.biblioteca.service.PesquisaService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Transactional
+class LivroControllerIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private IndiceCatalogo indiceCatalogo;
+
+    @Autowired
+    private PesquisaService pesquisaService;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+    private Autor autor;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .build();
+
+        autor = new Autor("Machado de Assis");
+        autor.setBiografia("Fundador da Academia Brasileira de Letras");
+        autor = autorRepository.save(autor);
+    }
+
+    @Test
+    @WithMockUser
+    void pesquisar_DeveEncontrarLivroRecemCriadoPorTituloSinopseOuAutor() throws Exception {
+        // Given
+        LivroDTO livro = new LivroDTO("Memórias Póstumas de Brás Cubas", "9788535910667", autor.getId());
+        livro.setSinopse("Um defunto autor narra a própria vida");
+        criar(livro);
+        criar(new LivroDTO("Dom Casmurro", "9788535902778", autor.getId()));
+
+        // When & Then
+        mockMvc.perform(get("/api/livros/pesquisa").param("q", "bras cubas"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].titulo").value("Memórias Póstumas de Brás Cubas"));
+        mockMvc.perform(get("/api/livros/pesquisa").param("q", "defunto"))
+                .andExpect(jsonPath("$[0].isbn").value("9788535910667"));
+        mockMvc.perform(get("/api/livros/pesquisa").param("q", "academia letras"))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser
+    void pesquisar_AposAtualizarOAutor_DeveUsarONovoNome() throws Exception {
+        // Given
+        criar(new LivroDTO("Quincas Borba", "9788535911046", autor.getId()));
+        AutorDTO atualizado = new AutorDTO();
+        atualizado.setNome("Joaquim Maria Machado de Assis");
+
+        // When
+        mockMvc.perform(put("/api/autores/" + autor.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(atualizado)))
+                .andExpect(status().isOk());
+
+        // Then
+        mockMvc.perform(get("/api/livros/pesquisa").param("q", "joaquim"))
+                .andExpect(jsonPath("$[0].titulo").value("Quincas Borba"));
+    }
+
+    @Test
+    @WithMockUser
+    void buscarPorId_ComIfNoneMatch_DeveResponder304AteOLivroOuOAutorMudarem() throws Exception {
+        // Given
+        String criado = mockMvc.perform(post("/api/livros")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LivroDTO("Quincas Borba", "9788535911046", autor.getId()))))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(criado).get("id").asLong();
+        String etag = mockMvc.perform(get("/api/livros/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // When & Then
+        mockMvc.perform(get("/api/livros/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        // O nome do autor faz parte do corpo do livro, então renomear o autor muda o ETag
+        AutorDTO atualizado = new AutorDTO();
+        atualizado.setNome("Joaquim Maria Machado de Assis");
+        mockMvc.perform(put("/api/autores/" + autor.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(atualizado)))
+                .andExpect(status().isOk());
+        String novoEtag = mockMvc.perform(get("/api/livros/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.autorNome").value("Joaquim Maria Machado de Assis"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, novoEtag);
+
+        catalogoCache.invalidarLivros(List.of(id));
+    }
+
+    @Test
+    @WithMockUser
+    void autocompletar_DeveSugerirTitulosEAutoresCriados() throws Exception {
+        // Given
+        criar(new LivroDTO("Esaú e Jacó", "9788535914931", autor.getId()));
+        AutorDTO novoAutor = new AutorDTO();
+        novoAutor.setNome("Aluísio Azevedo");
+        mockMvc.perform(post("/api/autores")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(novoAutor)))
+                .andExpect(status().is2xxSuccessful());
+
+        // When & Then
+        mockMvc.perform(get("/api/autocompletar").param("prefixo", "esau"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].tipo").value("LIVRO"))
+                .andExpect(jsonPath("$[0].texto").value("Esaú e Jacó"));
+        mockMvc.perform(get("/api/autocompletar").param("prefixo", "azev"))
+                .andExpect(jsonPath("$[0].tipo").value("AUTOR"))
+                .andExpect(jsonPath("$[0].texto").value("Aluísio Azevedo"));
+    }
+
+    @Test
+    @WithMockUser
+    void buscarAproximado_DeveTolerarErrosDeDigitacao() throws Exception {
+        // Given
+        criar(new LivroDTO("Dom Casmurro", "9788535902778", autor.getId()));
+
+        // When & Then
+        mockMvc.perform(get("/api/autocompletar/aproximado").param("q", "dom cazmuro"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].tipo").value("LIVRO"))
+                .andExpect(jsonPath("$[0].texto").value("Dom Casmurro"));
+    }
+
+    @Test
+    @WithMockUser
+    void buscarPorIsbn_DeveAceitarIsbn10EBarrarDuplicado() throws Exception {
+        // Given
+        criar(new LivroDTO("Dom Casmurro", "9788535902778", autor.getId()));
+
+        // When & Then
+        mockMvc.perform(get("/api/livros/isbn/8535902775"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titulo").value("Dom Casmurro"));
+        mockMvc.perform(post("/api/livros")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LivroDTO("Outro", "8535902775", autor.getId()))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void filtrosDeDisponibilidade_DevemCruzarAutorEPesquisaComOBitmap() throws Exception {
+        // Given
+        Autor outroAutor = autorRepository.save(new Autor("Clarice Lispector"));
+        Livro esgotado = new Livro("Dom Casmurro", "9788535902778", autor);
+        esgotado.setQuantidade(1);
+        esgotado.setQuantidadeDisponivel(0);
+        livroRepository.save(esgotado);
+        livroRepository.save(new Livro("Quincas Borba", "9788535911046", autor));
+        livroRepository.save(new Livro("A Hora da Estrela", "9788532508126", outroAutor));
+        indiceCatalogo.reconstruir();
+        pesquisaService.reconstruir();
+
+        // When & Then
+        mockMvc.perform(get("/api/livros/autor/" + autor.getId()).param("disponivel", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].titulo").value("Dom Casmurro"));
+        mockMvc.perform(get("/api/livros/disponiveis/total").param("autorId", autor.getId().toString()))
+                .andExpect(content().string("1"));
+        mockMvc.perform(get("/api/livros/indisponiveis/total").param("autorId", outroAutor.getId().toString()))
+                .andExpect(content().string("0"));
+        mockMvc.perform(get("/api/livros/pesquisa").param("q", "machado").param("disponivel", "true"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].titulo").value("Quincas Borba"));
+    }
+
+    @Test
+    @WithMockUser
+    void filtro_DeveCombinarCriteriosEContarFacetasSemAFacetaDoProprioCriterio() throws Exception {
+        // Given
+        Autor outroAutor = autorRepository.save(new Autor("Clarice Lispector"));
+        List<Livro> livros = livroRepository.saveAll(List.of(
+                livro("Helena", "9788535910667", autor, 1876, 2),
+                livro("Quincas Borba", "9788535911046", autor, 1891, 1),
+                livro("Dom Casmurro", "9788535902778", autor, 1899, 0),
+                livro("A Hora da Estrela", "9788532508126", outroAutor, 1977, 1)));
+        indiceCatalogo.reconstruir();
+        pesquisaService.reconstruir();
+
+        // When & Then: a faceta de autor ignora o filtro de autor, a de década ignora o de ano
+        mockMvc.perform(get("/api/livros/filtro")
+                        .param("autorId", autor.getId().toString())
+                        .param("anoDe", "1890"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.livros.length()").value(2))
+                .andExpect(jsonPath("$.livros[0].titulo").value("Quincas Borba"))
+                .andExpect(jsonPath("$.porAutor['" + autor.getId() + "']").value(2))
+                .andExpect(jsonPath("$.porAutor['" + outroAutor.getId() + "']").value(1))
+                .andExpect(jsonPath("$.porDecada['1870']").value(1))
+                .andExpect(jsonPath("$.porDecada['1890']").value(2))
+                .andExpect(jsonPath("$.disponiveis").value(1))
+                .andExpect(jsonPath("$.indisponiveis").value(1));
+
+        mockMvc.perform(get("/api/livros/filtro")
+                        .param("q", "borba casmurro")
+                        .param("disponivel", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.livros[0].titulo").value("Quincas Borba"))
+                .andExpect(jsonPath("$.indisponiveis").value(1));
+
+        mockMvc.perform(get("/api/livros/filtro").param("limite", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.livros.length()").value(1));
+
+        // O rollback do teste não chega ao cache; sem isso os livros sobreviveriam nos testes seguintes
+        catalogoCache.invalidarLivros(livros.stream().map(Livro::getId).toList());
+    }
+
+    @Test
+    @WithMockUser
+    void exportar_QuandoClienteAceitaGzip_DeveComprimirAResposta() throws Exception {
+        // Given
+        livroRepository.save(new Livro("Dom Casmurro", "9788535902778", autor));
+
+        // When
+        MvcResult resultado = mockMvc.perform(get("/api/livros/exportar")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        // Then
+        byte[] comprimido = resultado.getResponse().getContentAsByteArray();
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(comprimido))) {
+            String conteudo = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(conteudo.contains("\"isbn\":\"9788535902778\""));
+            assertTrue(conteudo.endsWith("\n"));
+        }
+    }
+
+    @Test
+    @WithMockUser
+    void atualizar_DevePreservarCopiasEmprestadasEDeslocarADisponivelPeloNovoTotal() throws Exception {
+        // Given: duas cópias, uma emprestada
+        Livro livro = livroRepository.save(livro("Dom Casmurro", "9788535902778", autor, 1899, 1));
+        LivroDTO edicao = new LivroDTO("Dom Casmurro (edição revista)", "9788535902778", autor.getId());
+        edicao.setQuantidade(3);
+
+        // When & Then
+        mockMvc.perform(put("/api/livros/" + livro.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(edicao)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.titulo").value("Dom Casmurro (edição revista)"))
+                .andExpect(jsonPath("$.quantidade").value(3))
+                .andExpect(jsonPath("$.quantidadeDisponivel").value(2));
+    }
+
+    @Test
+    @WithMockUser
+    void atualizar_ComTotalMenorQueOsEmprestados_DeveRetornar400() throws Exception {
+        // Given: duas cópias, ambas emprestadas
+        Livro livro = livroRepository.save(livro("Dom Casmurro", "9788535902778", autor, 1899, 0));
+        LivroDTO edicao = new LivroDTO("Dom Casmurro", "9788535902778", autor.getId());
+        edicao.setQuantidade(1);
+
+        // When & Then
+        mockMvc.perform(put("/api/livros/" + livro.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(edicao)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/livros/" + livro.getId()))
+                .andExpect(jsonPath("$.quantidade").value(2))
+                .andExpect(jsonPath("$.quantidadeDisponivel").value(0));
+    }
+
+    private Livro livro(String titulo, String isbn, Autor autor, int ano, int disponiveis) {
+        Livro livro = new Livro(titulo, isbn, autor);
+        livro.setAnoPublicacao(ano);
+        livro.setQuantidade(2);
+        livro.setQuantidadeDisponivel(disponiveis);
+        return livro;
+    }
+
+    private void criar(LivroDTO livro) throws Exception {
+        mockMvc.perform(post("/api/livros")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(livro)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,196 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.exception.ChaveIdempotenciaReutilizadaException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class RespostasIdempotentesTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private RespostasIdempotentes respostasIdempotentes;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void executar_QuandoDuplicatasConcorrentes_DeveExecutarUmaVezEEntregarAMesmaResposta() throws Exception {
+        // Given: a primeira execução só termina depois que todas as duplicatas chegaram
+        String chave = UUID.randomUUID().toString();
+        AtomicInteger execucoes = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            // When
+            List<Future<ResponseEntity<Integer>>> respostas = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                respostas.add(executor.submit(() -> respostasIdempotentes.executar("teste", chave, "corpo", () -> {
+                    int execucao = execucoes.incrementAndGet();
+                    try {
+                        liberar.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return ResponseEntity.ok(execucao);
+                })));
+            }
+            Thread.sleep(200);
+            liberar.countDown();
+
+            // Then
+            int repetidas = 0;
+            for (Future<ResponseEntity<Integer>> resposta : respostas) {
+                ResponseEntity<Integer> entregue = resposta.get(30, TimeUnit.SECONDS);
+                assertEquals(1, entregue.getBody());
+                if (entregue.getHeaders().containsKey(RespostasIdempotentes.CABECALHO_REPETIDA)) {
+                    repetidas++;
+                }
+            }
+            assertEquals(1, execucoes.get());
+            assertEquals(THREADS - 1, repetidas);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void executar_QuandoAExecucaoLancaExcecao_DeveLiberarAChaveParaNovaTentativa() {
+        // Given
+        String chave = UUID.randomUUID().toString();
+        AtomicInteger execucoes = new AtomicInteger();
+
+        // When
+        assertThrows(RuntimeException.class, () -> respostasIdempotentes.executar("teste", chave, "corpo", () -> {
+            execucoes.incrementAndGet();
+            throw new RuntimeException("Serviço sobrecarregado");
+        }));
+        ResponseEntity<String> segunda = respostasIdempotentes.executar("teste", chave, "corpo", () -> {
+            execucoes.incrementAndGet();
+            return ResponseEntity.ok("ok");
+        });
+
+        // Then
+        assertEquals(2, execucoes.get());
+        assertEquals("ok", segunda.getBody());
+        assertFalse(segunda.getHeaders().containsKey(RespostasIdempotentes.CABECALHO_REPETIDA));
+    }
+
+    @Test
+    void executar_ComAMesmaChaveEOutroCorpo_DeveRecusarSemExecutar() {
+        // Given
+        String chave = UUID.randomUUID().toString();
+        AtomicInteger execucoes = new AtomicInteger();
+        respostasIdempotentes.executar("teste", chave, List.of(1L, 2L), () -> ResponseEntity.ok(execucoes.incrementAndGet()));
+
+        // When
+        ChaveIdempotenciaReutilizadaException erro = assertThrows(ChaveIdempotenciaReutilizadaException.class,
+                () -> respostasIdempotentes.executar("teste", chave, List.of(1L, 3L),
+                        () -> ResponseEntity.ok(execucoes.incrementAndGet())));
+
+        // Then
+        assertTrue(erro.getMessage().contains("outro corpo"));
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    void executar_ComCampoNuloNoCorpo_DeveRepetirARespostaPelaMesmaChave() {
+        // Given
+        String chave = UUID.randomUUID().toString();
+        AtomicInteger execucoes = new AtomicInteger();
+        respostasIdempotentes.executar("teste", chave, Arrays.asList("Leitor", null),
+                () -> ResponseEntity.ok(execucoes.incrementAndGet()));
+
+        // When
+        ResponseEntity<Integer> repetida = respostasIdempotentes.executar("teste", chave, Arrays.asList("Leitor", null),
+                () -> ResponseEntity.ok(execucoes.incrementAndGet()));
+
+        // Then
+        assertEquals(1, repetida.getBody());
+        assertTrue(repetida.getHeaders().containsKey(RespostasIdempotentes.CABECALHO_REPETIDA));
+    }
+
+    @Test
+    void executar_ComAMesmaChaveDeOutroUsuario_DeveExecutarDeNovo() {
+        // Given
+        String chave = UUID.randomUUID().toString();
+        AtomicInteger execucoes = new AtomicInteger();
+        autenticar("leitor1@biblioteca.com");
+        respostasIdempotentes.executar("teste", chave, "corpo", () -> ResponseEntity.ok(execucoes.incrementAndGet()));
+
+        // When
+        autenticar("leitor2@biblioteca.com");
+        ResponseEntity<Integer> outroUsuario = respostasIdempotentes.executar("teste", chave, "corpo",
+                () -> ResponseEntity.ok(execucoes.incrementAndGet()));
+        autenticar("leitor1@biblioteca.com");
+        ResponseEntity<Integer> mesmoUsuario = respostasIdempotentes.executar("teste", chave, "corpo",
+                () -> ResponseEntity.ok(execucoes.incrementAndGet()));
+
+        // Then
+        assertEquals(2, outroUsuario.getBody());
+        assertFalse(outroUsuario.getHeaders().containsKey(RespostasIdempotentes.CABECALHO_REPETIDA));
+        assertEquals(1, mesmoUsuario.getBody());
+        assertTrue(mesmoUsuario.getHeaders().containsKey(RespostasIdempotentes.CABECALHO_REPETIDA));
+    }
+
+    @Test
+    void executar_SemUsuarioAutenticado_DeveSepararAChavePeloIpDoCliente() {
+        // Given
+        String chave = UUID.randomUUID().toString();
+        AtomicInteger execucoes = new AtomicInteger();
+        requisicaoDe("10.0.0.1");
+        respostasIdempotentes.executar("teste", chave, "corpo", () -> ResponseEntity.ok(execucoes.incrementAndGet()));
+
+        // When
+        requisicaoDe("10.0.0.2");
+        ResponseEntity<Integer> outroIp = respostasIdempotentes.executar("teste", chave, "corpo",
+                () -> ResponseEntity.ok(execucoes.incrementAndGet()));
+        requisicaoDe("10.0.0.1");
+        ResponseEntity<Integer> mesmoIp = respostasIdempotentes.executar("teste", chave, "corpo",
+                () -> ResponseEntity.ok(execucoes.incrementAndGet()));
+
+        // Then
+        assertEquals(2, outroIp.getBody());
+        assertEquals(1, mesmoIp.getBody());
+        assertEquals(2, execucoes.get());
+    }
+
+    private static void autenticar(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    private static void requisicaoDe(String ip) {
+        MockHttpServletRequest requisicao = new MockHttpServletRequest();
+        requisicao.setRemoteAddr(ip);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(requisicao));
+    }
+}
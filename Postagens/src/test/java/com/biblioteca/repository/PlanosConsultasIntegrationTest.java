@@ -0,0 +1,176 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.entity.StatusEmprestimo;
+import com.biblioteca.service.RegistroAlteracoes;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Roda cada consulta frequente dos repositórios, captura o SQL que o Hibernate gerou e pede o EXPLAIN ao H2.
+// Falha se alguma tabela for lida por varredura completa, ou seja, se uma migration perder um índice
+// ou uma consulta mudar de forma que o índice deixe de servir.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.biblioteca.repository.PlanosConsultasIntegrationTest$CapturaSql")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@Transactional
+class PlanosConsultasIntegrationTest {
+
+    // No plano do H2 cada tabela traz um comentário com o índice usado e, depois de ":", as condições aplicadas
+    // a ele. Sem condições (ou "tableScan") a tabela é lida inteira.
+    private static final Pattern VARREDURA = Pattern.compile("/\\* PUBLIC\\.[^:*]*\\*/");
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static class CapturaSql implements StatementInspector {
+
+        static final List<String> capturadas = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            capturadas.add(sql);
+            return sql;
+        }
+    }
+
+    @Test
+    void consultasFrequentes_NaoDevemVarrerTabelas() {
+        // Given: buscas por LIKE '%texto%' (atendidas pelo índice invertido) e as leituras completas de
+        // reconstrução dos índices em memória e de exportação ficam de fora, pois varrem por natureza
+        LocalDateTime agora = LocalDateTime.now();
+        Pageable pagina = Pageable.ofSize(20);
+        Map<String, Runnable> consultas = new LinkedHashMap<>();
+        consultas.put("AutorRepository.findById", () -> autorRepository.findById(1L));
+        consultas.put("AutorRepository.findByNome", () -> autorRepository.findByNome("Machado de Assis"));
+        consultas.put("AutorRepository.existsByNome", () -> autorRepository.existsByNome("Machado de Assis"));
+        consultas.put("AutorRepository.findPagina", () -> autorRepository.findPagina(0L, pagina));
+        consultas.put("AutorRepository.countLivrosByAutorId", () -> autorRepository.countLivrosByAutorId(1L));
+
+        consultas.put("LivroRepository.findComAutorById", () -> livroRepository.findComAutorById(1L));
+        consultas.put("LivroRepository.findComAutorByIdIn", () -> livroRepository.findComAutorByIdIn(List.of(1L, 2L)));
+        consultas.put("LivroRepository.findComAutorByAutorId", () -> livroRepository.findComAutorByAutorId(1L));
+        consultas.put("LivroRepository.findByAutorId", () -> livroRepository.findByAutorId(1L));
+        consultas.put("LivroRepository.findByIsbn", () -> livroRepository.findByIsbn("9788535902778"));
+        consultas.put("LivroRepository.findByIsbnIn", () -> livroRepository.findByIsbnIn(List.of("9788535902778", "8535902775")));
+        consultas.put("LivroRepository.existsByIsbn", () -> livroRepository.existsByIsbn("9788535902778"));
+        consultas.put("LivroRepository.existsByIsbnIn", () -> livroRepository.existsByIsbnIn(List.of("9788535902778")));
+        consultas.put("LivroRepository.findLivrosDisponiveis", () -> livroRepository.findLivrosDisponiveis());
+        consultas.put("LivroRepository.findLivrosIndisponiveis", () -> livroRepository.findLivrosIndisponiveis());
+        consultas.put("LivroRepository.findPagina", () -> livroRepository.findPagina(0L, pagina));
+        consultas.put("LivroRepository.findPaginaByAutorId", () -> livroRepository.findPaginaByAutorId(1L, 0L, pagina));
+        consultas.put("LivroRepository.findIdsEIsbnsByAutorId", () -> livroRepository.findIdsEIsbnsByAutorId(1L));
+        consultas.put("LivroRepository.decrementarDisponivel", () -> livroRepository.decrementarDisponivel(1L, 1, agora));
+        consultas.put("LivroRepository.incrementarDisponivel", () -> livroRepository.incrementarDisponivel(1L, 1, agora));
+        consultas.put("LivroRepository.findAllByIdParaAtualizacao", () -> livroRepository.findAllByIdParaAtualizacao(List.of(1L, 2L)));
+        consultas.put("LivroRepository.findQuantidadeDisponivelById", () -> livroRepository.findQuantidadeDisponivelById(1L));
+        consultas.put("LivroRepository.findQuantidadesDisponiveis", () -> livroRepository.findQuantidadesDisponiveis(List.of(1L, 2L)));
+        consultas.put("LivroRepository.countEmprestimosAtivosByLivroId", () -> livroRepository.countEmprestimosAtivosByLivroId(1L));
+
+        consultas.put("UsuarioRepository.findByEmail", () -> usuarioRepository.findByEmail("admin@biblioteca.com"));
+        consultas.put("UsuarioRepository.existsByEmail", () -> usuarioRepository.existsByEmail("admin@biblioteca.com"));
+
+        consultas.put("EmprestimoRepository.findByUsuarioId", () -> emprestimoRepository.findByUsuarioId(1L));
+        consultas.put("EmprestimoRepository.findByLivroId", () -> emprestimoRepository.findByLivroId(1L));
+        consultas.put("EmprestimoRepository.findByStatus", () -> emprestimoRepository.findByStatus(StatusEmprestimo.ATIVO));
+        consultas.put("EmprestimoRepository.findByUsuarioIdAndStatus",
+                () -> emprestimoRepository.findByUsuarioIdAndStatus(1L, StatusEmprestimo.ATIVO));
+        consultas.put("EmprestimoRepository.findByLivroIdAndStatus",
+                () -> emprestimoRepository.findByLivroIdAndStatus(1L, StatusEmprestimo.ATIVO));
+        consultas.put("EmprestimoRepository.findEmprestimosAtrasados", () -> emprestimoRepository.findEmprestimosAtrasados());
+        consultas.put("EmprestimoRepository.findEmprestimosAtivosByUsuario", () -> emprestimoRepository.findEmprestimosAtivosByUsuario(1L));
+        consultas.put("EmprestimoRepository.findEmprestimosAtivosByLivro", () -> emprestimoRepository.findEmprestimosAtivosByLivro(1L));
+        consultas.put("EmprestimoRepository.findDTOById", () -> emprestimoRepository.findDTOById(1L));
+        consultas.put("EmprestimoRepository.findDTOByIdIn", () -> emprestimoRepository.findDTOByIdIn(List.of(1L, 2L)));
+        consultas.put("EmprestimoRepository.findPagina", () -> emprestimoRepository.findPagina(0L, pagina));
+        consultas.put("EmprestimoRepository.findPaginaByUsuarioId", () -> emprestimoRepository.findPaginaByUsuarioId(1L, 0L, pagina));
+        consultas.put("EmprestimoRepository.findPaginaByLivroId", () -> emprestimoRepository.findPaginaByLivroId(1L, 0L, pagina));
+        consultas.put("EmprestimoRepository.findPaginaByStatus",
+                () -> emprestimoRepository.findPaginaByStatus(StatusEmprestimo.ATIVO, 0L, pagina));
+        consultas.put("EmprestimoRepository.findPaginaAtivosByUsuario",
+                () -> emprestimoRepository.findPaginaAtivosByUsuario(1L, 0L, pagina));
+        consultas.put("EmprestimoRepository.findPaginaAtrasados", () -> emprestimoRepository.findPaginaAtrasados(0L, pagina));
+        consultas.put("EmprestimoRepository.countEmprestimosAtrasados", () -> emprestimoRepository.countEmprestimosAtrasados());
+        consultas.put("EmprestimoRepository.countEmprestimosAtivosByUsuario",
+                () -> emprestimoRepository.countEmprestimosAtivosByUsuario(1L));
+        consultas.put("EmprestimoRepository.countEmprestimosAtivosByLivro", () -> emprestimoRepository.countEmprestimosAtivosByLivro(1L));
+        consultas.put("EmprestimoRepository.countEmprestimosAtivosByUsuarios",
+                () -> emprestimoRepository.countEmprestimosAtivosByUsuarios(List.of(1L, 2L)));
+        consultas.put("EmprestimoRepository.findAllByIdParaAtualizacao",
+                () -> emprestimoRepository.findAllByIdParaAtualizacao(List.of(1L, 2L)));
+        consultas.put("EmprestimoRepository.marcarComoDevolvido",
+                () -> emprestimoRepository.marcarComoDevolvido(1L, agora));
+        consultas.put("EmprestimoRepository.marcarAtrasados",
+                () -> emprestimoRepository.marcarAtrasados(List.of(1L, 2L), agora));
+        consultas.put("EmprestimoRepository.findIdsVencidos", () -> emprestimoRepository.findIdsVencidos(agora));
+        consultas.put("EmprestimoRepository.streamVencimentosAtivos", () -> {
+            try (Stream<Object[]> linhas = emprestimoRepository.streamVencimentosAtivos()) {
+                linhas.count();
+            }
+        });
+
+        // When
+        List<String> varreduras = new ArrayList<>();
+        consultas.forEach((nome, consulta) -> {
+            CapturaSql.capturadas.clear();
+            consulta.run();
+            assertFalse(CapturaSql.capturadas.isEmpty(), nome + " não gerou SQL");
+            for (String sql : CapturaSql.capturadas) {
+                String plano = explicar(sql);
+                if (VARREDURA.matcher(plano).find()) {
+                    varreduras.add(nome + "\n" + plano);
+                }
+            }
+        });
+
+        // O feed de alterações é lido por JDBC, fora do Hibernate
+        String feed = explicar(RegistroAlteracoes.CONSULTA_ALTERACOES);
+        if (VARREDURA.matcher(feed).find()) {
+            varreduras.add("RegistroAlteracoes.CONSULTA_ALTERACOES\n" + feed);
+        }
+
+        // Then
+        assertTrue(varreduras.isEmpty(), "Consultas com varredura completa:\n\n" + String.join("\n\n", varreduras));
+    }
+
+    // Os parâmetros ficam sem valor: o H2 monta o plano sem precisar deles
+    private String explicar(String sql) {
+        return jdbcTemplate.query(conexao -> conexao.prepareStatement("EXPLAIN " + sql), resultado -> {
+            StringBuilder plano = new StringBuilder();
+            while (resultado.next()) {
+                plano.append(resultado.getString(1)).append('\n');
+            }
+            return plano.toString();
+        });
+    }
+}
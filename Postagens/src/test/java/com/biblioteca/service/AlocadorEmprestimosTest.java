@@ -0,0 +1,131 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.EmprestimoDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlocadorEmprestimosTest {
+
+    private static final long LIVRO_ID = 1L;
+
+    private ExecutorService executor;
+    private AtomicInteger disponivelNoBanco;
+    private AtomicInteger escritas;
+    private AtomicLong proximoId;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        disponivelNoBanco = new AtomicInteger(10);
+        escritas = new AtomicInteger();
+        proximoId = new AtomicLong();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void submeter_QuandoMuitosPedidosParaOMesmoLivro_DeveAtenderApenasAsCopiasDisponiveis() throws Exception {
+        // Given
+        AlocadorEmprestimos alocador = new AlocadorEmprestimos(executor, 50,
+                id -> Optional.of(disponivelNoBanco.get()), this::gravar);
+
+        // When
+        List<CompletableFuture<EmprestimoDTO>> resultados = new ArrayList<>();
+        for (long usuarioId = 1; usuarioId <= 200; usuarioId++) {
+            EmprestimoDTO dto = new EmprestimoDTO();
+            dto.setLivroId(LIVRO_ID);
+            dto.setUsuarioId(usuarioId);
+            resultados.add(alocador.submeter(LIVRO_ID, dto));
+        }
+
+        // Then
+        int sucessos = 0;
+        for (CompletableFuture<EmprestimoDTO> resultado : resultados) {
+            try {
+                resultado.get(5, TimeUnit.SECONDS);
+                sucessos++;
+            } catch (ExecutionException e) {
+                assertEquals("Livro não está disponível para empréstimo", e.getCause().getMessage());
+            }
+        }
+        assertEquals(10, sucessos);
+        assertEquals(0, disponivelNoBanco.get());
+        assertTrue(escritas.get() < 10, "pedidos deveriam ser agrupados em lotes");
+    }
+
+    @Test
+    void submeter_QuandoContadorDivergeDoBanco_DeveRecarregarERejeitar() throws Exception {
+        // Given
+        AlocadorEmprestimos alocador = new AlocadorEmprestimos(executor, 50,
+                id -> Optional.of(disponivelNoBanco.get()), this::gravar);
+        EmprestimoDTO dto = new EmprestimoDTO();
+        dto.setUsuarioId(1L);
+        alocador.submeter(LIVRO_ID, dto).get(5, TimeUnit.SECONDS);
+
+        // When
+        disponivelNoBanco.set(0);
+        CompletableFuture<EmprestimoDTO> resultado = alocador.submeter(LIVRO_ID, dto);
+
+        // Then
+        ExecutionException erro = assertThrows(ExecutionException.class, () -> resultado.get(5, TimeUnit.SECONDS));
+        assertEquals("Livro não está disponível para empréstimo", erro.getCause().getMessage());
+    }
+
+    @Test
+    void submeter_QuandoFilaEsvazia_DeveRemoverAFilaDoLivro() throws Exception {
+        // Given
+        AlocadorEmprestimos alocador = new AlocadorEmprestimos(executor, 50,
+                id -> Optional.of(disponivelNoBanco.get()), this::gravar);
+        List<CompletableFuture<EmprestimoDTO>> resultados = new ArrayList<>();
+        for (long livroId = 1; livroId <= 100; livroId++) {
+            EmprestimoDTO dto = new EmprestimoDTO();
+            dto.setUsuarioId(livroId);
+            resultados.add(alocador.submeter(livroId, dto));
+        }
+
+        // When
+        for (CompletableFuture<EmprestimoDTO> resultado : resultados) {
+            resultado.handle((dto, erro) -> null).get(5, TimeUnit.SECONDS);
+        }
+
+        // Then: nenhum livro atendido deixa fila para trás
+        long limite = System.currentTimeMillis() + 5_000;
+        while (alocador.filasAtivas() > 0) {
+            assertTrue(System.currentTimeMillis() < limite, "Filas vazias não foram removidas");
+            Thread.sleep(10);
+        }
+    }
+
+    private boolean gravar(Long livroId, List<AlocadorEmprestimos.Pedido> pedidos) {
+        escritas.incrementAndGet();
+        int atual = disponivelNoBanco.get();
+        if (atual < pedidos.size() || !disponivelNoBanco.compareAndSet(atual, atual - pedidos.size())) {
+            return false;
+        }
+        for (AlocadorEmprestimos.Pedido pedido : pedidos) {
+            EmprestimoDTO dto = new EmprestimoDTO();
+            dto.setId(proximoId.incrementAndGet());
+            dto.setLivroId(livroId);
+            dto.setUsuarioId(pedido.dados.getUsuarioId());
+            pedido.resultado.complete(dto);
+        }
+        return true;
+    }
+}
@@ -1,14 +1,19 @@
 package com.biblioteca.service;
 
+import com.biblioteca.config.CatalogoConfig;
 import com.biblioteca.dto.AutorDTO;
+import com.biblioteca.dto.PaginaDTO;
 import com.biblioteca.entity.Autor;
 import com.biblioteca.repository.AutorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -17,6 +22,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +31,18 @@ class AutorServiceTest {
     @Mock
     private AutorRepository autorRepository;
 
+    @Mock
+    private IndiceIsbn indiceIsbn;
+
+    @Mock
+    private IndiceCatalogo indiceCatalogo;
+
+    @Mock
+    private PesquisaService pesquisaService;
+
+    @Mock
+    private AutocompletarService autocompletarService;
+
     @InjectMocks
     private AutorService autorService;
 
@@ -33,6 +51,12 @@ class AutorServiceTest {
 
     @BeforeEach
     void setUp() {
+        CatalogoCache catalogoCache = new CatalogoCache();
+        ReflectionTestUtils.setField(catalogoCache, "catalogoConfig", new CatalogoConfig());
+        ReflectionTestUtils.setField(catalogoCache, "meterRegistry", new SimpleMeterRegistry());
+        catalogoCache.init();
+        ReflectionTestUtils.setField(autorService, "catalogoCache", catalogoCache);
+
         autor = new Autor();
         autor.setId(1L);
         autor.setNome("Machado de Assis");
@@ -48,16 +72,33 @@ class AutorServiceTest {
     void listarTodos_DeveRetornarListaDeAutores() {
         // Given
         List<Autor> autores = Arrays.asList(autor);
-        when(autorRepository.findAll()).thenReturn(autores);
+        when(autorRepository.findPagina(eq(0L), any(Pageable.class))).thenReturn(autores);
 
         // When
-        List<AutorDTO> resultado = autorService.listarTodos();
+        PaginaDTO<AutorDTO> resultado = autorService.listarTodos(null, null);
 
         // Then
         assertNotNull(resultado);
-        assertEquals(1, resultado.size());
-        assertEquals(autor.getNome(), resultado.get(0).getNome());
-        verify(autorRepository).findAll();
+        assertEquals(1, resultado.getItens().size());
+        assertEquals(autor.getNome(), resultado.getItens().get(0).getNome());
+        assertFalse(resultado.temProximaPagina());
+        verify(autorRepository).findPagina(eq(0L), any(Pageable.class));
+    }
+
+    @Test
+    void listarTodos_QuandoHaMaisItensQueOLimite_DeveRetornarCursor() {
+        // Given
+        Autor outro = new Autor("Clarice Lispector");
+        outro.setId(2L);
+        when(autorRepository.findPagina(eq(0L), any(Pageable.class))).thenReturn(Arrays.asList(autor, outro));
+
+        // When
+        PaginaDTO<AutorDTO> resultado = autorService.listarTodos(null, 1);
+
+        // Then
+        assertEquals(1, resultado.getItens().size());
+        assertTrue(resultado.temProximaPagina());
+        assertEquals(1L, Paginacao.aposId(resultado.getProximoCursor()));
     }
 
     @Test
@@ -87,6 +128,35 @@ class AutorServiceTest {
         verify(autorRepository).findById(1L);
     }
 
+    @Test
+    void buscarPorId_QuandoChamadoDuasVezes_DeveConsultarORepositorioUmaVez() {
+        // Given
+        when(autorRepository.findById(1L)).thenReturn(Optional.of(autor));
+
+        // When
+        autorService.buscarPorId(1L);
+        Optional<AutorDTO> resultado = autorService.buscarPorId(1L);
+
+        // Then
+        assertTrue(resultado.isPresent());
+        verify(autorRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void atualizar_DeveInvalidarOAutorEmCache() {
+        // Given
+        when(autorRepository.findById(1L)).thenReturn(Optional.of(autor));
+        when(autorRepository.save(any(Autor.class))).thenReturn(autor);
+        autorService.buscarPorId(1L);
+
+        // When
+        autorService.atualizar(1L, autorDTO);
+        autorService.buscarPorId(1L);
+
+        // Then
+        verify(autorRepository, times(3)).findById(1L);
+    }
+
     @Test
     void criar_DeveSalvarEAutor() {
         // Given
@@ -115,6 +185,8 @@ class AutorServiceTest {
         assertEquals(autor.getNome(), resultado.get().getNome());
         verify(autorRepository).findById(1L);
         verify(autorRepository).save(any(Autor.class));
+        verify(pesquisaService).reindexarAutor(1L);
+        verify(autocompletarService, never()).autorRemovido(1L);
     }
 
     @Test
@@ -143,6 +215,8 @@ class AutorServiceTest {
         assertTrue(resultado);
         verify(autorRepository).existsById(1L);
         verify(autorRepository).deleteById(1L);
+        verify(pesquisaService).removerAutor(1L);
+        verify(autocompletarService).autorRemovido(1L);
     }
 
     @Test
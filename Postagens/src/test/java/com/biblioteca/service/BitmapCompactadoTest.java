@@ -0,0 +1,98 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitmapCompactadoTest {
+
+    @Test
+    void adicionarERemover_DevemSeComportarComoUmTreeSet() {
+        // Given
+        BitmapCompactado bitmap = new BitmapCompactado();
+        TreeSet<Integer> esperado = new TreeSet<>();
+        Random random = new Random(42);
+
+        // When: o primeiro bloco fica denso (vira mapa de bits e volta a array) e os demais esparsos
+        for (int i = 0; i < 100_000; i++) {
+            int valor = random.nextBoolean() ? random.nextInt(6_000) : random.nextInt(1_000_000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(esperado.remove(valor), bitmap.remover(valor));
+            } else {
+                assertEquals(esperado.add(valor), bitmap.adicionar(valor));
+            }
+        }
+
+        // Then
+        assertEquals(esperado.size(), bitmap.cardinalidade());
+        assertArrayEquals(esperado.stream().mapToInt(Integer::intValue).toArray(),
+                bitmap.proximos(-1, esperado.size()));
+        assertArrayEquals(esperado.tailSet(5_000, false).stream().limit(10).mapToInt(Integer::intValue).toArray(),
+                bitmap.proximos(5_000, 10));
+    }
+
+    @Test
+    void eENao_DevemCalcularInterseccaoEDiferenca() {
+        // Given
+        BitmapCompactado pares = new BitmapCompactado();
+        BitmapCompactado multiplosDeTres = new BitmapCompactado();
+        for (int i = 0; i < 200_000; i++) {
+            if (i % 2 == 0) {
+                pares.adicionar(i);
+            }
+            if (i % 3 == 0) {
+                multiplosDeTres.adicionar(i);
+            }
+        }
+
+        // When
+        BitmapCompactado multiplosDeSeis = pares.e(multiplosDeTres);
+        BitmapCompactado paresSemTres = pares.eNao(multiplosDeTres);
+
+        // Then
+        assertEquals(33_334, multiplosDeSeis.cardinalidade());
+        assertEquals(33_334, pares.cardinalidadeE(multiplosDeTres));
+        assertEquals(100_000 - 33_334, paresSemTres.cardinalidade());
+        assertTrue(multiplosDeSeis.contem(199_998));
+        assertFalse(paresSemTres.contem(6));
+        assertTrue(paresSemTres.contem(4));
+        assertArrayEquals(new int[]{2, 4, 8, 10}, paresSemTres.proximos(0, 4));
+    }
+
+    @Test
+    void ou_DeveUnirBlocosDensosEEsparsos() {
+        // Given
+        BitmapCompactado pares = new BitmapCompactado();
+        BitmapCompactado esparsos = new BitmapCompactado();
+        for (int i = 0; i < 20_000; i += 2) {
+            pares.adicionar(i);
+        }
+        for (int i = 1; i < 1_000_000; i += 1_001) {
+            esparsos.adicionar(i);
+        }
+
+        // When
+        BitmapCompactado uniao = pares.ou(esparsos);
+
+        // Then
+        assertEquals(pares.cardinalidade() + esparsos.cardinalidade() - pares.cardinalidadeE(esparsos), uniao.cardinalidade());
+        assertTrue(uniao.contem(19_998));
+        assertTrue(uniao.contem(1_002));
+        assertTrue(uniao.contem(998_999));
+        assertFalse(uniao.contem(3));
+        assertEquals(10_000, pares.cardinalidade());
+    }
+
+    @Test
+    void adicionar_QuandoValorNegativo_DeveLancarExcecao() {
+        // Given
+        BitmapCompactado bitmap = new BitmapCompactado();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> bitmap.adicionar(-1));
+        assertFalse(bitmap.contem(-1));
+    }
+}
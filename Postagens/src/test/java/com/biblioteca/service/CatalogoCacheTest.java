@@ -0,0 +1,127 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.CatalogoConfig;
+import com.biblioteca.dto.AutorDTO;
+import com.biblioteca.dto.LivroDTO;
+import com.biblioteca.dto.PaginaDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogoCacheTest {
+
+    private static final int THREADS = 8;
+
+    private CatalogoCache catalogoCache;
+
+    @BeforeEach
+    void setUp() {
+        catalogoCache = new CatalogoCache();
+        ReflectionTestUtils.setField(catalogoCache, "catalogoConfig", new CatalogoConfig());
+        ReflectionTestUtils.setField(catalogoCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(catalogoCache, "objectMapper", new ObjectMapper());
+        catalogoCache.init();
+    }
+
+    @Test
+    void livros_DeveCarregarSoOsFaltantesNumaConsulta() {
+        // Given
+        AtomicInteger consultas = new AtomicInteger();
+        catalogoCache.livros(List.of(1L), ids -> carregar(ids, "Dom Casmurro", consultas));
+
+        // When
+        Map<Long, LivroDTO> livros = catalogoCache.livros(List.of(1L, 2L, 3L), ids -> {
+            assertEquals(2, ids.size());
+            return carregar(ids, "Dom Casmurro", consultas);
+        });
+
+        // Then
+        assertEquals(3, livros.size());
+        assertEquals(2, consultas.get());
+        catalogoCache.livros(List.of(1L, 2L, 3L), ids -> fail("Todos deveriam estar em cache"));
+    }
+
+    @Test
+    void livros_QuandoInvalidadoDuranteACarga_NaoDeveGuardarOValorLido() {
+        // Given: a invalidação chega depois da leitura do banco e antes do valor entrar no cache
+        AtomicInteger consultas = new AtomicInteger();
+
+        // When
+        Map<Long, LivroDTO> lidos = catalogoCache.livros(List.of(1L, 2L), ids -> {
+            Map<Long, LivroDTO> livros = carregar(ids, "Dom Casmurro", consultas);
+            catalogoCache.invalidarLivro(1L);
+            return livros;
+        });
+        Map<Long, LivroDTO> relidos = catalogoCache.livros(List.of(1L, 2L), ids -> {
+            assertEquals(List.of(1L), List.copyOf(ids));
+            return carregar(ids, "Dom Casmurro (edição revista)", consultas);
+        });
+
+        // Then: quem pediu recebeu o que foi lido, mas só o livro não invalidado ficou em cache
+        assertEquals("Dom Casmurro", lidos.get(1L).getTitulo());
+        assertEquals("Dom Casmurro (edição revista)", relidos.get(1L).getTitulo());
+        assertEquals("Dom Casmurro", relidos.get(2L).getTitulo());
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void autoresSerializados_QuandoRequisicoesSimultaneas_DeveConsultarESerializarUmaVez() throws Exception {
+        // Given: a consulta só termina depois que todas as requisições chegaram
+        AtomicInteger consultas = new AtomicInteger();
+        CountDownLatch liberar = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            // When
+            List<Future<RespostaSerializada>> respostas = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                respostas.add(executor.submit(() -> catalogoCache.autoresSerializados(null, 20, () -> {
+                    consultas.incrementAndGet();
+                    try {
+                        liberar.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new PaginaDTO<>(List.of(new AutorDTO("Machado de Assis")), null);
+                })));
+            }
+            Thread.sleep(200);
+            liberar.countDown();
+
+            // Then
+            RespostaSerializada primeira = respostas.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<RespostaSerializada> resposta : respostas) {
+                assertSame(primeira, resposta.get(30, TimeUnit.SECONDS));
+            }
+            assertEquals(1, consultas.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Map<Long, LivroDTO> carregar(Set<? extends Long> ids, String titulo, AtomicInteger consultas) {
+        consultas.incrementAndGet();
+        return ids.stream().collect(Collectors.toMap(id -> id, id -> {
+            LivroDTO livro = new LivroDTO();
+            livro.setId(id);
+            livro.setTitulo(titulo);
+            return livro;
+        }));
+    }
+}
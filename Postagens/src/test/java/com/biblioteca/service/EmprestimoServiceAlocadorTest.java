@@ -0,0 +1,110 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.EmprestimoDTO;
+import com.biblioteca.entity.Autor;
+import com.biblioteca.entity.Livro;
+import com.biblioteca.entity.Usuario;
+import com.biblioteca.exception.ServicoSobrecarregadoException;
+import com.biblioteca.repository.AutorRepository;
+import com.biblioteca.repository.EmprestimoRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Uma única thread no alocador: um lote travado no banco segura a fila dos outros livros
+@SpringBootTest(properties = {
+        "emprestimo.alocador-enabled=true",
+        "emprestimo.alocador-threads=1",
+        "emprestimo.alocador-timeout=" + EmprestimoServiceAlocadorTest.TIMEOUT_MS})
+@ActiveProfiles("test")
+class EmprestimoServiceAlocadorTest {
+
+    static final long TIMEOUT_MS = 1_000;
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Livro travado;
+    private Livro livro;
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        Autor autor = autorRepository.save(new Autor("Machado de Assis"));
+        travado = livroRepository.save(new Livro("Quincas Borba", "9788535910681", autor));
+        livro = livroRepository.save(new Livro("Dom Casmurro", "9788535902778", autor));
+        usuario = usuarioRepository.save(new Usuario("Leitor", "leitor@biblioteca.com", "senha123"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        autorRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    void emprestar_QuandoOTimeoutVenceAntesDoLote_NaoDeveGravarOEmprestimo() throws Exception {
+        // Given: outra transação segura a linha do primeiro livro, e o lote dele ocupa a thread do alocador
+        CountDownLatch bloqueado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<Void> bloqueio = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            livroRepository.findAllByIdParaAtualizacao(List.of(travado.getId()));
+            bloqueado.countDown();
+            try {
+                liberar.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(bloqueado.await(5, TimeUnit.SECONDS));
+        CompletableFuture<EmprestimoDTO> emGravacao = CompletableFuture.supplyAsync(
+                () -> emprestimoService.emprestar(new EmprestimoDTO(travado.getId(), usuario.getId())));
+        Thread.sleep(200);
+
+        // When: o pedido do segundo livro continua na fila quando o prazo vence
+        ServicoSobrecarregadoException erro = assertThrows(ServicoSobrecarregadoException.class,
+                () -> emprestimoService.emprestar(new EmprestimoDTO(livro.getId(), usuario.getId())));
+        Thread.sleep(TIMEOUT_MS / 2);
+        liberar.countDown();
+        bloqueio.get(10, TimeUnit.SECONDS);
+        EmprestimoDTO gravado = emGravacao.get(10, TimeUnit.SECONDS);
+        Thread.sleep(500);
+
+        // Then: quem recebeu 503 não ganhou empréstimo; o pedido já reservado pelo lote esperou o commit
+        assertTrue(erro.getMessage().contains("Tempo de espera"));
+        assertEquals(0, emprestimoRepository.countEmprestimosAtivosByLivro(livro.getId()));
+        assertEquals(1, livroRepository.findQuantidadeDisponivelById(livro.getId()).orElseThrow());
+        assertEquals(travado.getId(), gravado.getLivroId());
+        assertEquals(1, emprestimoRepository.countEmprestimosAtivosByLivro(travado.getId()));
+    }
+}
@@ -0,0 +1,159 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.EmprestimoDTO;
+import com.biblioteca.entity.Autor;
+import com.biblioteca.entity.Livro;
+import com.biblioteca.entity.Usuario;
+import com.biblioteca.repository.AutorRepository;
+import com.biblioteca.repository.EmprestimoRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EmprestimoServiceConcurrencyTest {
+
+    private static final int COPIAS = 5;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private IndiceCatalogo indiceCatalogo;
+
+    private Livro livro;
+    private List<Usuario> usuarios;
+
+    @BeforeEach
+    void setUp() {
+        Autor autor = autorRepository.save(new Autor("Machado de Assis"));
+
+        livro = new Livro("Dom Casmurro", "9788535902778", autor);
+        livro.setQuantidade(COPIAS);
+        livro.setQuantidadeDisponivel(COPIAS);
+        livro = livroRepository.save(livro);
+
+        usuarios = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            usuarios.add(usuarioRepository.save(new Usuario("Leitor " + i, "leitor" + i + "@biblioteca.com", "senha123")));
+        }
+        indiceCatalogo.reconstruir();
+    }
+
+    @AfterEach
+    void tearDown() {
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        autorRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    void emprestar_QuandoConcorrente_NaoDeveEmprestarMaisCopiasQueODisponivel() throws Exception {
+        // Given
+        List<Callable<Boolean>> tarefas = new ArrayList<>();
+        for (Usuario usuario : usuarios) {
+            tarefas.add(() -> {
+                EmprestimoDTO dto = new EmprestimoDTO();
+                dto.setLivroId(livro.getId());
+                dto.setUsuarioId(usuario.getId());
+                emprestimoService.emprestar(dto);
+                return true;
+            });
+        }
+
+        // When
+        int sucessos = executarSimultaneamente(tarefas);
+
+        // Then
+        Livro atualizado = livroRepository.findById(livro.getId()).orElseThrow();
+        assertEquals(COPIAS, sucessos);
+        assertEquals(0, atualizado.getQuantidadeDisponivel());
+        assertEquals(COPIAS, emprestimoRepository.countEmprestimosAtivosByLivro(livro.getId()));
+        assertFalse(indiceCatalogo.disponivel(livro.getId()));
+    }
+
+    @Test
+    void devolver_QuandoConcorrente_DeveLiberarACopiaUmaUnicaVez() throws Exception {
+        // Given
+        EmprestimoDTO dto = new EmprestimoDTO();
+        dto.setLivroId(livro.getId());
+        dto.setUsuarioId(usuarios.get(0).getId());
+        Long emprestimoId = emprestimoService.emprestar(dto).getId();
+
+        List<Callable<Boolean>> tarefas = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tarefas.add(() -> {
+                emprestimoService.devolver(emprestimoId);
+                return true;
+            });
+        }
+
+        // When
+        int sucessos = executarSimultaneamente(tarefas);
+
+        // Then
+        Livro atualizado = livroRepository.findById(livro.getId()).orElseThrow();
+        assertEquals(1, sucessos);
+        assertEquals(COPIAS, atualizado.getQuantidadeDisponivel());
+    }
+
+    private int executarSimultaneamente(List<Callable<Boolean>> tarefas) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tarefas.size());
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> resultados = new ArrayList<>();
+            for (Callable<Boolean> tarefa : tarefas) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    try {
+                        return tarefa.call();
+                    } catch (RuntimeException e) {
+                        return false;
+                    }
+                }));
+            }
+            largada.countDown();
+
+            int sucessos = 0;
+            for (Future<Boolean> resultado : resultados) {
+                if (resultado.get(30, TimeUnit.SECONDS)) {
+                    sucessos++;
+                }
+            }
+            return sucessos;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
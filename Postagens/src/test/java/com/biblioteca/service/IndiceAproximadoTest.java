@@ -0,0 +1,78 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceAproximadoTest {
+
+    private IndiceAproximado indice;
+    private Map<Long, Long> popularidade;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceAproximado();
+        indice.inserir(TrieAutocompletar.Tipo.AUTOR, 1L, "Clarice Lispector");
+        indice.inserir(TrieAutocompletar.Tipo.LIVRO, 2L, "Dom Casmurro");
+        indice.inserir(TrieAutocompletar.Tipo.LIVRO, 3L, "Casa Grande & Senzala");
+        indice.inserir(TrieAutocompletar.Tipo.LIVRO, 4L, "Casa de Pensão");
+        popularidade = Map.of(3L, 10L, 4L, 50L);
+    }
+
+    @Test
+    void buscar_DeveEncontrarNomesComAteDoisErros() {
+        // When
+        List<IndiceAproximado.Resultado> semLetra = buscar("Lispetor");
+        List<IndiceAproximado.Resultado> doisErros = buscar("cazmuro");
+
+        // Then
+        assertEquals(1L, semLetra.get(0).id());
+        assertEquals(TrieAutocompletar.Tipo.AUTOR, semLetra.get(0).tipo());
+        assertEquals(2L, doisErros.get(0).id());
+    }
+
+    @Test
+    void buscar_QuandoDistanciaPassaDoLimite_NaoDeveRetornarNada() {
+        // When
+        List<IndiceAproximado.Resultado> resultado = buscar("kazmuhu");
+
+        // Then
+        assertTrue(resultado.isEmpty());
+    }
+
+    @Test
+    void buscar_QuandoSimilaridadeEmpata_DevePriorizarOMaisPopular() {
+        // When
+        List<IndiceAproximado.Resultado> resultado = buscar("caza");
+
+        // Then
+        assertEquals(List.of(4L, 3L), resultado.stream().map(IndiceAproximado.Resultado::id).toList());
+    }
+
+    @Test
+    void remover_DeveTirarAsPalavrasQueFicaramSemItens() {
+        // Given
+        int vocabularioAntes = indice.tamanhoVocabulario();
+
+        // When
+        indice.remover(TrieAutocompletar.Tipo.LIVRO, 2L);
+
+        // Then
+        assertTrue(buscar("casmurro").isEmpty());
+        assertEquals(vocabularioAntes - 2, indice.tamanhoVocabulario());
+    }
+
+    @Test
+    void levenshtein_DeveAbandonarQuandoPassaDoLimite() {
+        assertEquals(2, IndiceAproximado.levenshtein("casmurro", "cazmuro", 2));
+        assertEquals(3, IndiceAproximado.levenshtein("lispector", "xyzpector", 2));
+    }
+
+    private List<IndiceAproximado.Resultado> buscar(String consulta) {
+        return indice.buscar(consulta, 10, (tipo, id) -> popularidade.getOrDefault(id, 0L));
+    }
+}
@@ -0,0 +1,100 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceInvertidoTest {
+
+    private IndiceInvertido indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceInvertido();
+        indice.indexar(1L, 10L, "Memórias Póstumas de Brás Cubas", "Um defunto autor narra sua vida",
+                "Machado de Assis", "Escritor carioca");
+        indice.indexar(2L, 10L, "Dom Casmurro", "Bentinho desconfia de Capitu",
+                "Machado de Assis", "Escritor carioca");
+        indice.indexar(3L, 20L, "A Hora da Estrela", "Macabéa chega ao Rio de Janeiro",
+                "Clarice Lispector", "Escritora nascida na Ucrânia, autora de contos sobre memórias");
+    }
+
+    @Test
+    void correspondentes_ComIdForaDaFaixaDoBitmap_DeveIgnorarOLivro() {
+        // Given
+        indice.indexar(Integer.MAX_VALUE + 1L, 10L, "Quincas Borba", "", "Machado de Assis", "Escritor carioca");
+
+        // When
+        BitmapCompactado ids = indice.correspondentes("machado");
+
+        // Then
+        assertEquals(2, ids.cardinalidade());
+        assertTrue(ids.contem(1) && ids.contem(2));
+        assertEquals(1, indice.pesquisar("quincas", 10).size());
+    }
+
+    @Test
+    void pesquisar_DeveIgnorarAcentosEMaiusculas() {
+        // When
+        List<IndiceInvertido.Resultado> resultado = indice.pesquisar("BRAS cubas", 10);
+
+        // Then
+        assertEquals(1, resultado.size());
+        assertEquals(1L, resultado.get(0).livroId());
+    }
+
+    @Test
+    void pesquisar_DeveRanquearOTituloAcimaDaBiografia() {
+        // When
+        List<IndiceInvertido.Resultado> resultado = indice.pesquisar("memorias", 10);
+
+        // Then
+        assertEquals(List.of(1L, 3L), resultado.stream().map(IndiceInvertido.Resultado::livroId).toList());
+        assertTrue(resultado.get(0).pontuacao() > resultado.get(1).pontuacao());
+    }
+
+    @Test
+    void pesquisar_ComFraseEntreAspas_DeveExigirTermosEmSequencia() {
+        // When
+        List<IndiceInvertido.Resultado> emSequencia = indice.pesquisar("\"memorias postumas de bras\"", 10);
+        List<IndiceInvertido.Resultado> foraDeOrdem = indice.pesquisar("\"postumas memorias\"", 10);
+
+        // Then
+        assertEquals(1, emSequencia.size());
+        assertEquals(1L, emSequencia.get(0).livroId());
+        assertTrue(foraDeOrdem.isEmpty());
+    }
+
+    @Test
+    void pesquisar_DeveRespeitarOLimite() {
+        // When
+        List<IndiceInvertido.Resultado> resultado = indice.pesquisar("machado clarice", 2);
+
+        // Then
+        assertEquals(2, resultado.size());
+    }
+
+    @Test
+    void indexar_QuandoLivroJaExiste_DeveSubstituirOsTermosAntigos() {
+        // When
+        indice.indexar(2L, 10L, "Quincas Borba", null, "Machado de Assis", "Escritor carioca");
+
+        // Then
+        assertTrue(indice.pesquisar("casmurro", 10).isEmpty());
+        assertEquals(2L, indice.pesquisar("quincas", 10).get(0).livroId());
+        assertEquals(3, indice.tamanho());
+    }
+
+    @Test
+    void removerAutor_DeveRemoverTodosOsLivrosDoAutor() {
+        // When
+        indice.removerAutor(10L);
+
+        // Then
+        assertTrue(indice.pesquisar("machado", 10).isEmpty());
+        assertEquals(1, indice.tamanho());
+    }
+}
@@ -0,0 +1,48 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceIsbnTest {
+
+    @Test
+    void normalizar_DeveConverterIsbn10ParaIsbn13() {
+        // When & Then
+        assertEquals(9780306406157L, IndiceIsbn.normalizar("0-306-40615-2"));
+        assertEquals(9780306406157L, IndiceIsbn.normalizar("978-0-306-40615-7"));
+        assertEquals(9780807013175L, IndiceIsbn.normalizar("080701317X"));
+    }
+
+    @Test
+    void normalizar_QuandoNaoForIsbn_DeveRetornarAusente() {
+        // When & Then
+        assertEquals(MapaLongLong.AUSENTE, IndiceIsbn.normalizar("12345"));
+        assertEquals(MapaLongLong.AUSENTE, IndiceIsbn.normalizar("978030640615A"));
+        assertEquals(MapaLongLong.AUSENTE, IndiceIsbn.normalizar("123456789X123"));
+        assertEquals(MapaLongLong.AUSENTE, IndiceIsbn.normalizar(null));
+    }
+
+    @Test
+    void normalizar_QuandoDigitoVerificadorDoIsbn10NaoConfere_NaoDeveConverter() {
+        // When & Then: mesmo corpo de 0306406152, verificador errado
+        assertEquals(MapaLongLong.AUSENTE, IndiceIsbn.normalizar("0-306-40615-3"));
+        assertEquals(MapaLongLong.AUSENTE, IndiceIsbn.normalizar("080701317-1"));
+    }
+
+    @Test
+    void mesmoIsbn_DeveIgualarIsbn10EIsbn13DoMesmoLivro() {
+        // When & Then
+        assertTrue(IndiceIsbn.mesmoIsbn("0306406152", "9780306406157"));
+        assertFalse(IndiceIsbn.mesmoIsbn("0306406153", "9780306406157"));
+    }
+
+    @Test
+    void formas_DeveIncluirOIsbn10SoQuandoAConversaoForValida() {
+        // When & Then
+        assertTrue(IndiceIsbn.formas("9780306406157").contains("0306406152"));
+        assertEquals(Set.of("0306406153"), IndiceIsbn.formas("0306406153"));
+    }
+}
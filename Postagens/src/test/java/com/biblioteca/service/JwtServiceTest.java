@@ -0,0 +1,72 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.JwtConfig;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private JwtService jwtService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret("testSecretKeyForTestingPurposesOnly");
+        jwtConfig.setExpiration(3600000);
+        meterRegistry = new SimpleMeterRegistry();
+
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtConfig", jwtConfig);
+        ReflectionTestUtils.setField(jwtService, "meterRegistry", meterRegistry);
+        jwtService.init();
+    }
+
+    @Test
+    void verificarToken_QuandoRepetido_DeveUsarCache() {
+        // Given
+        String token = jwtService.generateToken("admin@biblioteca.com");
+
+        // When
+        Optional<Claims> primeira = jwtService.verificarToken(token);
+        Optional<Claims> segunda = jwtService.verificarToken(token);
+
+        // Then
+        assertTrue(primeira.isPresent());
+        assertEquals("admin@biblioteca.com", segunda.get().getSubject());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt.tokens").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "jwt.tokens").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void verificarToken_QuandoAssinaturaInvalida_DeveRetornarVazio() {
+        // Given
+        String token = jwtService.generateToken("admin@biblioteca.com");
+        String adulterado = token.substring(0, token.length() - 2) + "xx";
+
+        // When & Then
+        assertFalse(jwtService.verificarToken(adulterado).isPresent());
+        assertFalse(jwtService.validateToken(adulterado));
+    }
+
+    @Test
+    void generateToken_ComIdERoles_DeveIncluirClaimsAssinados() {
+        // Given
+        String token = jwtService.generateToken("admin@biblioteca.com", 42L, List.of("USER"));
+
+        // When
+        Claims claims = jwtService.verificarToken(token).orElseThrow();
+
+        // Then
+        assertEquals(42L, claims.get(JwtService.CLAIM_USUARIO_ID, Long.class));
+        assertEquals(List.of("USER"), claims.get(JwtService.CLAIM_ROLES, List.class));
+    }
+}
@@ -0,0 +1,49 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapaLongLongTest {
+
+    @Test
+    void putGetRemove_DevemSeComportarComoUmHashMap() {
+        // Given
+        MapaLongLong mapa = new MapaLongLong();
+        Map<Long, Long> esperado = new HashMap<>();
+        Random random = new Random(42);
+
+        // When: chaves de um intervalo pequeno, para forçar colisões, remoções no meio das sequências e redimensionamentos
+        for (int i = 0; i < 200_000; i++) {
+            long chave = 9_780_000_000_000L + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(esperado.getOrDefault(chave, MapaLongLong.AUSENTE), mapa.remove(chave));
+                esperado.remove(chave);
+            } else {
+                long valor = random.nextInt(1_000_000);
+                assertEquals(esperado.getOrDefault(chave, MapaLongLong.AUSENTE), mapa.put(chave, valor));
+                esperado.put(chave, valor);
+            }
+        }
+
+        // Then
+        assertEquals(esperado.size(), mapa.size());
+        for (long chave = 9_780_000_000_000L; chave < 9_780_000_005_000L; chave++) {
+            assertEquals(esperado.getOrDefault(chave, MapaLongLong.AUSENTE), mapa.get(chave));
+        }
+    }
+
+    @Test
+    void chaveZero_DeveSerRecusada() {
+        // Given
+        MapaLongLong mapa = new MapaLongLong();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> mapa.put(0, 1));
+        assertEquals(MapaLongLong.AUSENTE, mapa.get(0));
+    }
+}
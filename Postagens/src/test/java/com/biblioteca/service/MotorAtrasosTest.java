@@ -0,0 +1,155 @@
+package com.biblioteca.service;
+
+import com.biblioteca.entity.Autor;
+import com.biblioteca.entity.Emprestimo;
+import com.biblioteca.entity.Livro;
+import com.biblioteca.entity.StatusEmprestimo;
+import com.biblioteca.entity.Usuario;
+import com.biblioteca.repository.AutorRepository;
+import com.biblioteca.repository.EmprestimoRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "emprestimo.atrasos-varredura=" + MotorAtrasosTest.VARREDURA_MS)
+@ActiveProfiles("test")
+class MotorAtrasosTest {
+
+    static final long VARREDURA_MS = 1_000;
+    private static final long PRAZO_MS = 1_500;
+
+    @Autowired
+    private MotorAtrasos motorAtrasos;
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private IndiceCatalogo indiceCatalogo;
+
+    private Livro livro;
+
+    @BeforeEach
+    void setUp() {
+        Autor autor = autorRepository.save(new Autor("Machado de Assis"));
+        livro = new Livro("Dom Casmurro", "9788535902778", autor);
+        livro.setQuantidade(3);
+        livro.setQuantidadeDisponivel(0);
+        livro = livroRepository.save(livro);
+        indiceCatalogo.reconstruir();
+    }
+
+    @AfterEach
+    void tearDown() {
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        autorRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    void motor_DeveMarcarComoAtrasadoNoVencimentoEManterOEmprestimoEmAberto() throws Exception {
+        // Given: um empréstimo vence em instantes, outro é devolvido antes de vencer e outro vence em 15 dias
+        LocalDateTime vencimento = LocalDateTime.now().plusNanos(PRAZO_MS * 1_000_000);
+        Emprestimo vencendo = emprestimo("Leitor 1", vencimento);
+        Emprestimo devolvido = emprestimo("Leitor 2", vencimento);
+        Emprestimo emDia = emprestimo("Leitor 3", LocalDateTime.now().plusDays(15));
+        // Fora de transação os vencimentos entram na fila na hora
+        motorAtrasos.agendar(vencendo);
+        motorAtrasos.agendar(devolvido);
+        motorAtrasos.agendar(emDia);
+        emprestimoService.devolver(devolvido.getId());
+
+        // When
+        StatusEmprestimo antes = status(vencendo);
+        long limite = System.currentTimeMillis() + 10_000;
+        while (status(vencendo) != StatusEmprestimo.ATRASADO && System.currentTimeMillis() < limite) {
+            Thread.sleep(50);
+        }
+        Emprestimo atrasado = emprestimoRepository.findById(vencendo.getId()).orElseThrow();
+
+        // Then
+        assertEquals(StatusEmprestimo.ATIVO, antes);
+        assertEquals(StatusEmprestimo.ATRASADO, atrasado.getStatus());
+        assertFalse(atrasado.getDataAtualizacao().isBefore(vencimento));
+        assertEquals(StatusEmprestimo.DEVOLVIDO, status(devolvido));
+        assertEquals(StatusEmprestimo.ATIVO, status(emDia));
+        assertEquals(1L, emprestimoService.contarEmprestimosAtrasados());
+        assertEquals(2L, emprestimoService.contarEmprestimosAtivosPorLivro(livro.getId()));
+
+        // Atrasado ainda pode ser devolvido e libera a cópia
+        emprestimoService.devolver(vencendo.getId());
+        assertEquals(StatusEmprestimo.DEVOLVIDO, status(vencendo));
+        assertEquals(0L, emprestimoService.contarEmprestimosAtrasados());
+        assertEquals(2, livroRepository.findQuantidadeDisponivelById(livro.getId()).orElseThrow());
+    }
+
+    @Test
+    void reconstruir_DeveMarcarOQueVenceuComAAplicacaoParada() {
+        // Given: gravado direto no banco, sem passar pela fila
+        Emprestimo vencido = emprestimo("Leitor 1", LocalDateTime.now().minusDays(1));
+        Emprestimo emDia = emprestimo("Leitor 2", LocalDateTime.now().plusDays(15));
+
+        // When
+        motorAtrasos.reconstruir();
+
+        // Then
+        assertEquals(StatusEmprestimo.ATRASADO, status(vencido));
+        assertEquals(StatusEmprestimo.ATIVO, status(emDia));
+        assertTrue(motorAtrasos.agendados() >= 1);
+    }
+
+    @Test
+    void varredura_DeveRodarNoIntervaloMesmoComAFilaSempreComVencimentos() throws Exception {
+        // Given: um vencido gravado por fora da fila e vencimentos chegando mais rápido que a varredura
+        Emprestimo vencido = emprestimo("Leitor 1", LocalDateTime.now().minusDays(1));
+        Emprestimo emDia = emprestimo("Leitor 2", LocalDateTime.now().plusDays(15));
+
+        // When
+        long limite = System.currentTimeMillis() + 5 * VARREDURA_MS;
+        while (status(vencido) != StatusEmprestimo.ATRASADO && System.currentTimeMillis() < limite) {
+            Emprestimo vencimento = new Emprestimo(livro, emDia.getUsuario());
+            vencimento.setId(emDia.getId());
+            vencimento.setDataDevolucaoPrevista(LocalDateTime.now().plusNanos(100_000_000));
+            motorAtrasos.agendar(vencimento);
+            Thread.sleep(200);
+        }
+
+        // Then: o vencimento da fila é conferido de novo no banco e o empréstimo em dia não muda
+        assertEquals(StatusEmprestimo.ATRASADO, status(vencido));
+        assertEquals(StatusEmprestimo.ATIVO, status(emDia));
+    }
+
+    private Emprestimo emprestimo(String leitor, LocalDateTime dataDevolucaoPrevista) {
+        Usuario usuario = usuarioRepository.save(new Usuario(leitor,
+                leitor.toLowerCase().replace(' ', '.') + "@biblioteca.com", "senha123"));
+        Emprestimo emprestimo = new Emprestimo(livro, usuario);
+        emprestimo.setDataDevolucaoPrevista(dataDevolucaoPrevista);
+        return emprestimoRepository.save(emprestimo);
+    }
+
+    private StatusEmprestimo status(Emprestimo emprestimo) {
+        return emprestimoRepository.findById(emprestimo.getId()).orElseThrow().getStatus();
+    }
+}
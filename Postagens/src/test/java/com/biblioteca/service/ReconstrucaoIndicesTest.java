@@ -0,0 +1,43 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Com o Tomcat de verdade: o servidor web só pode subir depois da reconstrução dos índices
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ReconstrucaoIndicesTest {
+
+    @TestConfiguration
+    static class Configuracao {
+
+        final AtomicReference<Boolean> reconstruidosNaSubida = new AtomicReference<>();
+
+        @Autowired
+        private ReconstrucaoIndices reconstrucaoIndices;
+
+        @EventListener(WebServerInitializedEvent.class)
+        void servidorIniciado() {
+            reconstruidosNaSubida.set(reconstrucaoIndices.isRunning());
+        }
+    }
+
+    @Autowired
+    private Configuracao configuracao;
+
+    @Test
+    void partida_DeveReconstruirOsIndicesAntesDoServidorAceitarConexoes() {
+        // Then
+        assertEquals(Boolean.TRUE, configuracao.reconstruidosNaSubida.get());
+    }
+}
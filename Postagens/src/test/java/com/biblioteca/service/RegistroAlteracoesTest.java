@@ -0,0 +1,209 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.AlteracaoDTO;
+import com.biblioteca.dto.AlteracoesDTO;
+import com.biblioteca.dto.AutorDTO;
+import com.biblioteca.dto.EmprestimoDTO;
+import com.biblioteca.dto.LivroDTO;
+import com.biblioteca.entity.StatusEmprestimo;
+import com.biblioteca.entity.Usuario;
+import com.biblioteca.repository.AutorRepository;
+import com.biblioteca.repository.EmprestimoRepository;
+import com.biblioteca.repository.LivroRepository;
+import com.biblioteca.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sem @Transactional: as alterações só são gravadas no commit
+@SpringBootTest
+@ActiveProfiles("test")
+class RegistroAlteracoesTest {
+
+    @Autowired
+    private AutorService autorService;
+
+    @Autowired
+    private LivroService livroService;
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private String cursorAutores;
+    private String cursorLivros;
+    private String cursorEmprestimos;
+
+    @BeforeEach
+    void setUp() {
+        // O feed é compartilhado com os outros testes: começa do fim dele
+        cursorAutores = fim(autorService::listarAlteracoes);
+        cursorLivros = fim(livroService::listarAlteracoes);
+        cursorEmprestimos = fim(emprestimoService::listarAlteracoes);
+    }
+
+    @AfterEach
+    void tearDown() {
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        autorRepository.deleteAll();
+        usuarioRepository.deleteAll();
+    }
+
+    @Test
+    void feed_DeveTrazerSoOQueMudouDesdeOCursorComRemocoesEmCascata() {
+        // Given
+        AutorDTO autor = autorService.criar(new AutorDTO("Machado de Assis"));
+        LivroDTO livro = new LivroDTO("Dom Casmurro", "9788535902778", autor.getId());
+        livro.setQuantidade(2);
+        livro = livroService.criar(livro);
+        Usuario usuario = usuarioRepository.save(new Usuario("Leitor", "leitor@biblioteca.com", "senha123"));
+
+        // When: a criação aparece com os dados atuais
+        AlteracoesDTO<LivroDTO> criacao = livroService.listarAlteracoes(cursorLivros, null);
+
+        // Then
+        assertEquals(1, criacao.getAlteracoes().size());
+        assertEquals(livro.getId(), criacao.getAlteracoes().get(0).getId());
+        assertFalse(criacao.getAlteracoes().get(0).isRemovido());
+        assertEquals(2, criacao.getAlteracoes().get(0).getDados().getQuantidadeDisponivel());
+        assertFalse(criacao.isMaisAlteracoes());
+
+        // When: o empréstimo muda o livro por UPDATE em massa, e o cursor da leitura anterior só vê isso
+        EmprestimoDTO emprestimo = emprestimoService.emprestar(new EmprestimoDTO(livro.getId(), usuario.getId()));
+        AlteracoesDTO<LivroDTO> aposEmprestimo = livroService.listarAlteracoes(criacao.getCursor(), null);
+        AlteracoesDTO<EmprestimoDTO> emprestimos = emprestimoService.listarAlteracoes(cursorEmprestimos, null);
+
+        // Then
+        assertEquals(1, aposEmprestimo.getAlteracoes().size());
+        assertEquals(1, aposEmprestimo.getAlteracoes().get(0).getDados().getQuantidadeDisponivel());
+        assertEquals(List.of(emprestimo.getId()), ids(emprestimos));
+        assertEquals(StatusEmprestimo.ATIVO, emprestimos.getAlteracoes().get(0).getDados().getStatus());
+
+        // When: sem alterações o cursor se mantém
+        AlteracoesDTO<LivroDTO> semAlteracoes = livroService.listarAlteracoes(aposEmprestimo.getCursor(), null);
+
+        // Then
+        assertTrue(semAlteracoes.getAlteracoes().isEmpty());
+        assertEquals(aposEmprestimo.getCursor(), semAlteracoes.getCursor());
+
+        // When: devolução e remoção do autor, que leva livro e empréstimo em cascata
+        emprestimoService.devolver(emprestimo.getId());
+        AlteracoesDTO<EmprestimoDTO> devolucao = emprestimoService.listarAlteracoes(emprestimos.getCursor(), null);
+        assertTrue(autorService.deletar(autor.getId()));
+
+        // Then
+        assertEquals(StatusEmprestimo.DEVOLVIDO, devolucao.getAlteracoes().get(0).getDados().getStatus());
+        assertRemovido(autorService.listarAlteracoes(cursorAutores, null), autor.getId());
+        assertRemovido(livroService.listarAlteracoes(semAlteracoes.getCursor(), null), livro.getId());
+        assertRemovido(emprestimoService.listarAlteracoes(devolucao.getCursor(), null), emprestimo.getId());
+    }
+
+    @Test
+    void feed_DevePaginarPelaSequenciaEDescartarAlteracoesDesfeitas() {
+        // Given: três autores e uma transação desfeita
+        AutorDTO primeiro = autorService.criar(new AutorDTO("Clarice Lispector"));
+        AutorDTO segundo = autorService.criar(new AutorDTO("Cecília Meireles"));
+        autorService.atualizar(primeiro.getId(), new AutorDTO("Clarice Lispector (1920-1977)"));
+        transactionTemplate.executeWithoutResult(status -> {
+            autorService.criar(new AutorDTO("Desfeito"));
+            status.setRollbackOnly();
+        });
+
+        // When
+        AlteracoesDTO<AutorDTO> pagina = autorService.listarAlteracoes(cursorAutores, 1);
+        AlteracoesDTO<AutorDTO> resto = autorService.listarAlteracoes(pagina.getCursor(), 10);
+
+        // Then: o primeiro autor foi alterado depois, então vem por último, uma única vez
+        assertTrue(pagina.isMaisAlteracoes());
+        assertEquals(List.of(segundo.getId()), ids(pagina));
+        assertFalse(resto.isMaisAlteracoes());
+        assertEquals(List.of(primeiro.getId()), ids(resto));
+        assertFalse(autorService.existePorNome("Desfeito"));
+    }
+
+    @Test
+    void feed_NaoDevePassarDeUmaSequenciaAindaSemCommit() throws Exception {
+        // Given: a primeira transação já sorteou a sequência e para logo antes do commit
+        CountDownLatch sorteada = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<AutorDTO> lenta = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            AutorDTO autor = autorService.criar(new AutorDTO("Clarice Lispector"));
+            // O INSERT sai no flush e só então agenda a gravação do feed; a pausa é agendada depois dela
+            entityManager.flush();
+            entityManager.unwrap(SessionImplementor.class).getActionQueue().registerProcess(sessao -> {
+                sorteada.countDown();
+                try {
+                    liberar.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            return autor;
+        }));
+        assertTrue(sorteada.await(10, TimeUnit.SECONDS));
+
+        // When: uma transação posterior confirma uma sequência maior antes dela
+        AutorDTO rapida = autorService.criar(new AutorDTO("Cecília Meireles"));
+        AlteracoesDTO<AutorDTO> durante = autorService.listarAlteracoes(cursorAutores, null);
+        liberar.countDown();
+        AutorDTO lentaConfirmada = lenta.get(10, TimeUnit.SECONDS);
+        AlteracoesDTO<AutorDTO> depois = autorService.listarAlteracoes(durante.getCursor(), null);
+
+        // Then: o feed espera a menor e o cursor não pula nenhuma das duas
+        assertTrue(durante.getAlteracoes().isEmpty());
+        assertEquals(cursorAutores, durante.getCursor());
+        assertEquals(List.of(lentaConfirmada.getId(), rapida.getId()), ids(depois));
+    }
+
+    private static <T> String fim(BiFunction<String, Integer, AlteracoesDTO<T>> feed) {
+        AlteracoesDTO<T> pagina = feed.apply(null, Paginacao.LIMITE_MAXIMO);
+        while (pagina.isMaisAlteracoes()) {
+            pagina = feed.apply(pagina.getCursor(), Paginacao.LIMITE_MAXIMO);
+        }
+        return pagina.getCursor();
+    }
+
+    private static <T> List<Long> ids(AlteracoesDTO<T> alteracoes) {
+        return alteracoes.getAlteracoes().stream().map(AlteracaoDTO::getId).toList();
+    }
+
+    private static <T> void assertRemovido(AlteracoesDTO<T> alteracoes, Long id) {
+        AlteracaoDTO<T> alteracao = alteracoes.getAlteracoes().stream()
+                .filter(item -> item.getId().equals(id)).findFirst().orElseThrow();
+        assertTrue(alteracao.isRemovido());
+        assertNull(alteracao.getDados());
+    }
+}
@@ -0,0 +1,160 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.SenhaConfig;
+import com.biblioteca.dto.LoginDTO;
+import com.biblioteca.entity.Usuario;
+import com.biblioteca.exception.ServicoSobrecarregadoException;
+import com.biblioteca.repository.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SenhaServiceTest {
+
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private SenhaService senhaService;
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        senhaService.encerrar();
+    }
+
+    @Test
+    void codificar_QuandoPoolEFilaEstaoCheios_DeveRejeitarComServicoSobrecarregado() throws Exception {
+        // Given: uma thread ocupada e a única vaga da fila tomada
+        CountDownLatch iniciou = new CountDownLatch(1);
+        senhaService = criar(encoderBloqueado(iniciou), 1, 1, 10_000);
+        CompletableFuture<String> ocupando = CompletableFuture.supplyAsync(() -> senhaService.codificar("a"));
+        assertTrue(iniciou.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> enfileirada = CompletableFuture.supplyAsync(() -> senhaService.codificar("b"));
+        aguardarFila(1);
+
+        // When
+        ServicoSobrecarregadoException erro = assertThrows(ServicoSobrecarregadoException.class,
+                () -> senhaService.codificar("c"));
+
+        // Then: as que já estavam no pool terminam normalmente
+        assertTrue(erro.getMessage().contains("sobrecarregado"));
+        liberar.countDown();
+        assertEquals("hash", ocupando.get(5, TimeUnit.SECONDS));
+        assertEquals("hash", enfileirada.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void verificar_QuandoHashPassaDoTimeout_DeveFalharComServicoSobrecarregado() {
+        // Given
+        senhaService = criar(encoderBloqueado(new CountDownLatch(1)), 1, 1, 50);
+
+        // When
+        ServicoSobrecarregadoException erro = assertThrows(ServicoSobrecarregadoException.class,
+                () -> senhaService.verificar("senha123", "hash"));
+
+        // Then
+        assertTrue(erro.getMessage().contains("Tempo de autenticação esgotado"));
+    }
+
+    @Test
+    void login_QuandoHashTemCustoMenorQueOConfigurado_DeveRegravarOHash() {
+        // Given: senha cadastrada com custo 4, configuração atual com custo 5
+        senhaService = criar(new BCryptPasswordEncoder(5), 1, 1, 10_000);
+        Usuario usuario = new Usuario("Leitor", "leitor@biblioteca.com", new BCryptPasswordEncoder(4).encode("senha123"));
+        usuario.setId(1L);
+        UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+        when(usuarioRepository.findByEmail(usuario.getEmail())).thenReturn(Optional.of(usuario));
+        AuthService authService = criarAuthService(usuarioRepository);
+        String hashAntigo = usuario.getSenha();
+
+        // When
+        authService.login(new LoginDTO(usuario.getEmail(), "senha123"));
+
+        // Then
+        assertNotEquals(hashAntigo, usuario.getSenha());
+        assertTrue(usuario.getSenha().startsWith("$2a$05$"));
+        assertTrue(senhaService.verificar("senha123", usuario.getSenha()));
+        assertFalse(senhaService.precisaRehash(usuario.getSenha()));
+        verify(usuarioRepository).save(usuario);
+    }
+
+    @Test
+    void login_QuandoHashJaTemOCustoConfigurado_NaoDeveRegravar() {
+        // Given
+        senhaService = criar(new BCryptPasswordEncoder(4), 1, 1, 10_000);
+        Usuario usuario = new Usuario("Leitor", "leitor@biblioteca.com", new BCryptPasswordEncoder(4).encode("senha123"));
+        usuario.setId(1L);
+        UsuarioRepository usuarioRepository = mock(UsuarioRepository.class);
+        when(usuarioRepository.findByEmail(usuario.getEmail())).thenReturn(Optional.of(usuario));
+        AuthService authService = criarAuthService(usuarioRepository);
+
+        // When
+        authService.login(new LoginDTO(usuario.getEmail(), "senha123"));
+
+        // Then
+        verify(usuarioRepository, never()).save(any(Usuario.class));
+    }
+
+    private PasswordEncoder encoderBloqueado(CountDownLatch iniciou) {
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(anyString())).thenAnswer(invocacao -> {
+            iniciou.countDown();
+            liberar.await();
+            return "hash";
+        });
+        when(encoder.matches(anyString(), anyString())).thenAnswer(invocacao -> {
+            iniciou.countDown();
+            liberar.await();
+            return true;
+        });
+        return encoder;
+    }
+
+    private SenhaService criar(PasswordEncoder encoder, int threads, int fila, long timeout) {
+        SenhaConfig senhaConfig = new SenhaConfig();
+        senhaConfig.setThreads(threads);
+        senhaConfig.setQueueCapacity(fila);
+        senhaConfig.setTimeout(timeout);
+
+        SenhaService servico = new SenhaService();
+        ReflectionTestUtils.setField(servico, "passwordEncoder", encoder);
+        ReflectionTestUtils.setField(servico, "senhaConfig", senhaConfig);
+        ReflectionTestUtils.setField(servico, "meterRegistry", new SimpleMeterRegistry());
+        servico.init();
+        return servico;
+    }
+
+    private AuthService criarAuthService(UsuarioRepository usuarioRepository) {
+        JwtService jwtService = mock(JwtService.class);
+        when(jwtService.generateToken(anyString(), anyLong(), anyList())).thenReturn("token");
+
+        AuthService authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "usuarioRepository", usuarioRepository);
+        ReflectionTestUtils.setField(authService, "senhaService", senhaService);
+        ReflectionTestUtils.setField(authService, "jwtService", jwtService);
+        return authService;
+    }
+
+    private void aguardarFila(int tamanho) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(senhaService, "executor");
+        while (executor.getQueue().size() < tamanho) {
+            assertTrue(System.currentTimeMillis() < limite, "Tarefa não chegou à fila");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrieAutocompletarTest {
+
+    private TrieAutocompletar trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new TrieAutocompletar();
+        trie.inserir(TrieAutocompletar.Tipo.LIVRO, 1L, "Dom Casmurro", 5);
+        trie.inserir(TrieAutocompletar.Tipo.LIVRO, 2L, "Dom Quixote", 20);
+        trie.inserir(TrieAutocompletar.Tipo.LIVRO, 3L, "Memórias Póstumas de Brás Cubas", 8);
+        trie.inserir(TrieAutocompletar.Tipo.AUTOR, 10L, "Machado de Assis", 13);
+    }
+
+    @Test
+    void completar_DeveOrdenarPelaPopularidade() {
+        // When
+        List<TrieAutocompletar.Sugestao> sugestoes = trie.completar("Do", 10);
+
+        // Then
+        assertEquals(List.of(2L, 1L), ids(sugestoes));
+    }
+
+    @Test
+    void completar_DeveCompletarPeloInicioDeQualquerPalavraSemAcentos() {
+        // When
+        List<TrieAutocompletar.Sugestao> porPalavra = trie.completar("casm", 10);
+        List<TrieAutocompletar.Sugestao> semAcento = trie.completar("bras c", 10);
+
+        // Then
+        assertEquals(List.of(1L), ids(porPalavra));
+        assertEquals("Memórias Póstumas de Brás Cubas", semAcento.get(0).texto());
+    }
+
+    @Test
+    void completar_DeveRespeitarOLimite() {
+        // When
+        List<TrieAutocompletar.Sugestao> sugestoes = trie.completar("m", 1);
+
+        // Then
+        assertEquals(1, sugestoes.size());
+        assertEquals(TrieAutocompletar.Tipo.AUTOR, sugestoes.get(0).tipo());
+    }
+
+    @Test
+    void incrementar_DeveReordenarAsSugestoes() {
+        // When
+        trie.incrementar(TrieAutocompletar.Tipo.LIVRO, 1L, 30);
+
+        // Then
+        assertEquals(List.of(1L, 2L), ids(trie.completar("dom", 10)));
+        assertEquals(35, trie.completar("dom c", 10).get(0).peso());
+    }
+
+    @Test
+    void remover_DeveManterAsDemaisSugestoesEAtrieCompacta() {
+        // Given
+        int nosAntes = trie.quantidadeNos();
+
+        // When
+        trie.remover(TrieAutocompletar.Tipo.LIVRO, 2L);
+
+        // Then
+        assertEquals(List.of(1L), ids(trie.completar("dom", 10)));
+        assertTrue(trie.completar("quix", 10).isEmpty());
+        assertTrue(trie.quantidadeNos() < nosAntes);
+        assertEquals(3, trie.quantidadeItens());
+    }
+
+    @Test
+    void inserir_QuandoItemJaExiste_DeveTrocarOTextoEManterAPopularidade() {
+        // When
+        trie.inserir(TrieAutocompletar.Tipo.LIVRO, 1L, "Quincas Borba", 0);
+
+        // Then
+        assertTrue(trie.completar("casm", 10).isEmpty());
+        assertEquals(5, trie.completar("quincas", 10).get(0).peso());
+    }
+
+    private List<Long> ids(List<TrieAutocompletar.Sugestao> sugestoes) {
+        return sugestoes.stream().map(TrieAutocompletar.Sugestao::id).toList();
+    }
+}